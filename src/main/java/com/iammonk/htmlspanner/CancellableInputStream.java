@@ -0,0 +1,34 @@
+package com.iammonk.htmlspanner;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream which checks a ReadLimit before every read, so the HtmlCleaner
+ * stops reading as soon as a render is cancelled or out of time.
+ */
+final class CancellableInputStream extends FilterInputStream {
+
+    private final ReadLimit limit;
+
+    CancellableInputStream(InputStream in, ReadLimit limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return limit.mayRead() ? super.read() : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return limit.mayRead() ? super.read(buffer, offset, length) : -1;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return limit.mayRead() ? super.available() : 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.iammonk.htmlspanner;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader which checks a ReadLimit before every read, so the HtmlCleaner
+ * stops reading as soon as a render is cancelled or out of time.
+ */
+final class CancellableReader extends FilterReader {
+
+    private final ReadLimit limit;
+
+    CancellableReader(Reader in, ReadLimit limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return limit.mayRead() ? super.read() : -1;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        return limit.mayRead() ? super.read(buffer, offset, length) : -1;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return limit.mayRead() && super.ready();
+    }
+}
@@ -0,0 +1,88 @@
+package com.iammonk.htmlspanner;
+
+import java.util.Map;
+
+/**
+ * Compiled lookup table from tag names to TagNodeHandlers.
+ * <p>
+ * Tag names are stored in an open-addressed array, so finding the handler
+ * for a node costs a single probe on the (cached) hash code of its name
+ * in the common case. Names that aren't in the table get the shared
+ * default handler, instead of a new handler per node.
+ * <p>
+ * A HandlerTable is never changed after it is built; HtmlSpanner builds
+ * a new one when handlers are registered or removed.
+ */
+final class HandlerTable {
+
+    private final String[] tagNames;
+    private final TagNodeHandler[] handlers;
+    private final int mask;
+
+    private final TagNodeHandler defaultHandler;
+
+    private final boolean textOnly;
+
+    HandlerTable(Map<String, TagNodeHandler> handlerMap, TagNodeHandler defaultHandler) {
+
+        //Keep the load factor at or below 0.5 so probe chains stay short
+        int capacity = 16;
+        while (capacity < handlerMap.size() * 2) {
+            capacity *= 2;
+        }
+
+        this.tagNames = new String[capacity];
+        this.handlers = new TagNodeHandler[capacity];
+        this.mask = capacity - 1;
+        this.defaultHandler = defaultHandler;
+
+        boolean allTextOnly = defaultHandler.isTextOnly();
+
+        for (Map.Entry<String, TagNodeHandler> entry : handlerMap.entrySet()) {
+            allTextOnly &= entry.getValue().isTextOnly();
+
+            int slot = entry.getKey().hashCode() & mask;
+
+            while (tagNames[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            tagNames[slot] = entry.getKey();
+            handlers[slot] = entry.getValue();
+        }
+
+        this.textOnly = allTextOnly;
+    }
+
+    /**
+     * Returns true if every handler in the table, including the default
+     * handler, is text-only.
+     */
+    boolean isTextOnly() {
+        return textOnly;
+    }
+
+    /**
+     * Returns the handler for the given tag name, or the default handler
+     * if none was registered.
+     */
+    TagNodeHandler get(String tagName) {
+
+        if (tagName == null) {
+            return defaultHandler;
+        }
+
+        int slot = tagName.hashCode() & mask;
+
+        String name;
+        while ((name = tagNames[slot]) != null) {
+            if (name == tagName || name.equals(tagName)) {
+                return handlers[slot];
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return defaultHandler;
+    }
+}
@@ -0,0 +1,585 @@
+package com.iammonk.htmlspanner;
+
+import java.io.IOException;
+
+/**
+ * Trie of all HTML5 named character references, like "amp;" or "AElig".
+ * <p>
+ * Names are stored with their trailing ';' where they have one, and the
+ * legacy names that may appear without one are stored both ways, exactly
+ * like the list in the HTML5 specification. The trie is built once, when
+ * the class is loaded; looking up a name walks it one character at a time
+ * and allocates nothing.
+ */
+final class HtmlEntities {
+
+    /**
+     * The root node, from which every lookup starts.
+     */
+    static final int ROOT = 0;
+
+    /**
+     * All names, sorted and separated by spaces.
+     * <p>
+     * Generated from https://html.spec.whatwg.org/entities.json
+     */
+    private static final String NAMES =
+            "AElig AElig; AMP AMP; Aacute Aacute; Abreve; Acirc Acirc; Acy; Afr; Agrave Agrave; "
+            + "Alpha; Amacr; And; Aogon; Aopf; ApplyFunction; Aring Aring; Ascr; Assign; Atilde "
+            + "Atilde; Auml Auml; Backslash; Barv; Barwed; Bcy; Because; Bernoullis; Beta; Bfr; Bopf; "
+            + "Breve; Bscr; Bumpeq; CHcy; COPY COPY; Cacute; Cap; CapitalDifferentialD; Cayleys; "
+            + "Ccaron; Ccedil Ccedil; Ccirc; Cconint; Cdot; Cedilla; CenterDot; Cfr; Chi; CircleDot; "
+            + "CircleMinus; CirclePlus; CircleTimes; ClockwiseContourIntegral; CloseCurlyDoubleQuote; "
+            + "CloseCurlyQuote; Colon; Colone; Congruent; Conint; ContourIntegral; Copf; Coproduct; "
+            + "CounterClockwiseContourIntegral; Cross; Cscr; Cup; CupCap; DD; DDotrahd; DJcy; DScy; "
+            + "DZcy; Dagger; Darr; Dashv; Dcaron; Dcy; Del; Delta; Dfr; DiacriticalAcute; "
+            + "DiacriticalDot; DiacriticalDoubleAcute; DiacriticalGrave; DiacriticalTilde; Diamond; "
+            + "DifferentialD; Dopf; Dot; DotDot; DotEqual; DoubleContourIntegral; DoubleDot; "
+            + "DoubleDownArrow; DoubleLeftArrow; DoubleLeftRightArrow; DoubleLeftTee; "
+            + "DoubleLongLeftArrow; DoubleLongLeftRightArrow; DoubleLongRightArrow; DoubleRightArrow; "
+            + "DoubleRightTee; DoubleUpArrow; DoubleUpDownArrow; DoubleVerticalBar; DownArrow; "
+            + "DownArrowBar; DownArrowUpArrow; DownBreve; DownLeftRightVector; DownLeftTeeVector; "
+            + "DownLeftVector; DownLeftVectorBar; DownRightTeeVector; DownRightVector; "
+            + "DownRightVectorBar; DownTee; DownTeeArrow; Downarrow; Dscr; Dstrok; ENG; ETH ETH; "
+            + "Eacute Eacute; Ecaron; Ecirc Ecirc; Ecy; Edot; Efr; Egrave Egrave; Element; Emacr; "
+            + "EmptySmallSquare; EmptyVerySmallSquare; Eogon; Eopf; Epsilon; Equal; EqualTilde; "
+            + "Equilibrium; Escr; Esim; Eta; Euml Euml; Exists; ExponentialE; Fcy; Ffr; "
+            + "FilledSmallSquare; FilledVerySmallSquare; Fopf; ForAll; Fouriertrf; Fscr; GJcy; GT GT; "
+            + "Gamma; Gammad; Gbreve; Gcedil; Gcirc; Gcy; Gdot; Gfr; Gg; Gopf; GreaterEqual; "
+            + "GreaterEqualLess; GreaterFullEqual; GreaterGreater; GreaterLess; GreaterSlantEqual; "
+            + "GreaterTilde; Gscr; Gt; HARDcy; Hacek; Hat; Hcirc; Hfr; HilbertSpace; Hopf; "
+            + "HorizontalLine; Hscr; Hstrok; HumpDownHump; HumpEqual; IEcy; IJlig; IOcy; Iacute "
+            + "Iacute; Icirc Icirc; Icy; Idot; Ifr; Igrave Igrave; Im; Imacr; ImaginaryI; Implies; "
+            + "Int; Integral; Intersection; InvisibleComma; InvisibleTimes; Iogon; Iopf; Iota; Iscr; "
+            + "Itilde; Iukcy; Iuml Iuml; Jcirc; Jcy; Jfr; Jopf; Jscr; Jsercy; Jukcy; KHcy; KJcy; "
+            + "Kappa; Kcedil; Kcy; Kfr; Kopf; Kscr; LJcy; LT LT; Lacute; Lambda; Lang; Laplacetrf; "
+            + "Larr; Lcaron; Lcedil; Lcy; LeftAngleBracket; LeftArrow; LeftArrowBar; "
+            + "LeftArrowRightArrow; LeftCeiling; LeftDoubleBracket; LeftDownTeeVector; LeftDownVector; "
+            + "LeftDownVectorBar; LeftFloor; LeftRightArrow; LeftRightVector; LeftTee; LeftTeeArrow; "
+            + "LeftTeeVector; LeftTriangle; LeftTriangleBar; LeftTriangleEqual; LeftUpDownVector; "
+            + "LeftUpTeeVector; LeftUpVector; LeftUpVectorBar; LeftVector; LeftVectorBar; Leftarrow; "
+            + "Leftrightarrow; LessEqualGreater; LessFullEqual; LessGreater; LessLess; LessSlantEqual; "
+            + "LessTilde; Lfr; Ll; Lleftarrow; Lmidot; LongLeftArrow; LongLeftRightArrow; "
+            + "LongRightArrow; Longleftarrow; Longleftrightarrow; Longrightarrow; Lopf; "
+            + "LowerLeftArrow; LowerRightArrow; Lscr; Lsh; Lstrok; Lt; Map; Mcy; MediumSpace; "
+            + "Mellintrf; Mfr; MinusPlus; Mopf; Mscr; Mu; NJcy; Nacute; Ncaron; Ncedil; Ncy; "
+            + "NegativeMediumSpace; NegativeThickSpace; NegativeThinSpace; NegativeVeryThinSpace; "
+            + "NestedGreaterGreater; NestedLessLess; NewLine; Nfr; NoBreak; NonBreakingSpace; Nopf; "
+            + "Not; NotCongruent; NotCupCap; NotDoubleVerticalBar; NotElement; NotEqual; "
+            + "NotEqualTilde; NotExists; NotGreater; NotGreaterEqual; NotGreaterFullEqual; "
+            + "NotGreaterGreater; NotGreaterLess; NotGreaterSlantEqual; NotGreaterTilde; "
+            + "NotHumpDownHump; NotHumpEqual; NotLeftTriangle; NotLeftTriangleBar; "
+            + "NotLeftTriangleEqual; NotLess; NotLessEqual; NotLessGreater; NotLessLess; "
+            + "NotLessSlantEqual; NotLessTilde; NotNestedGreaterGreater; NotNestedLessLess; "
+            + "NotPrecedes; NotPrecedesEqual; NotPrecedesSlantEqual; NotReverseElement; "
+            + "NotRightTriangle; NotRightTriangleBar; NotRightTriangleEqual; NotSquareSubset; "
+            + "NotSquareSubsetEqual; NotSquareSuperset; NotSquareSupersetEqual; NotSubset; "
+            + "NotSubsetEqual; NotSucceeds; NotSucceedsEqual; NotSucceedsSlantEqual; NotSucceedsTilde; "
+            + "NotSuperset; NotSupersetEqual; NotTilde; NotTildeEqual; NotTildeFullEqual; "
+            + "NotTildeTilde; NotVerticalBar; Nscr; Ntilde Ntilde; Nu; OElig; Oacute Oacute; Ocirc "
+            + "Ocirc; Ocy; Odblac; Ofr; Ograve Ograve; Omacr; Omega; Omicron; Oopf; "
+            + "OpenCurlyDoubleQuote; OpenCurlyQuote; Or; Oscr; Oslash Oslash; Otilde Otilde; Otimes; "
+            + "Ouml Ouml; OverBar; OverBrace; OverBracket; OverParenthesis; PartialD; Pcy; Pfr; Phi; "
+            + "Pi; PlusMinus; Poincareplane; Popf; Pr; Precedes; PrecedesEqual; PrecedesSlantEqual; "
+            + "PrecedesTilde; Prime; Product; Proportion; Proportional; Pscr; Psi; QUOT QUOT; Qfr; "
+            + "Qopf; Qscr; RBarr; REG REG; Racute; Rang; Rarr; Rarrtl; Rcaron; Rcedil; Rcy; Re; "
+            + "ReverseElement; ReverseEquilibrium; ReverseUpEquilibrium; Rfr; Rho; RightAngleBracket; "
+            + "RightArrow; RightArrowBar; RightArrowLeftArrow; RightCeiling; RightDoubleBracket; "
+            + "RightDownTeeVector; RightDownVector; RightDownVectorBar; RightFloor; RightTee; "
+            + "RightTeeArrow; RightTeeVector; RightTriangle; RightTriangleBar; RightTriangleEqual; "
+            + "RightUpDownVector; RightUpTeeVector; RightUpVector; RightUpVectorBar; RightVector; "
+            + "RightVectorBar; Rightarrow; Ropf; RoundImplies; Rrightarrow; Rscr; Rsh; RuleDelayed; "
+            + "SHCHcy; SHcy; SOFTcy; Sacute; Sc; Scaron; Scedil; Scirc; Scy; Sfr; ShortDownArrow; "
+            + "ShortLeftArrow; ShortRightArrow; ShortUpArrow; Sigma; SmallCircle; Sopf; Sqrt; Square; "
+            + "SquareIntersection; SquareSubset; SquareSubsetEqual; SquareSuperset; "
+            + "SquareSupersetEqual; SquareUnion; Sscr; Star; Sub; Subset; SubsetEqual; Succeeds; "
+            + "SucceedsEqual; SucceedsSlantEqual; SucceedsTilde; SuchThat; Sum; Sup; Superset; "
+            + "SupersetEqual; Supset; THORN THORN; TRADE; TSHcy; TScy; Tab; Tau; Tcaron; Tcedil; Tcy; "
+            + "Tfr; Therefore; Theta; ThickSpace; ThinSpace; Tilde; TildeEqual; TildeFullEqual; "
+            + "TildeTilde; Topf; TripleDot; Tscr; Tstrok; Uacute Uacute; Uarr; Uarrocir; Ubrcy; "
+            + "Ubreve; Ucirc Ucirc; Ucy; Udblac; Ufr; Ugrave Ugrave; Umacr; UnderBar; UnderBrace; "
+            + "UnderBracket; UnderParenthesis; Union; UnionPlus; Uogon; Uopf; UpArrow; UpArrowBar; "
+            + "UpArrowDownArrow; UpDownArrow; UpEquilibrium; UpTee; UpTeeArrow; Uparrow; Updownarrow; "
+            + "UpperLeftArrow; UpperRightArrow; Upsi; Upsilon; Uring; Uscr; Utilde; Uuml Uuml; VDash; "
+            + "Vbar; Vcy; Vdash; Vdashl; Vee; Verbar; Vert; VerticalBar; VerticalLine; "
+            + "VerticalSeparator; VerticalTilde; VeryThinSpace; Vfr; Vopf; Vscr; Vvdash; Wcirc; Wedge; "
+            + "Wfr; Wopf; Wscr; Xfr; Xi; Xopf; Xscr; YAcy; YIcy; YUcy; Yacute Yacute; Ycirc; Ycy; Yfr; "
+            + "Yopf; Yscr; Yuml; ZHcy; Zacute; Zcaron; Zcy; Zdot; ZeroWidthSpace; Zeta; Zfr; Zopf; "
+            + "Zscr; aacute aacute; abreve; ac; acE; acd; acirc acirc; acute acute; acy; aelig aelig; "
+            + "af; afr; agrave agrave; alefsym; aleph; alpha; amacr; amalg; amp amp; and; andand; "
+            + "andd; andslope; andv; ang; ange; angle; angmsd; angmsdaa; angmsdab; angmsdac; angmsdad; "
+            + "angmsdae; angmsdaf; angmsdag; angmsdah; angrt; angrtvb; angrtvbd; angsph; angst; "
+            + "angzarr; aogon; aopf; ap; apE; apacir; ape; apid; apos; approx; approxeq; aring aring; "
+            + "ascr; ast; asymp; asympeq; atilde atilde; auml auml; awconint; awint; bNot; backcong; "
+            + "backepsilon; backprime; backsim; backsimeq; barvee; barwed; barwedge; bbrk; bbrktbrk; "
+            + "bcong; bcy; bdquo; becaus; because; bemptyv; bepsi; bernou; beta; beth; between; bfr; "
+            + "bigcap; bigcirc; bigcup; bigodot; bigoplus; bigotimes; bigsqcup; bigstar; "
+            + "bigtriangledown; bigtriangleup; biguplus; bigvee; bigwedge; bkarow; blacklozenge; "
+            + "blacksquare; blacktriangle; blacktriangledown; blacktriangleleft; blacktriangleright; "
+            + "blank; blk12; blk14; blk34; block; bne; bnequiv; bnot; bopf; bot; bottom; bowtie; "
+            + "boxDL; boxDR; boxDl; boxDr; boxH; boxHD; boxHU; boxHd; boxHu; boxUL; boxUR; boxUl; "
+            + "boxUr; boxV; boxVH; boxVL; boxVR; boxVh; boxVl; boxVr; boxbox; boxdL; boxdR; boxdl; "
+            + "boxdr; boxh; boxhD; boxhU; boxhd; boxhu; boxminus; boxplus; boxtimes; boxuL; boxuR; "
+            + "boxul; boxur; boxv; boxvH; boxvL; boxvR; boxvh; boxvl; boxvr; bprime; breve; brvbar "
+            + "brvbar; bscr; bsemi; bsim; bsime; bsol; bsolb; bsolhsub; bull; bullet; bump; bumpE; "
+            + "bumpe; bumpeq; cacute; cap; capand; capbrcup; capcap; capcup; capdot; caps; caret; "
+            + "caron; ccaps; ccaron; ccedil ccedil; ccirc; ccups; ccupssm; cdot; cedil cedil; cemptyv; "
+            + "cent cent; centerdot; cfr; chcy; check; checkmark; chi; cir; cirE; circ; circeq; "
+            + "circlearrowleft; circlearrowright; circledR; circledS; circledast; circledcirc; "
+            + "circleddash; cire; cirfnint; cirmid; cirscir; clubs; clubsuit; colon; colone; coloneq; "
+            + "comma; commat; comp; compfn; complement; complexes; cong; congdot; conint; copf; "
+            + "coprod; copy copy; copysr; crarr; cross; cscr; csub; csube; csup; csupe; ctdot; "
+            + "cudarrl; cudarrr; cuepr; cuesc; cularr; cularrp; cup; cupbrcap; cupcap; cupcup; cupdot; "
+            + "cupor; cups; curarr; curarrm; curlyeqprec; curlyeqsucc; curlyvee; curlywedge; curren "
+            + "curren; curvearrowleft; curvearrowright; cuvee; cuwed; cwconint; cwint; cylcty; dArr; "
+            + "dHar; dagger; daleth; darr; dash; dashv; dbkarow; dblac; dcaron; dcy; dd; ddagger; "
+            + "ddarr; ddotseq; deg deg; delta; demptyv; dfisht; dfr; dharl; dharr; diam; diamond; "
+            + "diamondsuit; diams; die; digamma; disin; div; divide divide; divideontimes; divonx; "
+            + "djcy; dlcorn; dlcrop; dollar; dopf; dot; doteq; doteqdot; dotminus; dotplus; dotsquare; "
+            + "doublebarwedge; downarrow; downdownarrows; downharpoonleft; downharpoonright; drbkarow; "
+            + "drcorn; drcrop; dscr; dscy; dsol; dstrok; dtdot; dtri; dtrif; duarr; duhar; dwangle; "
+            + "dzcy; dzigrarr; eDDot; eDot; eacute eacute; easter; ecaron; ecir; ecirc ecirc; ecolon; "
+            + "ecy; edot; ee; efDot; efr; eg; egrave egrave; egs; egsdot; el; elinters; ell; els; "
+            + "elsdot; emacr; empty; emptyset; emptyv; emsp13; emsp14; emsp; eng; ensp; eogon; eopf; "
+            + "epar; eparsl; eplus; epsi; epsilon; epsiv; eqcirc; eqcolon; eqsim; eqslantgtr; "
+            + "eqslantless; equals; equest; equiv; equivDD; eqvparsl; erDot; erarr; escr; esdot; esim; "
+            + "eta; eth eth; euml euml; euro; excl; exist; expectation; exponentiale; fallingdotseq; "
+            + "fcy; female; ffilig; fflig; ffllig; ffr; filig; fjlig; flat; fllig; fltns; fnof; fopf; "
+            + "forall; fork; forkv; fpartint; frac12 frac12; frac13; frac14 frac14; frac15; frac16; "
+            + "frac18; frac23; frac25; frac34 frac34; frac35; frac38; frac45; frac56; frac58; frac78; "
+            + "frasl; frown; fscr; gE; gEl; gacute; gamma; gammad; gap; gbreve; gcirc; gcy; gdot; ge; "
+            + "gel; geq; geqq; geqslant; ges; gescc; gesdot; gesdoto; gesdotol; gesl; gesles; gfr; gg; "
+            + "ggg; gimel; gjcy; gl; glE; gla; glj; gnE; gnap; gnapprox; gne; gneq; gneqq; gnsim; "
+            + "gopf; grave; gscr; gsim; gsime; gsiml; gt gt; gtcc; gtcir; gtdot; gtlPar; gtquest; "
+            + "gtrapprox; gtrarr; gtrdot; gtreqless; gtreqqless; gtrless; gtrsim; gvertneqq; gvnE; "
+            + "hArr; hairsp; half; hamilt; hardcy; harr; harrcir; harrw; hbar; hcirc; hearts; "
+            + "heartsuit; hellip; hercon; hfr; hksearow; hkswarow; hoarr; homtht; hookleftarrow; "
+            + "hookrightarrow; hopf; horbar; hscr; hslash; hstrok; hybull; hyphen; iacute iacute; ic; "
+            + "icirc icirc; icy; iecy; iexcl iexcl; iff; ifr; igrave igrave; ii; iiiint; iiint; "
+            + "iinfin; iiota; ijlig; imacr; image; imagline; imagpart; imath; imof; imped; in; incare; "
+            + "infin; infintie; inodot; int; intcal; integers; intercal; intlarhk; intprod; iocy; "
+            + "iogon; iopf; iota; iprod; iquest iquest; iscr; isin; isinE; isindot; isins; isinsv; "
+            + "isinv; it; itilde; iukcy; iuml iuml; jcirc; jcy; jfr; jmath; jopf; jscr; jsercy; jukcy; "
+            + "kappa; kappav; kcedil; kcy; kfr; kgreen; khcy; kjcy; kopf; kscr; lAarr; lArr; lAtail; "
+            + "lBarr; lE; lEg; lHar; lacute; laemptyv; lagran; lambda; lang; langd; langle; lap; laquo "
+            + "laquo; larr; larrb; larrbfs; larrfs; larrhk; larrlp; larrpl; larrsim; larrtl; lat; "
+            + "latail; late; lates; lbarr; lbbrk; lbrace; lbrack; lbrke; lbrksld; lbrkslu; lcaron; "
+            + "lcedil; lceil; lcub; lcy; ldca; ldquo; ldquor; ldrdhar; ldrushar; ldsh; le; leftarrow; "
+            + "leftarrowtail; leftharpoondown; leftharpoonup; leftleftarrows; leftrightarrow; "
+            + "leftrightarrows; leftrightharpoons; leftrightsquigarrow; leftthreetimes; leg; leq; "
+            + "leqq; leqslant; les; lescc; lesdot; lesdoto; lesdotor; lesg; lesges; lessapprox; "
+            + "lessdot; lesseqgtr; lesseqqgtr; lessgtr; lesssim; lfisht; lfloor; lfr; lg; lgE; lhard; "
+            + "lharu; lharul; lhblk; ljcy; ll; llarr; llcorner; llhard; lltri; lmidot; lmoust; "
+            + "lmoustache; lnE; lnap; lnapprox; lne; lneq; lneqq; lnsim; loang; loarr; lobrk; "
+            + "longleftarrow; longleftrightarrow; longmapsto; longrightarrow; looparrowleft; "
+            + "looparrowright; lopar; lopf; loplus; lotimes; lowast; lowbar; loz; lozenge; lozf; lpar; "
+            + "lparlt; lrarr; lrcorner; lrhar; lrhard; lrm; lrtri; lsaquo; lscr; lsh; lsim; lsime; "
+            + "lsimg; lsqb; lsquo; lsquor; lstrok; lt lt; ltcc; ltcir; ltdot; lthree; ltimes; ltlarr; "
+            + "ltquest; ltrPar; ltri; ltrie; ltrif; lurdshar; luruhar; lvertneqq; lvnE; mDDot; macr "
+            + "macr; male; malt; maltese; map; mapsto; mapstodown; mapstoleft; mapstoup; marker; "
+            + "mcomma; mcy; mdash; measuredangle; mfr; mho; micro micro; mid; midast; midcir; middot "
+            + "middot; minus; minusb; minusd; minusdu; mlcp; mldr; mnplus; models; mopf; mp; mscr; "
+            + "mstpos; mu; multimap; mumap; nGg; nGt; nGtv; nLeftarrow; nLeftrightarrow; nLl; nLt; "
+            + "nLtv; nRightarrow; nVDash; nVdash; nabla; nacute; nang; nap; napE; napid; napos; "
+            + "napprox; natur; natural; naturals; nbsp nbsp; nbump; nbumpe; ncap; ncaron; ncedil; "
+            + "ncong; ncongdot; ncup; ncy; ndash; ne; neArr; nearhk; nearr; nearrow; nedot; nequiv; "
+            + "nesear; nesim; nexist; nexists; nfr; ngE; nge; ngeq; ngeqq; ngeqslant; nges; ngsim; "
+            + "ngt; ngtr; nhArr; nharr; nhpar; ni; nis; nisd; niv; njcy; nlArr; nlE; nlarr; nldr; nle; "
+            + "nleftarrow; nleftrightarrow; nleq; nleqq; nleqslant; nles; nless; nlsim; nlt; nltri; "
+            + "nltrie; nmid; nopf; not not; notin; notinE; notindot; notinva; notinvb; notinvc; notni; "
+            + "notniva; notnivb; notnivc; npar; nparallel; nparsl; npart; npolint; npr; nprcue; npre; "
+            + "nprec; npreceq; nrArr; nrarr; nrarrc; nrarrw; nrightarrow; nrtri; nrtrie; nsc; nsccue; "
+            + "nsce; nscr; nshortmid; nshortparallel; nsim; nsime; nsimeq; nsmid; nspar; nsqsube; "
+            + "nsqsupe; nsub; nsubE; nsube; nsubset; nsubseteq; nsubseteqq; nsucc; nsucceq; nsup; "
+            + "nsupE; nsupe; nsupset; nsupseteq; nsupseteqq; ntgl; ntilde ntilde; ntlg; ntriangleleft; "
+            + "ntrianglelefteq; ntriangleright; ntrianglerighteq; nu; num; numero; numsp; nvDash; "
+            + "nvHarr; nvap; nvdash; nvge; nvgt; nvinfin; nvlArr; nvle; nvlt; nvltrie; nvrArr; "
+            + "nvrtrie; nvsim; nwArr; nwarhk; nwarr; nwarrow; nwnear; oS; oacute oacute; oast; ocir; "
+            + "ocirc ocirc; ocy; odash; odblac; odiv; odot; odsold; oelig; ofcir; ofr; ogon; ograve "
+            + "ograve; ogt; ohbar; ohm; oint; olarr; olcir; olcross; oline; olt; omacr; omega; "
+            + "omicron; omid; ominus; oopf; opar; operp; oplus; or; orarr; ord; order; orderof; ordf "
+            + "ordf; ordm ordm; origof; oror; orslope; orv; oscr; oslash oslash; osol; otilde otilde; "
+            + "otimes; otimesas; ouml ouml; ovbar; par; para para; parallel; parsim; parsl; part; pcy; "
+            + "percnt; period; permil; perp; pertenk; pfr; phi; phiv; phmmat; phone; pi; pitchfork; "
+            + "piv; planck; planckh; plankv; plus; plusacir; plusb; pluscir; plusdo; plusdu; pluse; "
+            + "plusmn plusmn; plussim; plustwo; pm; pointint; popf; pound pound; pr; prE; prap; prcue; "
+            + "pre; prec; precapprox; preccurlyeq; preceq; precnapprox; precneqq; precnsim; precsim; "
+            + "prime; primes; prnE; prnap; prnsim; prod; profalar; profline; profsurf; prop; propto; "
+            + "prsim; prurel; pscr; psi; puncsp; qfr; qint; qopf; qprime; qscr; quaternions; quatint; "
+            + "quest; questeq; quot quot; rAarr; rArr; rAtail; rBarr; rHar; race; racute; radic; "
+            + "raemptyv; rang; rangd; range; rangle; raquo raquo; rarr; rarrap; rarrb; rarrbfs; rarrc; "
+            + "rarrfs; rarrhk; rarrlp; rarrpl; rarrsim; rarrtl; rarrw; ratail; ratio; rationals; "
+            + "rbarr; rbbrk; rbrace; rbrack; rbrke; rbrksld; rbrkslu; rcaron; rcedil; rceil; rcub; "
+            + "rcy; rdca; rdldhar; rdquo; rdquor; rdsh; real; realine; realpart; reals; rect; reg reg; "
+            + "rfisht; rfloor; rfr; rhard; rharu; rharul; rho; rhov; rightarrow; rightarrowtail; "
+            + "rightharpoondown; rightharpoonup; rightleftarrows; rightleftharpoons; rightrightarrows; "
+            + "rightsquigarrow; rightthreetimes; ring; risingdotseq; rlarr; rlhar; rlm; rmoust; "
+            + "rmoustache; rnmid; roang; roarr; robrk; ropar; ropf; roplus; rotimes; rpar; rpargt; "
+            + "rppolint; rrarr; rsaquo; rscr; rsh; rsqb; rsquo; rsquor; rthree; rtimes; rtri; rtrie; "
+            + "rtrif; rtriltri; ruluhar; rx; sacute; sbquo; sc; scE; scap; scaron; sccue; sce; scedil; "
+            + "scirc; scnE; scnap; scnsim; scpolint; scsim; scy; sdot; sdotb; sdote; seArr; searhk; "
+            + "searr; searrow; sect sect; semi; seswar; setminus; setmn; sext; sfr; sfrown; sharp; "
+            + "shchcy; shcy; shortmid; shortparallel; shy shy; sigma; sigmaf; sigmav; sim; simdot; "
+            + "sime; simeq; simg; simgE; siml; simlE; simne; simplus; simrarr; slarr; smallsetminus; "
+            + "smashp; smeparsl; smid; smile; smt; smte; smtes; softcy; sol; solb; solbar; sopf; "
+            + "spades; spadesuit; spar; sqcap; sqcaps; sqcup; sqcups; sqsub; sqsube; sqsubset; "
+            + "sqsubseteq; sqsup; sqsupe; sqsupset; sqsupseteq; squ; square; squarf; squf; srarr; "
+            + "sscr; ssetmn; ssmile; sstarf; star; starf; straightepsilon; straightphi; strns; sub; "
+            + "subE; subdot; sube; subedot; submult; subnE; subne; subplus; subrarr; subset; subseteq; "
+            + "subseteqq; subsetneq; subsetneqq; subsim; subsub; subsup; succ; succapprox; "
+            + "succcurlyeq; succeq; succnapprox; succneqq; succnsim; succsim; sum; sung; sup1 sup1; "
+            + "sup2 sup2; sup3 sup3; sup; supE; supdot; supdsub; supe; supedot; suphsol; suphsub; "
+            + "suplarr; supmult; supnE; supne; supplus; supset; supseteq; supseteqq; supsetneq; "
+            + "supsetneqq; supsim; supsub; supsup; swArr; swarhk; swarr; swarrow; swnwar; szlig szlig; "
+            + "target; tau; tbrk; tcaron; tcedil; tcy; tdot; telrec; tfr; there4; therefore; theta; "
+            + "thetasym; thetav; thickapprox; thicksim; thinsp; thkap; thksim; thorn thorn; tilde; "
+            + "times times; timesb; timesbar; timesd; tint; toea; top; topbot; topcir; topf; topfork; "
+            + "tosa; tprime; trade; triangle; triangledown; triangleleft; trianglelefteq; triangleq; "
+            + "triangleright; trianglerighteq; tridot; trie; triminus; triplus; trisb; tritime; "
+            + "trpezium; tscr; tscy; tshcy; tstrok; twixt; twoheadleftarrow; twoheadrightarrow; uArr; "
+            + "uHar; uacute uacute; uarr; ubrcy; ubreve; ucirc ucirc; ucy; udarr; udblac; udhar; "
+            + "ufisht; ufr; ugrave ugrave; uharl; uharr; uhblk; ulcorn; ulcorner; ulcrop; ultri; "
+            + "umacr; uml uml; uogon; uopf; uparrow; updownarrow; upharpoonleft; upharpoonright; "
+            + "uplus; upsi; upsih; upsilon; upuparrows; urcorn; urcorner; urcrop; uring; urtri; uscr; "
+            + "utdot; utilde; utri; utrif; uuarr; uuml uuml; uwangle; vArr; vBar; vBarv; vDash; "
+            + "vangrt; varepsilon; varkappa; varnothing; varphi; varpi; varpropto; varr; varrho; "
+            + "varsigma; varsubsetneq; varsubsetneqq; varsupsetneq; varsupsetneqq; vartheta; "
+            + "vartriangleleft; vartriangleright; vcy; vdash; vee; veebar; veeeq; vellip; verbar; "
+            + "vert; vfr; vltri; vnsub; vnsup; vopf; vprop; vrtri; vscr; vsubnE; vsubne; vsupnE; "
+            + "vsupne; vzigzag; wcirc; wedbar; wedge; wedgeq; weierp; wfr; wopf; wp; wr; wreath; wscr; "
+            + "xcap; xcirc; xcup; xdtri; xfr; xhArr; xharr; xi; xlArr; xlarr; xmap; xnis; xodot; xopf; "
+            + "xoplus; xotime; xrArr; xrarr; xscr; xsqcup; xuplus; xutri; xvee; xwedge; yacute yacute; "
+            + "yacy; ycirc; ycy; yen yen; yfr; yicy; yopf; yscr; yucy; yuml yuml; zacute; zcaron; zcy; "
+            + "zdot; zeetrf; zeta; zfr; zhcy; zigrarr; zopf; zscr; zwj; zwnj; ";
+
+    /**
+     * The replacement text for each name, in the same order: the number
+     * of chars, followed by the chars themselves.
+     */
+    private static final String VALUES =
+            "1\u00C61\u00C61&1&1\u00C11\u00C11\u01021\u00C21\u00C21\u04102\uD835\uDD041\u00C01\u00C0"
+            + "1\u03911\u01001\u2A531\u01042\uD835\uDD381\u20611\u00C51\u00C52\uD835\uDC9C1\u2254"
+            + "1\u00C31\u00C31\u00C41\u00C41\u22161\u2AE71\u23061\u04111\u22351\u212C1\u0392"
+            + "2\uD835\uDD052\uD835\uDD391\u02D81\u212C1\u224E1\u04271\u00A91\u00A91\u01061\u22D2"
+            + "1\u21451\u212D1\u010C1\u00C71\u00C71\u01081\u22301\u010A1\u00B81\u00B71\u212D1\u03A7"
+            + "1\u22991\u22961\u22951\u22971\u22321\u201D1\u20191\u22371\u2A741\u22611\u222F1\u222E"
+            + "1\u21021\u22101\u22331\u2A2F2\uD835\uDC9E1\u22D31\u224D1\u21451\u29111\u04021\u0405"
+            + "1\u040F1\u20211\u21A11\u2AE41\u010E1\u04141\u22071\u03942\uD835\uDD071\u00B41\u02D9"
+            + "1\u02DD1`1\u02DC1\u22C41\u21462\uD835\uDD3B1\u00A81\u20DC1\u22501\u222F1\u00A81\u21D3"
+            + "1\u21D01\u21D41\u2AE41\u27F81\u27FA1\u27F91\u21D21\u22A81\u21D11\u21D51\u22251\u2193"
+            + "1\u29131\u21F51\u03111\u29501\u295E1\u21BD1\u29561\u295F1\u21C11\u29571\u22A41\u21A7"
+            + "1\u21D32\uD835\uDC9F1\u01101\u014A1\u00D01\u00D01\u00C91\u00C91\u011A1\u00CA1\u00CA"
+            + "1\u042D1\u01162\uD835\uDD081\u00C81\u00C81\u22081\u01121\u25FB1\u25AB1\u0118"
+            + "2\uD835\uDD3C1\u03951\u2A751\u22421\u21CC1\u21301\u2A731\u03971\u00CB1\u00CB1\u2203"
+            + "1\u21471\u04242\uD835\uDD091\u25FC1\u25AA2\uD835\uDD3D1\u22001\u21311\u21311\u04031>1>"
+            + "1\u03931\u03DC1\u011E1\u01221\u011C1\u04131\u01202\uD835\uDD0A1\u22D92\uD835\uDD3E"
+            + "1\u22651\u22DB1\u22671\u2AA21\u22771\u2A7E1\u22732\uD835\uDCA21\u226B1\u042A1\u02C71^"
+            + "1\u01241\u210C1\u210B1\u210D1\u25001\u210B1\u01261\u224E1\u224F1\u04151\u01321\u0401"
+            + "1\u00CD1\u00CD1\u00CE1\u00CE1\u04181\u01301\u21111\u00CC1\u00CC1\u21111\u012A1\u2148"
+            + "1\u21D21\u222C1\u222B1\u22C21\u20631\u20621\u012E2\uD835\uDD401\u03991\u21101\u0128"
+            + "1\u04061\u00CF1\u00CF1\u01341\u04192\uD835\uDD0D2\uD835\uDD412\uD835\uDCA51\u04081\u0404"
+            + "1\u04251\u040C1\u039A1\u01361\u041A2\uD835\uDD0E2\uD835\uDD422\uD835\uDCA61\u04091<1<"
+            + "1\u01391\u039B1\u27EA1\u21121\u219E1\u013D1\u013B1\u041B1\u27E81\u21901\u21E41\u21C6"
+            + "1\u23081\u27E61\u29611\u21C31\u29591\u230A1\u21941\u294E1\u22A31\u21A41\u295A1\u22B2"
+            + "1\u29CF1\u22B41\u29511\u29601\u21BF1\u29581\u21BC1\u29521\u21D01\u21D41\u22DA1\u2266"
+            + "1\u22761\u2AA11\u2A7D1\u22722\uD835\uDD0F1\u22D81\u21DA1\u013F1\u27F51\u27F71\u27F6"
+            + "1\u27F81\u27FA1\u27F92\uD835\uDD431\u21991\u21981\u21121\u21B01\u01411\u226A1\u2905"
+            + "1\u041C1\u205F1\u21332\uD835\uDD101\u22132\uD835\uDD441\u21331\u039C1\u040A1\u0143"
+            + "1\u01471\u01451\u041D1\u200B1\u200B1\u200B1\u200B1\u226B1\u226A1\n2\uD835\uDD111\u2060"
+            + "1\u00A01\u21151\u2AEC1\u22621\u226D1\u22261\u22091\u22602\u2242\u03381\u22041\u226F"
+            + "1\u22712\u2267\u03382\u226B\u03381\u22792\u2A7E\u03381\u22752\u224E\u03382\u224F\u0338"
+            + "1\u22EA2\u29CF\u03381\u22EC1\u226E1\u22701\u22782\u226A\u03382\u2A7D\u03381\u2274"
+            + "2\u2AA2\u03382\u2AA1\u03381\u22802\u2AAF\u03381\u22E01\u220C1\u22EB2\u29D0\u03381\u22ED"
+            + "2\u228F\u03381\u22E22\u2290\u03381\u22E32\u2282\u20D21\u22881\u22812\u2AB0\u03381\u22E1"
+            + "2\u227F\u03382\u2283\u20D21\u22891\u22411\u22441\u22471\u22491\u22242\uD835\uDCA91\u00D1"
+            + "1\u00D11\u039D1\u01521\u00D31\u00D31\u00D41\u00D41\u041E1\u01502\uD835\uDD121\u00D2"
+            + "1\u00D21\u014C1\u03A91\u039F2\uD835\uDD461\u201C1\u20181\u2A542\uD835\uDCAA1\u00D8"
+            + "1\u00D81\u00D51\u00D51\u2A371\u00D61\u00D61\u203E1\u23DE1\u23B41\u23DC1\u22021\u041F"
+            + "2\uD835\uDD131\u03A61\u03A01\u00B11\u210C1\u21191\u2ABB1\u227A1\u2AAF1\u227C1\u227E"
+            + "1\u20331\u220F1\u22371\u221D2\uD835\uDCAB1\u03A81\"1\"2\uD835\uDD141\u211A2\uD835\uDCAC"
+            + "1\u29101\u00AE1\u00AE1\u01541\u27EB1\u21A01\u29161\u01581\u01561\u04201\u211C1\u220B"
+            + "1\u21CB1\u296F1\u211C1\u03A11\u27E91\u21921\u21E51\u21C41\u23091\u27E71\u295D1\u21C2"
+            + "1\u29551\u230B1\u22A21\u21A61\u295B1\u22B31\u29D01\u22B51\u294F1\u295C1\u21BE1\u2954"
+            + "1\u21C01\u29531\u21D21\u211D1\u29701\u21DB1\u211B1\u21B11\u29F41\u04291\u04281\u042C"
+            + "1\u015A1\u2ABC1\u01601\u015E1\u015C1\u04212\uD835\uDD161\u21931\u21901\u21921\u2191"
+            + "1\u03A31\u22182\uD835\uDD4A1\u221A1\u25A11\u22931\u228F1\u22911\u22901\u22921\u2294"
+            + "2\uD835\uDCAE1\u22C61\u22D01\u22D01\u22861\u227B1\u2AB01\u227D1\u227F1\u220B1\u2211"
+            + "1\u22D11\u22831\u22871\u22D11\u00DE1\u00DE1\u21221\u040B1\u04261\t1\u03A41\u01641\u0162"
+            + "1\u04222\uD835\uDD171\u22341\u03982\u205F\u200A1\u20091\u223C1\u22431\u22451\u2248"
+            + "2\uD835\uDD4B1\u20DB2\uD835\uDCAF1\u01661\u00DA1\u00DA1\u219F1\u29491\u040E1\u016C"
+            + "1\u00DB1\u00DB1\u04231\u01702\uD835\uDD181\u00D91\u00D91\u016A1_1\u23DF1\u23B51\u23DD"
+            + "1\u22C31\u228E1\u01722\uD835\uDD4C1\u21911\u29121\u21C51\u21951\u296E1\u22A51\u21A5"
+            + "1\u21D11\u21D51\u21961\u21971\u03D21\u03A51\u016E2\uD835\uDCB01\u01681\u00DC1\u00DC"
+            + "1\u22AB1\u2AEB1\u04121\u22A91\u2AE61\u22C11\u20161\u20161\u22231|1\u27581\u22401\u200A"
+            + "2\uD835\uDD192\uD835\uDD4D2\uD835\uDCB11\u22AA1\u01741\u22C02\uD835\uDD1A2\uD835\uDD4E"
+            + "2\uD835\uDCB22\uD835\uDD1B1\u039E2\uD835\uDD4F2\uD835\uDCB31\u042F1\u04071\u042E1\u00DD"
+            + "1\u00DD1\u01761\u042B2\uD835\uDD1C2\uD835\uDD502\uD835\uDCB41\u01781\u04161\u01791\u017D"
+            + "1\u04171\u017B1\u200B1\u03961\u21281\u21242\uD835\uDCB51\u00E11\u00E11\u01031\u223E"
+            + "2\u223E\u03331\u223F1\u00E21\u00E21\u00B41\u00B41\u04301\u00E61\u00E61\u2061"
+            + "2\uD835\uDD1E1\u00E01\u00E01\u21351\u21351\u03B11\u01011\u2A3F1&1&1\u22271\u2A551\u2A5C"
+            + "1\u2A581\u2A5A1\u22201\u29A41\u22201\u22211\u29A81\u29A91\u29AA1\u29AB1\u29AC1\u29AD"
+            + "1\u29AE1\u29AF1\u221F1\u22BE1\u299D1\u22221\u00C51\u237C1\u01052\uD835\uDD521\u2248"
+            + "1\u2A701\u2A6F1\u224A1\u224B1'1\u22481\u224A1\u00E51\u00E52\uD835\uDCB61*1\u22481\u224D"
+            + "1\u00E31\u00E31\u00E41\u00E41\u22331\u2A111\u2AED1\u224C1\u03F61\u20351\u223D1\u22CD"
+            + "1\u22BD1\u23051\u23051\u23B51\u23B61\u224C1\u04311\u201E1\u22351\u22351\u29B01\u03F6"
+            + "1\u212C1\u03B21\u21361\u226C2\uD835\uDD1F1\u22C21\u25EF1\u22C31\u2A001\u2A011\u2A02"
+            + "1\u2A061\u26051\u25BD1\u25B31\u2A041\u22C11\u22C01\u290D1\u29EB1\u25AA1\u25B41\u25BE"
+            + "1\u25C21\u25B81\u24231\u25921\u25911\u25931\u25882=\u20E52\u2261\u20E51\u2310"
+            + "2\uD835\uDD531\u22A51\u22A51\u22C81\u25571\u25541\u25561\u25531\u25501\u25661\u2569"
+            + "1\u25641\u25671\u255D1\u255A1\u255C1\u25591\u25511\u256C1\u25631\u25601\u256B1\u2562"
+            + "1\u255F1\u29C91\u25551\u25521\u25101\u250C1\u25001\u25651\u25681\u252C1\u25341\u229F"
+            + "1\u229E1\u22A01\u255B1\u25581\u25181\u25141\u25021\u256A1\u25611\u255E1\u253C1\u2524"
+            + "1\u251C1\u20351\u02D81\u00A61\u00A62\uD835\uDCB71\u204F1\u223D1\u22CD1\\1\u29C51\u27C8"
+            + "1\u20221\u20221\u224E1\u2AAE1\u224F1\u224F1\u01071\u22291\u2A441\u2A491\u2A4B1\u2A47"
+            + "1\u2A402\u2229\uFE001\u20411\u02C71\u2A4D1\u010D1\u00E71\u00E71\u01091\u2A4C1\u2A50"
+            + "1\u010B1\u00B81\u00B81\u29B21\u00A21\u00A21\u00B72\uD835\uDD201\u04471\u27131\u2713"
+            + "1\u03C71\u25CB1\u29C31\u02C61\u22571\u21BA1\u21BB1\u00AE1\u24C81\u229B1\u229A1\u229D"
+            + "1\u22571\u2A101\u2AEF1\u29C21\u26631\u26631:1\u22541\u22541,1@1\u22011\u22181\u2201"
+            + "1\u21021\u22451\u2A6D1\u222E2\uD835\uDD541\u22101\u00A91\u00A91\u21171\u21B51\u2717"
+            + "2\uD835\uDCB81\u2ACF1\u2AD11\u2AD01\u2AD21\u22EF1\u29381\u29351\u22DE1\u22DF1\u21B6"
+            + "1\u293D1\u222A1\u2A481\u2A461\u2A4A1\u228D1\u2A452\u222A\uFE001\u21B71\u293C1\u22DE"
+            + "1\u22DF1\u22CE1\u22CF1\u00A41\u00A41\u21B61\u21B71\u22CE1\u22CF1\u22321\u22311\u232D"
+            + "1\u21D31\u29651\u20201\u21381\u21931\u20101\u22A31\u290F1\u02DD1\u010F1\u04341\u2146"
+            + "1\u20211\u21CA1\u2A771\u00B01\u00B01\u03B41\u29B11\u297F2\uD835\uDD211\u21C31\u21C2"
+            + "1\u22C41\u22C41\u26661\u26661\u00A81\u03DD1\u22F21\u00F71\u00F71\u00F71\u22C71\u22C7"
+            + "1\u04521\u231E1\u230D1$2\uD835\uDD551\u02D91\u22501\u22511\u22381\u22141\u22A11\u2306"
+            + "1\u21931\u21CA1\u21C31\u21C21\u29101\u231F1\u230C2\uD835\uDCB91\u04551\u29F61\u0111"
+            + "1\u22F11\u25BF1\u25BE1\u21F51\u296F1\u29A61\u045F1\u27FF1\u2A771\u22511\u00E91\u00E9"
+            + "1\u2A6E1\u011B1\u22561\u00EA1\u00EA1\u22551\u044D1\u01171\u21471\u22522\uD835\uDD22"
+            + "1\u2A9A1\u00E81\u00E81\u2A961\u2A981\u2A991\u23E71\u21131\u2A951\u2A971\u01131\u2205"
+            + "1\u22051\u22051\u20041\u20051\u20031\u014B1\u20021\u01192\uD835\uDD561\u22D51\u29E3"
+            + "1\u2A711\u03B51\u03B51\u03F51\u22561\u22551\u22421\u2A961\u2A951=1\u225F1\u22611\u2A78"
+            + "1\u29E51\u22531\u29711\u212F1\u22501\u22421\u03B71\u00F01\u00F01\u00EB1\u00EB1\u20AC1!"
+            + "1\u22031\u21301\u21471\u22521\u04441\u26401\uFB031\uFB001\uFB042\uD835\uDD231\uFB012fj"
+            + "1\u266D1\uFB021\u25B11\u01922\uD835\uDD571\u22001\u22D41\u2AD91\u2A0D1\u00BD1\u00BD"
+            + "1\u21531\u00BC1\u00BC1\u21551\u21591\u215B1\u21541\u21561\u00BE1\u00BE1\u21571\u215C"
+            + "1\u21581\u215A1\u215D1\u215E1\u20441\u23222\uD835\uDCBB1\u22671\u2A8C1\u01F51\u03B3"
+            + "1\u03DD1\u2A861\u011F1\u011D1\u04331\u01211\u22651\u22DB1\u22651\u22671\u2A7E1\u2A7E"
+            + "1\u2AA91\u2A801\u2A821\u2A842\u22DB\uFE001\u2A942\uD835\uDD241\u226B1\u22D91\u2137"
+            + "1\u04531\u22771\u2A921\u2AA51\u2AA41\u22691\u2A8A1\u2A8A1\u2A881\u2A881\u22691\u22E7"
+            + "2\uD835\uDD581`1\u210A1\u22731\u2A8E1\u2A901>1>1\u2AA71\u2A7A1\u22D71\u29951\u2A7C"
+            + "1\u2A861\u29781\u22D71\u22DB1\u2A8C1\u22771\u22732\u2269\uFE002\u2269\uFE001\u21D4"
+            + "1\u200A1\u00BD1\u210B1\u044A1\u21941\u29481\u21AD1\u210F1\u01251\u26651\u26651\u2026"
+            + "1\u22B92\uD835\uDD251\u29251\u29261\u21FF1\u223B1\u21A91\u21AA2\uD835\uDD591\u2015"
+            + "2\uD835\uDCBD1\u210F1\u01271\u20431\u20101\u00ED1\u00ED1\u20631\u00EE1\u00EE1\u0438"
+            + "1\u04351\u00A11\u00A11\u21D42\uD835\uDD261\u00EC1\u00EC1\u21481\u2A0C1\u222D1\u29DC"
+            + "1\u21291\u01331\u012B1\u21111\u21101\u21111\u01311\u22B71\u01B51\u22081\u21051\u221E"
+            + "1\u29DD1\u01311\u222B1\u22BA1\u21241\u22BA1\u2A171\u2A3C1\u04511\u012F2\uD835\uDD5A"
+            + "1\u03B91\u2A3C1\u00BF1\u00BF2\uD835\uDCBE1\u22081\u22F91\u22F51\u22F41\u22F31\u2208"
+            + "1\u20621\u01291\u04561\u00EF1\u00EF1\u01351\u04392\uD835\uDD271\u02372\uD835\uDD5B"
+            + "2\uD835\uDCBF1\u04581\u04541\u03BA1\u03F01\u01371\u043A2\uD835\uDD281\u01381\u0445"
+            + "1\u045C2\uD835\uDD5C2\uD835\uDCC01\u21DA1\u21D01\u291B1\u290E1\u22661\u2A8B1\u2962"
+            + "1\u013A1\u29B41\u21121\u03BB1\u27E81\u29911\u27E81\u2A851\u00AB1\u00AB1\u21901\u21E4"
+            + "1\u291F1\u291D1\u21A91\u21AB1\u29391\u29731\u21A21\u2AAB1\u29191\u2AAD2\u2AAD\uFE00"
+            + "1\u290C1\u27721{1[1\u298B1\u298F1\u298D1\u013E1\u013C1\u23081{1\u043B1\u29361\u201C"
+            + "1\u201E1\u29671\u294B1\u21B21\u22641\u21901\u21A21\u21BD1\u21BC1\u21C71\u21941\u21C6"
+            + "1\u21CB1\u21AD1\u22CB1\u22DA1\u22641\u22661\u2A7D1\u2A7D1\u2AA81\u2A7F1\u2A811\u2A83"
+            + "2\u22DA\uFE001\u2A931\u2A851\u22D61\u22DA1\u2A8B1\u22761\u22721\u297C1\u230A"
+            + "2\uD835\uDD291\u22761\u2A911\u21BD1\u21BC1\u296A1\u25841\u04591\u226A1\u21C71\u231E"
+            + "1\u296B1\u25FA1\u01401\u23B01\u23B01\u22681\u2A891\u2A891\u2A871\u2A871\u22681\u22E6"
+            + "1\u27EC1\u21FD1\u27E61\u27F51\u27F71\u27FC1\u27F61\u21AB1\u21AC1\u29852\uD835\uDD5D"
+            + "1\u2A2D1\u2A341\u22171_1\u25CA1\u25CA1\u29EB1(1\u29931\u21C61\u231F1\u21CB1\u296D1\u200E"
+            + "1\u22BF1\u20392\uD835\uDCC11\u21B01\u22721\u2A8D1\u2A8F1[1\u20181\u201A1\u01421<1<"
+            + "1\u2AA61\u2A791\u22D61\u22CB1\u22C91\u29761\u2A7B1\u29961\u25C31\u22B41\u25C21\u294A"
+            + "1\u29662\u2268\uFE002\u2268\uFE001\u223A1\u00AF1\u00AF1\u26421\u27201\u27201\u21A6"
+            + "1\u21A61\u21A71\u21A41\u21A51\u25AE1\u2A291\u043C1\u20141\u22212\uD835\uDD2A1\u2127"
+            + "1\u00B51\u00B51\u22231*1\u2AF01\u00B71\u00B71\u22121\u229F1\u22381\u2A2A1\u2ADB1\u2026"
+            + "1\u22131\u22A72\uD835\uDD5E1\u22132\uD835\uDCC21\u223E1\u03BC1\u22B81\u22B82\u22D9\u0338"
+            + "2\u226B\u20D22\u226B\u03381\u21CD1\u21CE2\u22D8\u03382\u226A\u20D22\u226A\u03381\u21CF"
+            + "1\u22AF1\u22AE1\u22071\u01442\u2220\u20D21\u22492\u2A70\u03382\u224B\u03381\u01491\u2249"
+            + "1\u266E1\u266E1\u21151\u00A01\u00A02\u224E\u03382\u224F\u03381\u2A431\u01481\u0146"
+            + "1\u22472\u2A6D\u03381\u2A421\u043D1\u20131\u22601\u21D71\u29241\u21971\u2197"
+            + "2\u2250\u03381\u22621\u29282\u2242\u03381\u22041\u22042\uD835\uDD2B2\u2267\u03381\u2271"
+            + "1\u22712\u2267\u03382\u2A7E\u03382\u2A7E\u03381\u22751\u226F1\u226F1\u21CE1\u21AE1\u2AF2"
+            + "1\u220B1\u22FC1\u22FA1\u220B1\u045A1\u21CD2\u2266\u03381\u219A1\u20251\u22701\u219A"
+            + "1\u21AE1\u22702\u2266\u03382\u2A7D\u03382\u2A7D\u03381\u226E1\u22741\u226E1\u22EA1\u22EC"
+            + "1\u22242\uD835\uDD5F1\u00AC1\u00AC1\u22092\u22F9\u03382\u22F5\u03381\u22091\u22F71\u22F6"
+            + "1\u220C1\u220C1\u22FE1\u22FD1\u22261\u22262\u2AFD\u20E52\u2202\u03381\u2A141\u2280"
+            + "1\u22E02\u2AAF\u03381\u22802\u2AAF\u03381\u21CF1\u219B2\u2933\u03382\u219D\u03381\u219B"
+            + "1\u22EB1\u22ED1\u22811\u22E12\u2AB0\u03382\uD835\uDCC31\u22241\u22261\u22411\u2244"
+            + "1\u22441\u22241\u22261\u22E21\u22E31\u22842\u2AC5\u03381\u22882\u2282\u20D21\u2288"
+            + "2\u2AC5\u03381\u22812\u2AB0\u03381\u22852\u2AC6\u03381\u22892\u2283\u20D21\u2289"
+            + "2\u2AC6\u03381\u22791\u00F11\u00F11\u22781\u22EA1\u22EC1\u22EB1\u22ED1\u03BD1#1\u2116"
+            + "1\u20071\u22AD1\u29042\u224D\u20D21\u22AC2\u2265\u20D22>\u20D21\u29DE1\u2902"
+            + "2\u2264\u20D22<\u20D22\u22B4\u20D21\u29032\u22B5\u20D22\u223C\u20D21\u21D61\u29231\u2196"
+            + "1\u21961\u29271\u24C81\u00F31\u00F31\u229B1\u229A1\u00F41\u00F41\u043E1\u229D1\u0151"
+            + "1\u2A381\u22991\u29BC1\u01531\u29BF2\uD835\uDD2C1\u02DB1\u00F21\u00F21\u29C11\u29B5"
+            + "1\u03A91\u222E1\u21BA1\u29BE1\u29BB1\u203E1\u29C01\u014D1\u03C91\u03BF1\u29B61\u2296"
+            + "2\uD835\uDD601\u29B71\u29B91\u22951\u22281\u21BB1\u2A5D1\u21341\u21341\u00AA1\u00AA"
+            + "1\u00BA1\u00BA1\u22B61\u2A561\u2A571\u2A5B1\u21341\u00F81\u00F81\u22981\u00F51\u00F5"
+            + "1\u22971\u2A361\u00F61\u00F61\u233D1\u22251\u00B61\u00B61\u22251\u2AF31\u2AFD1\u2202"
+            + "1\u043F1%1.1\u20301\u22A51\u20312\uD835\uDD2D1\u03C61\u03D51\u21331\u260E1\u03C01\u22D4"
+            + "1\u03D61\u210F1\u210E1\u210F1+1\u2A231\u229E1\u2A221\u22141\u2A251\u2A721\u00B11\u00B1"
+            + "1\u2A261\u2A271\u00B11\u2A152\uD835\uDD611\u00A31\u00A31\u227A1\u2AB31\u2AB71\u227C"
+            + "1\u2AAF1\u227A1\u2AB71\u227C1\u2AAF1\u2AB91\u2AB51\u22E81\u227E1\u20321\u21191\u2AB5"
+            + "1\u2AB91\u22E81\u220F1\u232E1\u23121\u23131\u221D1\u221D1\u227E1\u22B02\uD835\uDCC5"
+            + "1\u03C81\u20082\uD835\uDD2E1\u2A0C2\uD835\uDD621\u20572\uD835\uDCC61\u210D1\u2A161?"
+            + "1\u225F1\"1\"1\u21DB1\u21D21\u291C1\u290F1\u29642\u223D\u03311\u01551\u221A1\u29B3"
+            + "1\u27E91\u29921\u29A51\u27E91\u00BB1\u00BB1\u21921\u29751\u21E51\u29201\u29331\u291E"
+            + "1\u21AA1\u21AC1\u29451\u29741\u21A31\u219D1\u291A1\u22361\u211A1\u290D1\u27731}1]1\u298C"
+            + "1\u298E1\u29901\u01591\u01571\u23091}1\u04401\u29371\u29691\u201D1\u201D1\u21B31\u211C"
+            + "1\u211B1\u211C1\u211D1\u25AD1\u00AE1\u00AE1\u297D1\u230B2\uD835\uDD2F1\u21C11\u21C0"
+            + "1\u296C1\u03C11\u03F11\u21921\u21A31\u21C11\u21C01\u21C41\u21CC1\u21C91\u219D1\u22CC"
+            + "1\u02DA1\u22531\u21C41\u21CC1\u200F1\u23B11\u23B11\u2AEE1\u27ED1\u21FE1\u27E71\u2986"
+            + "2\uD835\uDD631\u2A2E1\u2A351)1\u29941\u2A121\u21C91\u203A2\uD835\uDCC71\u21B11]1\u2019"
+            + "1\u20191\u22CC1\u22CA1\u25B91\u22B51\u25B81\u29CE1\u29681\u211E1\u015B1\u201A1\u227B"
+            + "1\u2AB41\u2AB81\u01611\u227D1\u2AB01\u015F1\u015D1\u2AB61\u2ABA1\u22E91\u2A131\u227F"
+            + "1\u04411\u22C51\u22A11\u2A661\u21D81\u29251\u21981\u21981\u00A71\u00A71;1\u29291\u2216"
+            + "1\u22161\u27362\uD835\uDD301\u23221\u266F1\u04491\u04481\u22231\u22251\u00AD1\u00AD"
+            + "1\u03C31\u03C21\u03C21\u223C1\u2A6A1\u22431\u22431\u2A9E1\u2AA01\u2A9D1\u2A9F1\u2246"
+            + "1\u2A241\u29721\u21901\u22161\u2A331\u29E41\u22231\u23231\u2AAA1\u2AAC2\u2AAC\uFE00"
+            + "1\u044C1/1\u29C41\u233F2\uD835\uDD641\u26601\u26601\u22251\u22932\u2293\uFE001\u2294"
+            + "2\u2294\uFE001\u228F1\u22911\u228F1\u22911\u22901\u22921\u22901\u22921\u25A11\u25A1"
+            + "1\u25AA1\u25AA1\u21922\uD835\uDCC81\u22161\u23231\u22C61\u26061\u26051\u03F51\u03D5"
+            + "1\u00AF1\u22821\u2AC51\u2ABD1\u22861\u2AC31\u2AC11\u2ACB1\u228A1\u2ABF1\u29791\u2282"
+            + "1\u22861\u2AC51\u228A1\u2ACB1\u2AC71\u2AD51\u2AD31\u227B1\u2AB81\u227D1\u2AB01\u2ABA"
+            + "1\u2AB61\u22E91\u227F1\u22111\u266A1\u00B91\u00B91\u00B21\u00B21\u00B31\u00B31\u2283"
+            + "1\u2AC61\u2ABE1\u2AD81\u22871\u2AC41\u27C91\u2AD71\u297B1\u2AC21\u2ACC1\u228B1\u2AC0"
+            + "1\u22831\u22871\u2AC61\u228B1\u2ACC1\u2AC81\u2AD41\u2AD61\u21D91\u29261\u21991\u2199"
+            + "1\u292A1\u00DF1\u00DF1\u23161\u03C41\u23B41\u01651\u01631\u04421\u20DB1\u2315"
+            + "2\uD835\uDD311\u22341\u22341\u03B81\u03D11\u03D11\u22481\u223C1\u20091\u22481\u223C"
+            + "1\u00FE1\u00FE1\u02DC1\u00D71\u00D71\u22A01\u2A311\u2A301\u222D1\u29281\u22A41\u2336"
+            + "1\u2AF12\uD835\uDD651\u2ADA1\u29291\u20341\u21221\u25B51\u25BF1\u25C31\u22B41\u225C"
+            + "1\u25B91\u22B51\u25EC1\u225C1\u2A3A1\u2A391\u29CD1\u2A3B1\u23E22\uD835\uDCC91\u0446"
+            + "1\u045B1\u01671\u226C1\u219E1\u21A01\u21D11\u29631\u00FA1\u00FA1\u21911\u045E1\u016D"
+            + "1\u00FB1\u00FB1\u04431\u21C51\u01711\u296E1\u297E2\uD835\uDD321\u00F91\u00F91\u21BF"
+            + "1\u21BE1\u25801\u231C1\u231C1\u230F1\u25F81\u016B1\u00A81\u00A81\u01732\uD835\uDD66"
+            + "1\u21911\u21951\u21BF1\u21BE1\u228E1\u03C51\u03D21\u03C51\u21C81\u231D1\u231D1\u230E"
+            + "1\u016F1\u25F92\uD835\uDCCA1\u22F01\u01691\u25B51\u25B41\u21C81\u00FC1\u00FC1\u29A7"
+            + "1\u21D51\u2AE81\u2AE91\u22A81\u299C1\u03F51\u03F01\u22051\u03D51\u03D61\u221D1\u2195"
+            + "1\u03F11\u03C22\u228A\uFE002\u2ACB\uFE002\u228B\uFE002\u2ACC\uFE001\u03D11\u22B21\u22B3"
+            + "1\u04321\u22A21\u22281\u22BB1\u225A1\u22EE1|1|2\uD835\uDD331\u22B22\u2282\u20D2"
+            + "2\u2283\u20D22\uD835\uDD671\u221D1\u22B32\uD835\uDCCB2\u2ACB\uFE002\u228A\uFE00"
+            + "2\u2ACC\uFE002\u228B\uFE001\u299A1\u01751\u2A5F1\u22271\u22591\u21182\uD835\uDD34"
+            + "2\uD835\uDD681\u21181\u22401\u22402\uD835\uDCCC1\u22C21\u25EF1\u22C31\u25BD2\uD835\uDD35"
+            + "1\u27FA1\u27F71\u03BE1\u27F81\u27F51\u27FC1\u22FB1\u2A002\uD835\uDD691\u2A011\u2A02"
+            + "1\u27F91\u27F62\uD835\uDCCD1\u2A061\u2A041\u25B31\u22C11\u22C01\u00FD1\u00FD1\u044F"
+            + "1\u01771\u044B1\u00A51\u00A52\uD835\uDD361\u04572\uD835\uDD6A2\uD835\uDCCE1\u044E1\u00FF"
+            + "1\u00FF1\u017A1\u017E1\u04371\u017C1\u21281\u03B62\uD835\uDD371\u04361\u21DD"
+            + "2\uD835\uDD6B2\uD835\uDCCF1\u200D1\u200C";
+
+    private static final char[] nodeChars;
+    private static final int[] firstChild;
+    private static final int[] nextSibling;
+
+    /**
+     * Offset of the replacement text in VALUES shifted left by one, plus its
+     * length minus one; or -1 for nodes that don't end a name.
+     */
+    private static final int[] nodeValues;
+
+    /**
+     * Children of the root by (ASCII) character, for a quick first step.
+     */
+    private static final int[] rootChildren = new int[128];
+
+    private static int nodeCount = 1;
+
+    static {
+        //No name is longer than the list of names, so this is always enough
+        int capacity = NAMES.length() + 1;
+
+        char[] chars = new char[capacity];
+        int[] children = new int[capacity];
+        int[] siblings = new int[capacity];
+        int[] values = new int[capacity];
+
+        children[ROOT] = -1;
+        values[ROOT] = -1;
+
+        for (int i = 0; i < rootChildren.length; i++) {
+            rootChildren[i] = -1;
+        }
+
+        int nameStart = 0;
+        int valueOffset = 0;
+
+        while (nameStart < NAMES.length()) {
+
+            int nameEnd = NAMES.indexOf(' ', nameStart);
+            int node = ROOT;
+
+            for (int i = nameStart; i < nameEnd; i++) {
+                char c = NAMES.charAt(i);
+                int child = findChild(chars, children, siblings, node, c);
+
+                if (child < 0) {
+                    child = nodeCount++;
+
+                    chars[child] = c;
+                    children[child] = -1;
+                    values[child] = -1;
+                    siblings[child] = children[node];
+                    children[node] = child;
+
+                    if (node == ROOT) {
+                        rootChildren[c] = child;
+                    }
+                }
+
+                node = child;
+            }
+
+            int valueLength = VALUES.charAt(valueOffset) - '0';
+            values[node] = ((valueOffset + 1) << 1) | (valueLength - 1);
+            valueOffset += 1 + valueLength;
+
+            nameStart = nameEnd + 1;
+        }
+
+        nodeChars = new char[nodeCount];
+        firstChild = new int[nodeCount];
+        nextSibling = new int[nodeCount];
+        nodeValues = new int[nodeCount];
+
+        System.arraycopy(chars, 0, nodeChars, 0, nodeCount);
+        System.arraycopy(children, 0, firstChild, 0, nodeCount);
+        System.arraycopy(siblings, 0, nextSibling, 0, nodeCount);
+        System.arraycopy(values, 0, nodeValues, 0, nodeCount);
+    }
+
+    private HtmlEntities() {
+    }
+
+    private static int findChild(char[] chars, int[] children, int[] siblings, int node, char c) {
+
+        for (int child = children[node]; child >= 0; child = siblings[child]) {
+            if (chars[child] == c) {
+                return child;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the node reached from the given node by the given character,
+     * or -1 if no name continues that way.
+     */
+    static int child(int node, char c) {
+
+        if (node == ROOT) {
+            return c < rootChildren.length ? rootChildren[c] : -1;
+        }
+
+        return findChild(nodeChars, firstChild, nextSibling, node, c);
+    }
+
+    /**
+     * Returns true if a name ends at the given node.
+     */
+    static boolean hasValue(int node) {
+        return nodeValues[node] >= 0;
+    }
+
+    /**
+     * Appends the replacement text of the name that ends at the given node.
+     */
+    static void appendValue(Appendable out, int node) throws IOException {
+
+        int value = nodeValues[node];
+        int offset = value >>> 1;
+
+        out.append(VALUES, offset, offset + (value & 1) + 1);
+    }
+}
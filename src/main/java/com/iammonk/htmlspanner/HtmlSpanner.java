@@ -17,12 +17,10 @@
 package com.iammonk.htmlspanner;
 
 import android.text.Spannable;
-import android.text.SpannableStringBuilder;
+import android.util.Log;
 
-import com.iammonk.htmlspanner.css.CSSCompiler;
-import com.iammonk.htmlspanner.css.CSSParser;
-import com.iammonk.htmlspanner.css.Rule;
-import com.iammonk.htmlspanner.exception.ParsingCancelledException;
+import com.iammonk.htmlspanner.css.ParseDiagnostic;
+import com.iammonk.htmlspanner.css.Stylesheet;
 import com.iammonk.htmlspanner.handlers.FontHandler;
 import com.iammonk.htmlspanner.handlers.HeaderHandler;
 import com.iammonk.htmlspanner.handlers.ImageHandler;
@@ -42,15 +40,18 @@ import com.iammonk.htmlspanner.style.Style;
 import com.iammonk.htmlspanner.style.StyleValue;
 
 import org.htmlcleaner.CleanerProperties;
-import org.htmlcleaner.ContentNode;
 import org.htmlcleaner.HtmlCleaner;
 import org.htmlcleaner.TagNode;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * HtmlSpanner provides an alternative to Html.fromHtml() from the Android
@@ -69,71 +70,146 @@ public class HtmlSpanner {
      */
     public static final int HORIZONTAL_EM_WIDTH = 10;
 
+    /**
+     * Default for how deeply tags may be nested before
+     * their handlers are no longer called.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 1024;
+
+    /**
+     * Default for the number of nodes handled between checks
+     * for cancellation and time budgets.
+     */
+    public static final int DEFAULT_CHECK_INTERVAL = 32;
+
+    /**
+     * Number of compiled stylesheets kept by compileStylesheet().
+     */
+    public static final int STYLESHEET_CACHE_SIZE = 16;
+
+
+    /**
+     * Registered handlers by tag name. The map is never changed once it's
+     * assigned: registering a handler replaces it with a changed copy.
+     */
+    private volatile Map<String, TagNodeHandler> handlers;
 
-    private final Map<String, TagNodeHandler> handlers;
+    /**
+     * Lookup table compiled from the handlers map, replaced along with it
+     */
+    private volatile HandlerTable handlerTable;
 
-    private boolean stripExtraWhiteSpace = false;
+    /**
+     * Handler for tags that have no registered handler
+     */
+    private final TagNodeHandler defaultHandler;
 
     private final HtmlCleaner htmlCleaner;
 
-    private FontResolver fontResolver;
+    private volatile FontResolver fontResolver;
 
     /**
-     * Switch to determine if CSS is used
+     * Options used by renders that aren't given their own
      */
-    private boolean allowStyling = true;
+    private volatile RenderOptions defaultOptions = new RenderOptions();
 
     /**
-     * If CSS colours are used
+     * Recently compiled stylesheets by their CSS text, least recently used first.
      */
-    private boolean useColoursFromStyle = true;
+    private final Map<String, Stylesheet> stylesheetCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Stylesheet>(STYLESHEET_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Stylesheet> eldest) {
+                    return size() > STYLESHEET_CACHE_SIZE;
+                }
+            });
 
 
     /**
      * Creates a new HtmlSpanner using a default HtmlCleaner instance.
      */
     public HtmlSpanner() {
-        this(createHtmlCleaner(), new SystemFontResolver());
+        this(DefaultCleaner.INSTANCE, null);
     }
 
     /**
      * Creates a new HtmlSpanner using the given HtmlCleaner instance.
      * <p>
      * This allows for a custom-configured HtmlCleaner.
+     * <p>
+     * The built-in handlers are shared by all HtmlSpanners, so creating
+     * one is cheap; registering handlers only changes this HtmlSpanner.
+     *
+     * @param fontResolver the FontResolver to use, or null to use a
+     *                     SystemFontResolver, created when it's first needed.
      */
     public HtmlSpanner(HtmlCleaner cleaner, FontResolver fontResolver) {
         this.htmlCleaner = cleaner;
         this.fontResolver = fontResolver;
-        this.handlers = new HashMap<>();
 
-        registerBuiltInHandlers();
+        this.defaultHandler = BuiltInHandlers.DEFAULT_HANDLER;
+        this.handlers = BuiltInHandlers.HANDLERS;
+        this.handlerTable = BuiltInHandlers.TABLE;
     }
 
     public FontResolver getFontResolver() {
-        return this.fontResolver;
+
+        FontResolver resolver = this.fontResolver;
+
+        if (resolver == null) {
+            synchronized (this) {
+                resolver = this.fontResolver;
+
+                if (resolver == null) {
+                    resolver = new SystemFontResolver();
+                    this.fontResolver = resolver;
+                }
+            }
+        }
+
+        return resolver;
     }
 
-    public void setFontResolver(FontResolver fontResolver) {
+    public synchronized void setFontResolver(FontResolver fontResolver) {
         this.fontResolver = fontResolver;
+
+        //Compiled stylesheets hold fonts from the old resolver
+        this.stylesheetCache.clear();
     }
 
     public FontFamily getFont(String name) {
-        return this.fontResolver.getFont(name);
+        return getFontResolver().getFont(name);
+    }
+
+    /**
+     * Returns the options used by renders that aren't given their own.
+     */
+    public RenderOptions getRenderOptions() {
+        return defaultOptions;
+    }
+
+    /**
+     * Sets the options used by renders that aren't given their own.
+     * <p>
+     * Renders that are already running keep the options they started with.
+     */
+    public synchronized void setRenderOptions(RenderOptions options) {
+        this.defaultOptions = options;
     }
 
     /**
      * Switch to specify whether excess whitespace should be stripped from the
      * input.
      */
-    public void setStripExtraWhiteSpace(boolean stripExtraWhiteSpace) {
-        this.stripExtraWhiteSpace = stripExtraWhiteSpace;
+    public synchronized void setStripExtraWhiteSpace(boolean stripExtraWhiteSpace) {
+        this.defaultOptions = defaultOptions.setStripExtraWhiteSpace(stripExtraWhiteSpace);
     }
 
     /**
      * Returns if whitespace is being stripped.
      */
     public boolean isStripExtraWhiteSpace() {
-        return stripExtraWhiteSpace;
+        return defaultOptions.isStripExtraWhiteSpace();
     }
 
     /**
@@ -143,27 +219,74 @@ public class HtmlSpanner {
      * and the basic built-in style is used.
      */
     public boolean isAllowStyling() {
-        return allowStyling;
+        return defaultOptions.isAllowStyling();
     }
 
     /**
      * Switch to specify is CSS style should be used.
      */
-    public void setAllowStyling(boolean value) {
-        this.allowStyling = value;
+    public synchronized void setAllowStyling(boolean value) {
+        this.defaultOptions = defaultOptions.setAllowStyling(value);
     }
 
     /**
      * Switch to specify if the colours from CSS
      * should override user-specified colours.
      */
-    public void setUseColoursFromStyle(boolean value) {
-        this.useColoursFromStyle = value;
+    public synchronized void setUseColoursFromStyle(boolean value) {
+        this.defaultOptions = defaultOptions.setUseColoursFromStyle(value);
     }
 
 
     public boolean isUseColoursFromStyle() {
-        return this.useColoursFromStyle;
+        return defaultOptions.isUseColoursFromStyle();
+    }
+
+    /**
+     * Sets how deeply tags may be nested before they are no longer
+     * handed to their TagNodeHandler.
+     * <p>
+     * Text inside tags nested deeper than this is still added, but
+     * without any styling from those tags. Tags whose handler renders
+     * their content itself, like style and pre, are left out entirely.
+     */
+    public synchronized void setMaxDepth(int maxDepth) {
+        this.defaultOptions = defaultOptions.setMaxDepth(maxDepth);
+    }
+
+    public int getMaxDepth() {
+        return defaultOptions.getMaxDepth();
+    }
+
+    /**
+     * Sets how many nodes are handled between checking the
+     * CancellationCallback and the time budget of a render.
+     * <p>
+     * Lower values make renders stop closer to their deadline,
+     * higher values make the checks cost less.
+     */
+    public synchronized void setCheckInterval(int checkInterval) {
+        this.defaultOptions = defaultOptions.setCheckInterval(checkInterval);
+    }
+
+    public int getCheckInterval() {
+        return defaultOptions.getCheckInterval();
+    }
+
+    /**
+     * Sets whether the text is built before any spans are added.
+     * <p>
+     * The text is then collected in a plain character buffer, and the spans
+     * are added in text order to a builder of the final size. This only
+     * works if every registered TagNodeHandler is text-only: as soon as one
+     * isn't, renders build the text in a SpannableStringBuilder as before.
+     */
+    public synchronized void setBuildTextFirst(boolean buildTextFirst) {
+        this.defaultOptions = defaultOptions.setBuildTextFirst(buildTextFirst);
+    }
+
+    public boolean isBuildTextFirst() {
+        return defaultOptions.isBuildTextFirst();
     }
 
     /**
@@ -172,9 +295,13 @@ public class HtmlSpanner {
      * If a TagNodeHandler was already registered for the specified tagName it
      * will be overwritten.
      */
-    public void registerHandler(String tagName, TagNodeHandler handler) {
-        this.handlers.put(tagName, handler);
+    public synchronized void registerHandler(String tagName, TagNodeHandler handler) {
         handler.setSpanner(this);
+
+        Map<String, TagNodeHandler> newHandlers = new HashMap<>(this.handlers);
+        newHandlers.put(tagName, handler);
+
+        setHandlers(newHandlers);
     }
 
     /**
@@ -182,8 +309,20 @@ public class HtmlSpanner {
      *
      * @param tagName the tag to remove handlers for.
      */
-    public void unregisterHandler(String tagName) {
-        this.handlers.remove(tagName);
+    public synchronized void unregisterHandler(String tagName) {
+        Map<String, TagNodeHandler> newHandlers = new HashMap<>(this.handlers);
+        newHandlers.remove(tagName);
+
+        setHandlers(newHandlers);
+    }
+
+    /**
+     * Publishes a new set of handlers; renders that are running keep
+     * the table they started with.
+     */
+    private void setHandlers(Map<String, TagNodeHandler> newHandlers) {
+        this.handlerTable = new HandlerTable(newHandlers, this.defaultHandler);
+        this.handlers = newHandlers;
     }
 
     /**
@@ -191,59 +330,215 @@ public class HtmlSpanner {
      * @return a Spanned version of the text.
      */
     public Spannable fromHtml(String html) {
-        return fromTagNode(this.htmlCleaner.clean(html), null);
+        return fromHtml(html, defaultOptions);
+    }
+
+    /**
+     * Parses the text in the given String with the given options.
+     */
+    public Spannable fromHtml(String html, RenderOptions options) {
+        return fromTagNode(this.htmlCleaner.clean(html), options, null);
     }
 
     public Spannable fromHtml(String html, String css) {
-        return fromTagNode(htmlCleaner.clean(html), css, null);
+        return fromHtml(html, compileStylesheet(css));
     }
 
-    private Spannable fromTagNode(TagNode node, String css, CancellationCallback cancellationCallback) {
-        SpannableStringBuilder result = new SpannableStringBuilder();
-        SpanStack stack = new SpanStack();
+    /**
+     * Parses the text in the given String, using the rules of the given
+     * stylesheet on top of the built-in styles.
+     */
+    public Spannable fromHtml(String html, Stylesheet stylesheet) {
+        return fromHtml(html, withStylesheet(stylesheet));
+    }
 
-        parseCSSFromText(css, stack);
-        applySpan(result, node, stack, cancellationCallback);
+    /**
+     * Creates spanned text from a TagNode, with the given options.
+     */
+    public Spannable fromTagNode(TagNode node, RenderOptions options, CancellationCallback cancellationCallback) {
+        return new RenderSession(this, node, options, cancellationCallback).finish();
+    }
 
-        stack.applySpans(this, result);
+    /**
+     * Returns the default options, with the given stylesheet if it isn't null.
+     */
+    private RenderOptions withStylesheet(Stylesheet stylesheet) {
+        RenderOptions options = this.defaultOptions;
+        return stylesheet == null ? options : options.setStylesheet(stylesheet);
+    }
 
-        return result;
+    /**
+     * Parses the text in the given String, taking at most roughly the given
+     * time. If time runs out, the result holds the text rendered so far.
+     */
+    public RenderResult fromHtml(String html, long budgetNanos) {
+        return fromHtml(html, (Stylesheet) null, budgetNanos);
     }
 
-    private void parseCSSFromText(String css, SpanStack spanStack) {
+    /**
+     * Parses the text in the given String using the rules of the given
+     * stylesheet, taking at most roughly the given time. If time runs out,
+     * the result holds the text rendered so far.
+     */
+    public RenderResult fromHtml(String html, Stylesheet stylesheet, long budgetNanos) {
         try {
-            for (Rule rule : CSSParser.parse(css)) {
-                spanStack.registerCompiledRule(CSSCompiler.compile(rule, this));
+            return fromHtml(new StringReader(html), stylesheet, budgetNanos);
+        } catch (IOException io) {
+            //A StringReader doesn't throw
+            throw new IllegalStateException(io);
+        }
+    }
+
+    /**
+     * Parses the text in the given Reader using the rules of the given
+     * stylesheet, taking at most roughly the given time. If time runs out,
+     * the result holds the text rendered so far.
+     * <p>
+     * Reading and cleaning the HTML count towards the budget as well: if
+     * time runs out while reading, the rest of the input is ignored.
+     */
+    public RenderResult fromHtml(Reader reader, Stylesheet stylesheet, long budgetNanos) throws IOException {
+
+        long deadline = System.nanoTime() + budgetNanos;
+
+        ReadLimit limit = new ReadLimit(null, deadline);
+        RenderSession session = startRender(
+                this.htmlCleaner.clean(new CancellableReader(reader, limit)), withStylesheet(stylesheet), null);
+
+        if (limit.isTruncated()) {
+            session.setInputTruncated();
+        }
+
+        return session.finishWithin(Math.max(deadline - System.nanoTime(), 0));
+    }
+
+    /**
+     * Starts a render of the given HTML that can be done a bit at a time,
+     * by calling step() on the returned RenderSession.
+     */
+    public RenderSession startRender(String html) {
+        return startRender(html, (Stylesheet) null);
+    }
+
+    /**
+     * Starts a render of the given HTML that can be done a bit at a time,
+     * using the rules of the given stylesheet on top of the built-in styles.
+     */
+    public RenderSession startRender(String html, Stylesheet stylesheet) {
+        return startRender(this.htmlCleaner.clean(html), withStylesheet(stylesheet), null);
+    }
+
+    /**
+     * Starts a render of the given TagNode that can be done a bit at a time.
+     */
+    public RenderSession startRender(TagNode node, RenderOptions options,
+                                     CancellationCallback cancellationCallback) {
+        return new RenderSession(this, node, options, cancellationCallback);
+    }
+
+    /**
+     * Parses and compiles the given CSS into a Stylesheet that can be
+     * used for any number of renders.
+     * <p>
+     * The most recently used stylesheets are cached by their CSS text,
+     * so compiling the same CSS again is cheap. Cached stylesheets are
+     * compiled again after a change to the PropertyRegistry.
+     */
+    public Stylesheet compileStylesheet(String css) {
+
+        if (css == null) {
+            return Stylesheet.EMPTY;
+        }
+
+        Stylesheet stylesheet = stylesheetCache.get(css);
+
+        if (stylesheet == null || stylesheet.isOutdated()) {
+            stylesheet = Stylesheet.compile(css, this);
+
+            for (ParseDiagnostic diagnostic : stylesheet.getDiagnostics()) {
+                Log.w("HtmlSpanner", "Skipped invalid CSS: " + diagnostic);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+
+            stylesheetCache.put(css, stylesheet);
         }
+
+        return stylesheet;
     }
 
+    /**
+     * Parses the text in the given String on the given Executor.
+     * <p>
+     * The returned RenderFuture can be used to wait for the result, to be
+     * notified of it, or to cancel the render.
+     */
+    public RenderFuture renderAsync(String html, RenderOptions options, Executor executor) {
+
+        RenderFuture future = new RenderFuture(this, html, options);
+        executor.execute(future);
+
+        return future;
+    }
+
+    /**
+     * Parses the text in the given String with the given options,
+     * checking the given callback while reading and cleaning the HTML
+     * as well as while rendering it.
+     */
+    Spannable fromHtml(String html, RenderOptions options, CancellationCallback cancellationCallback) {
+
+        Reader reader = new CancellableReader(new StringReader(html), new ReadLimit(cancellationCallback));
+
+        try {
+            return fromTagNode(this.htmlCleaner.clean(reader), options, cancellationCallback);
+        } catch (IOException io) {
+            //A StringReader doesn't throw
+            throw new IllegalStateException(io);
+        }
+    }
+
+    /**
+     * Parses the text in the given String, checking the given callback
+     * while reading and cleaning the HTML as well as while rendering it.
+     */
     public Spannable fromHtml(String html, CancellationCallback cancellationCallback) {
-        return fromTagNode(this.htmlCleaner.clean(html), cancellationCallback);
+        try {
+            return fromHtml(new StringReader(html), cancellationCallback);
+        } catch (IOException io) {
+            //A StringReader doesn't throw
+            throw new IllegalStateException(io);
+        }
     }
 
     /**
      * Parses the text in the given Reader.
      */
     public Spannable fromHtml(Reader reader) throws IOException {
-        return fromTagNode(this.htmlCleaner.clean(reader), null);
+        return fromTagNode(this.htmlCleaner.clean(reader), defaultOptions, null);
     }
 
     public Spannable fromHtml(Reader reader, CancellationCallback cancellationCallback) throws IOException {
-        return fromTagNode(this.htmlCleaner.clean(reader), cancellationCallback);
+
+        if (cancellationCallback != null) {
+            reader = new CancellableReader(reader, new ReadLimit(cancellationCallback));
+        }
+
+        return fromTagNode(this.htmlCleaner.clean(reader), defaultOptions, cancellationCallback);
     }
 
     /**
      * Parses the text in the given InputStream.
      */
     public Spannable fromHtml(InputStream inputStream) throws IOException {
-        return fromTagNode(this.htmlCleaner.clean(inputStream), null);
+        return fromTagNode(this.htmlCleaner.clean(inputStream), defaultOptions, null);
     }
 
     public Spannable fromHtml(InputStream inputStream, CancellationCallback cancellationCallback) throws IOException {
-        return fromTagNode(this.htmlCleaner.clean(inputStream), cancellationCallback);
+
+        if (cancellationCallback != null) {
+            inputStream = new CancellableInputStream(inputStream, new ReadLimit(cancellationCallback));
+        }
+
+        return fromTagNode(this.htmlCleaner.clean(inputStream), defaultOptions, cancellationCallback);
     }
 
     /**
@@ -260,14 +555,7 @@ public class HtmlSpanner {
      * Creates spanned text from a TagNode.
      */
     public Spannable fromTagNode(TagNode node, CancellationCallback cancellationCallback) {
-        SpannableStringBuilder result = new SpannableStringBuilder();
-        SpanStack stack = new SpanStack();
-
-        applySpan(result, node, stack, cancellationCallback);
-
-        stack.applySpans(this, result);
-
-        return result;
+        return fromTagNode(node, defaultOptions, cancellationCallback);
     }
 
 
@@ -292,98 +580,103 @@ public class HtmlSpanner {
         return result;
     }
 
-    private void checkForCancellation(CancellationCallback cancellationCallback) {
-        if (cancellationCallback != null && cancellationCallback.isCancelled()) {
-            throw new ParsingCancelledException();
-        }
+    /**
+     * Returns the compiled handler lookup table.
+     */
+    HandlerTable getHandlerTable() {
+        return this.handlerTable;
     }
 
-    private void handleContent(SpannableStringBuilder builder, Object node,
-                               SpanStack stack, CancellationCallback cancellationCallback) {
-
-        checkForCancellation(cancellationCallback);
-
-        ContentNode contentNode = (ContentNode) node;
-
-        String text = TextUtil.replaceHtmlEntities(
-                contentNode.getContent(), false);
-
-        if (isStripExtraWhiteSpace()) {
-            //Replace unicode non-breaking space with normal space.
-            text = text.replace('\u00A0', ' ');
-        }
-
-        if (text.trim().length() > 0) {
-            builder.append(text);
-        }
+    /**
+     * Returns the HtmlSpanner used by handlers that aren't tied to one,
+     * like the shared built-in handlers outside of a render.
+     */
+    static HtmlSpanner getDefaultSpanner() {
+        return DefaultSpanner.INSTANCE;
     }
 
-    private void applySpan(SpannableStringBuilder builder, TagNode node, SpanStack stack,
-                           CancellationCallback cancellationCallback) {
-
-        checkForCancellation(cancellationCallback);
 
-        TagNodeHandler handler = this.handlers.get(node.getName());
+    /**
+     * The built-in handlers, created once when the first HtmlSpanner needs them.
+     * <p>
+     * They are shared by all HtmlSpanners, so they are marked as shared and
+     * ignore setSpanner(), even when a caller wraps one and registers the
+     * wrapper; they get the HtmlSpanner of a render from its SpanStack.
+     */
+    private static final class BuiltInHandlers {
 
-        if (handler == null) {
-            handler = new StyledTextHandler();
-            handler.setSpanner(this);
-        }
+        static final TagNodeHandler DEFAULT_HANDLER = new StyledTextHandler();
 
-        int lengthBefore = builder.length();
+        static final Map<String, TagNodeHandler> HANDLERS;
 
-        handler.beforeChildren(node, builder, stack);
+        static final HandlerTable TABLE;
 
-        if (!handler.rendersContent()) {
+        static {
+            Map<String, TagNodeHandler> handlers = new HashMap<>();
+            registerBuiltInHandlers(handlers);
 
-            for (Object childNode : node.getAllChildren()) {
+            DEFAULT_HANDLER.markShared();
 
-                if (childNode instanceof ContentNode) {
-                    handleContent(builder, childNode, stack, cancellationCallback);
-                } else if (childNode instanceof TagNode) {
-                    applySpan(builder, (TagNode) childNode, stack, cancellationCallback);
-                }
+            for (TagNodeHandler handler : handlers.values()) {
+                handler.markShared();
             }
+
+            HANDLERS = Collections.unmodifiableMap(handlers);
+            TABLE = new HandlerTable(HANDLERS, DEFAULT_HANDLER);
         }
+    }
 
-        int lengthAfter = builder.length();
-        handler.handleTagNode(node, builder, lengthBefore, lengthAfter, stack);
+    /**
+     * The HtmlCleaner used by HtmlSpanners that weren't given their own,
+     * created once when it's first needed. Cleaning keeps its state per
+     * call, so one instance can be shared as long as its properties
+     * aren't changed.
+     */
+    private static final class DefaultCleaner {
+        static final HtmlCleaner INSTANCE = createHtmlCleaner();
     }
 
+    /**
+     * HtmlSpanner with the default settings, created once when it's first
+     * needed. It isn't visible outside the package, so nobody changes them.
+     */
+    private static final class DefaultSpanner {
+        static final HtmlSpanner INSTANCE = new HtmlSpanner();
+    }
 
     private static StyledTextHandler wrap(StyledTextHandler handler) {
         return new StyleAttributeHandler(new AlignmentAttributeHandler(handler));
     }
 
-    private void registerBuiltInHandlers() {
+    private static void registerBuiltInHandlers(Map<String, TagNodeHandler> handlers) {
 
         TagNodeHandler italicHandler = new StyledTextHandler(
                 new Style().setFontStyle(Style.FontStyle.ITALIC));
 
-        registerHandler("i", italicHandler);
-        registerHandler("em", italicHandler);
-        registerHandler("cite", italicHandler);
-        registerHandler("dfn", italicHandler);
+        handlers.put("i", italicHandler);
+        handlers.put("em", italicHandler);
+        handlers.put("cite", italicHandler);
+        handlers.put("dfn", italicHandler);
 
         TagNodeHandler boldHandler = new StyledTextHandler(
                 new Style().setFontWeight(Style.FontWeight.BOLD));
 
-        registerHandler("b", boldHandler);
-        registerHandler("strong", boldHandler);
+        handlers.put("b", boldHandler);
+        handlers.put("strong", boldHandler);
 
         TagNodeHandler marginHandler = new StyledTextHandler(
                 new Style().setMarginLeft(new StyleValue(2.0f, StyleValue.Unit.EM)));
 
-        registerHandler("blockquote", marginHandler);
-        registerHandler("ul", marginHandler);
-        registerHandler("ol", marginHandler);
+        handlers.put("blockquote", marginHandler);
+        handlers.put("ul", marginHandler);
+        handlers.put("ol", marginHandler);
 
         TagNodeHandler monSpaceHandler = wrap(new MonoSpaceHandler());
 
-        registerHandler("tt", monSpaceHandler);
-        registerHandler("code", monSpaceHandler);
+        handlers.put("tt", monSpaceHandler);
+        handlers.put("code", monSpaceHandler);
 
-        registerHandler("style", new StyleNodeHandler());
+        handlers.put("style", new StyleNodeHandler());
 
         //We wrap an alignment-handler to support
         //align attributes
@@ -391,60 +684,59 @@ public class HtmlSpanner {
         StyledTextHandler inlineAlignment = wrap(new StyledTextHandler());
         TagNodeHandler brHandler = new NewLineHandler(1, inlineAlignment);
 
-        registerHandler("br", brHandler);
+        handlers.put("br", brHandler);
 
         Style paragraphStyle = new Style()
                 .setDisplayStyle(Style.DisplayStyle.BLOCK)
-                .setMarginBottom(
-                        new StyleValue(1.0f, StyleValue.Unit.EM));
+                .setMarginBottom(StyleValue.ONE_EM);
 
 
         TagNodeHandler pHandler = new BorderAttributeHandler(wrap(new StyledTextHandler(paragraphStyle)));
 
-        registerHandler("p", pHandler);
-        registerHandler("div", pHandler);
+        handlers.put("p", pHandler);
+        handlers.put("div", pHandler);
 
-        registerHandler("h1", wrap(new HeaderHandler(1.5f, 0.5f)));
-        registerHandler("h2", wrap(new HeaderHandler(1.4f, 0.6f)));
-        registerHandler("h3", wrap(new HeaderHandler(1.3f, 0.7f)));
-        registerHandler("h4", wrap(new HeaderHandler(1.2f, 0.8f)));
-        registerHandler("h5", wrap(new HeaderHandler(1.1f, 0.9f)));
-        registerHandler("h6", wrap(new HeaderHandler(1f, 1f)));
+        handlers.put("h1", wrap(new HeaderHandler(1.5f, 0.5f)));
+        handlers.put("h2", wrap(new HeaderHandler(1.4f, 0.6f)));
+        handlers.put("h3", wrap(new HeaderHandler(1.3f, 0.7f)));
+        handlers.put("h4", wrap(new HeaderHandler(1.2f, 0.8f)));
+        handlers.put("h5", wrap(new HeaderHandler(1.1f, 0.9f)));
+        handlers.put("h6", wrap(new HeaderHandler(1f, 1f)));
 
         TagNodeHandler preHandler = new PreHandler();
-        registerHandler("pre", preHandler);
+        handlers.put("pre", preHandler);
 
         TagNodeHandler bigHandler = new StyledTextHandler(
                 new Style().setFontSize(
                         new StyleValue(1.25f, StyleValue.Unit.EM)));
 
-        registerHandler("big", bigHandler);
+        handlers.put("big", bigHandler);
 
         TagNodeHandler smallHandler = new StyledTextHandler(
                 new Style().setFontSize(
                         new StyleValue(0.8f, StyleValue.Unit.EM)));
 
-        registerHandler("small", smallHandler);
+        handlers.put("small", smallHandler);
 
         TagNodeHandler subHandler = new SubScriptHandler();
-        registerHandler("sub", subHandler);
+        handlers.put("sub", subHandler);
 
         TagNodeHandler superHandler = new SuperScriptHandler();
-        registerHandler("sup", superHandler);
+        handlers.put("sup", superHandler);
 
         TagNodeHandler centerHandler = new StyledTextHandler(new Style().setTextAlignment(Style.TextAlignment.CENTER));
-        registerHandler("center", centerHandler);
+        handlers.put("center", centerHandler);
 
-        registerHandler("li", new ListItemHandler());
+        handlers.put("li", new ListItemHandler());
 
-        registerHandler("a", new LinkHandler());
-        registerHandler("img", new ImageHandler());
+        handlers.put("a", new LinkHandler());
+        handlers.put("img", new ImageHandler());
 
-        registerHandler("font", new FontHandler());
+        handlers.put("font", new FontHandler());
 
         Style spanStyle = new Style().setDisplayStyle(Style.DisplayStyle.INLINE);
         TagNodeHandler spanHandler = new BorderAttributeHandler(wrap(new StyledTextHandler(spanStyle)));
-        registerHandler("span", spanHandler);
+        handlers.put("span", spanHandler);
 
     }
 
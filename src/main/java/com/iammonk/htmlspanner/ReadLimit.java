@@ -0,0 +1,62 @@
+package com.iammonk.htmlspanner;
+
+import com.iammonk.htmlspanner.exception.ParsingCancelledException;
+
+/**
+ * Decides if reading the HTML input may go on, so cleaning can be
+ * cancelled or cut short before the whole document is read.
+ */
+final class ReadLimit {
+
+    private final HtmlSpanner.CancellationCallback cancellationCallback;
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private boolean truncated = false;
+
+    /**
+     * @param cancellationCallback callback to check on every read, or null.
+     */
+    ReadLimit(HtmlSpanner.CancellationCallback cancellationCallback) {
+        this.cancellationCallback = cancellationCallback;
+        this.deadline = 0;
+        this.hasDeadline = false;
+    }
+
+    /**
+     * @param cancellationCallback callback to check on every read, or null.
+     * @param deadline value of System.nanoTime() after which the input
+     *                 should be treated as if it ended.
+     */
+    ReadLimit(HtmlSpanner.CancellationCallback cancellationCallback, long deadline) {
+        this.cancellationCallback = cancellationCallback;
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Returns false if the input should be treated as if it ended here.
+     *
+     * @throws ParsingCancelledException if the callback says it's cancelled.
+     */
+    boolean mayRead() {
+
+        if (cancellationCallback != null && cancellationCallback.isCancelled()) {
+            throw new ParsingCancelledException();
+        }
+
+        if (truncated || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+            truncated = true;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the input was cut short because the deadline passed.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+}
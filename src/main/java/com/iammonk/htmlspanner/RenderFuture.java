@@ -0,0 +1,138 @@
+package com.iammonk.htmlspanner;
+
+import android.text.Spannable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The result of HtmlSpanner.renderAsync().
+ * <p>
+ * Cancelling the future stops the render the next time it checks for
+ * cancellation, whether it's still reading the HTML or already
+ * rendering it.
+ * <p>
+ * RenderFutures are ordered by priority, highest first, and then by the
+ * order they were created in. This lets an executor with a
+ * PriorityBlockingQueue run the most important renders first.
+ */
+public final class RenderFuture extends FutureTask<Spannable> implements Comparable<RenderFuture> {
+
+    private static final AtomicLong nextSequenceNumber = new AtomicLong();
+
+    private final int priority;
+    private final long sequenceNumber;
+
+    /**
+     * Listeners still waiting for the render, or null once it's done.
+     */
+    private List<Listener> listeners = new ArrayList<>();
+
+    RenderFuture(HtmlSpanner spanner, String html, RenderOptions options) {
+        this(new Render(spanner, html, options), options.getPriority());
+    }
+
+    private RenderFuture(Render render, int priority) {
+        super(render);
+
+        render.future = this;
+
+        this.priority = priority;
+        this.sequenceNumber = nextSequenceNumber.getAndIncrement();
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Adds a listener which is called once the render is done, failed or
+     * was cancelled. If that already happened it's called right away.
+     * <p>
+     * Listeners are called on the thread that finished the render.
+     */
+    public void addListener(Listener listener) {
+
+        synchronized (this) {
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+
+        notifyListener(listener);
+    }
+
+    @Override
+    protected void done() {
+
+        List<Listener> toNotify;
+
+        synchronized (this) {
+            toNotify = listeners;
+            listeners = null;
+        }
+
+        for (Listener listener : toNotify) {
+            notifyListener(listener);
+        }
+    }
+
+    private void notifyListener(Listener listener) {
+        try {
+            listener.onRenderDone(this);
+        } catch (RuntimeException e) {
+            Log.e("HtmlSpanner", "Render listener failed", e);
+        }
+    }
+
+    @Override
+    public int compareTo(RenderFuture other) {
+
+        if (priority != other.priority) {
+            return priority > other.priority ? -1 : 1;
+        }
+
+        if (sequenceNumber != other.sequenceNumber) {
+            return sequenceNumber < other.sequenceNumber ? -1 : 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Called when a render is done, failed or was cancelled.
+     */
+    public interface Listener {
+        void onRenderDone(RenderFuture future);
+    }
+
+    private static class Render implements Callable<Spannable>, HtmlSpanner.CancellationCallback {
+
+        private final HtmlSpanner spanner;
+        private final String html;
+        private final RenderOptions options;
+
+        private RenderFuture future;
+
+        private Render(HtmlSpanner spanner, String html, RenderOptions options) {
+            this.spanner = spanner;
+            this.html = html;
+            this.options = options;
+        }
+
+        @Override
+        public Spannable call() {
+            return spanner.fromHtml(html, options, this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.iammonk.htmlspanner;
+
+import com.iammonk.htmlspanner.css.Stylesheet;
+
+/**
+ * Settings for a single render.
+ * <p>
+ * RenderOptions are immutable: every setter returns a new copy, so one
+ * instance can safely be shared between renders and threads. A render
+ * works with the options it was started with from start to finish, even
+ * if the defaults of the HtmlSpanner are changed in the meantime.
+ */
+public final class RenderOptions {
+
+    private final Stylesheet stylesheet;
+    private final int priority;
+
+    private final boolean stripExtraWhiteSpace;
+    private final boolean allowStyling;
+    private final boolean useColoursFromStyle;
+
+    private final int maxDepth;
+    private final int checkInterval;
+
+    private final boolean buildTextFirst;
+
+    public RenderOptions() {
+        this(null, 0, false, true, true,
+                HtmlSpanner.DEFAULT_MAX_DEPTH, HtmlSpanner.DEFAULT_CHECK_INTERVAL, false);
+    }
+
+    private RenderOptions(Stylesheet stylesheet, int priority,
+                          boolean stripExtraWhiteSpace, boolean allowStyling, boolean useColoursFromStyle,
+                          int maxDepth, int checkInterval, boolean buildTextFirst) {
+        this.stylesheet = stylesheet;
+        this.priority = priority;
+        this.stripExtraWhiteSpace = stripExtraWhiteSpace;
+        this.allowStyling = allowStyling;
+        this.useColoursFromStyle = useColoursFromStyle;
+        this.maxDepth = maxDepth;
+        this.checkInterval = checkInterval;
+        this.buildTextFirst = buildTextFirst;
+    }
+
+    /**
+     * Returns the stylesheet applied on top of the built-in styles, or null.
+     */
+    public Stylesheet getStylesheet() {
+        return stylesheet;
+    }
+
+    public RenderOptions setStylesheet(Stylesheet stylesheet) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Returns the priority of an asynchronous render: renders with a higher
+     * priority are run first by executors that order their work, such as
+     * a ThreadPoolExecutor with a PriorityBlockingQueue.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    public RenderOptions setPriority(int priority) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Returns if excess whitespace is stripped from the input.
+     */
+    public boolean isStripExtraWhiteSpace() {
+        return stripExtraWhiteSpace;
+    }
+
+    public RenderOptions setStripExtraWhiteSpace(boolean stripExtraWhiteSpace) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Indicates whether the text style may be updated.
+     * <p>
+     * If this is false, all CSS is ignored
+     * and the basic built-in style is used.
+     */
+    public boolean isAllowStyling() {
+        return allowStyling;
+    }
+
+    public RenderOptions setAllowStyling(boolean allowStyling) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Indicates whether the colours from CSS
+     * should override user-specified colours.
+     */
+    public boolean isUseColoursFromStyle() {
+        return useColoursFromStyle;
+    }
+
+    public RenderOptions setUseColoursFromStyle(boolean useColoursFromStyle) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Returns how deeply tags may be nested before they are no longer
+     * handed to their TagNodeHandler.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public RenderOptions setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth should be at least 1, got " + maxDepth);
+        }
+
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Returns how many nodes are handled between checking the
+     * CancellationCallback and the time budget of a render.
+     */
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public RenderOptions setCheckInterval(int checkInterval) {
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("checkInterval should be at least 1, got " + checkInterval);
+        }
+
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+
+    /**
+     * Indicates whether the text is built before any spans are added.
+     * <p>
+     * The handlers then fill a plain character buffer, and the spans are
+     * added afterwards in text order to a builder of the final size. This
+     * is only done if all registered handlers are text-only (see
+     * TagNodeHandler.isTextOnly()); otherwise the option is ignored.
+     */
+    public boolean isBuildTextFirst() {
+        return buildTextFirst;
+    }
+
+    public RenderOptions setBuildTextFirst(boolean buildTextFirst) {
+        return new RenderOptions(stylesheet, priority, stripExtraWhiteSpace, allowStyling,
+                useColoursFromStyle, maxDepth, checkInterval, buildTextFirst);
+    }
+}
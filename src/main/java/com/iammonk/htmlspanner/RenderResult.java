@@ -0,0 +1,33 @@
+package com.iammonk.htmlspanner;
+
+import android.text.Spannable;
+
+/**
+ * The outcome of a render with a time budget: the rendered text, and
+ * whether the render was stopped before the end of the document.
+ */
+public final class RenderResult {
+
+    private final Spannable text;
+    private final boolean truncated;
+
+    RenderResult(Spannable text, boolean truncated) {
+        this.text = text;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Returns the rendered text, with the spans of all tags that were
+     * started, even if they were cut short.
+     */
+    public Spannable getText() {
+        return text;
+    }
+
+    /**
+     * Returns true if the time ran out before the whole document was rendered.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
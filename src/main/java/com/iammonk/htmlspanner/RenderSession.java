@@ -0,0 +1,165 @@
+package com.iammonk.htmlspanner;
+
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+
+import org.htmlcleaner.TagNode;
+
+/**
+ * A render that can be done a bit at a time.
+ * <p>
+ * Each call to step() handles nodes until its time budget is used up, and
+ * the next call picks up where the last one stopped. This allows rendering
+ * a long document on the UI thread spread out over several frames.
+ * <p>
+ * A render can also be cut short, keeping what was rendered so far.
+ * <p>
+ * The HTML is cleaned when the session is created; only the work of the
+ * handlers is spread out. A RenderSession should only be used from one
+ * thread at a time.
+ * <p>
+ * If the options ask to build the text first and all handlers are
+ * text-only, the handlers write into a TextBuffer, and the spans are only
+ * added once the text is done, to a SpannableStringBuilder of its size.
+ */
+public final class RenderSession {
+
+    private final HtmlSpanner spanner;
+    private final SpannableStringBuilder builder;
+    private final SpanStack spanStack;
+    private final TagNodeTraversal traversal;
+
+    private final boolean buildTextFirst;
+
+    /**
+     * The rendered text, once the render is done.
+     */
+    private SpannableStringBuilder result;
+
+    private boolean done = false;
+    private boolean truncated = false;
+
+    RenderSession(HtmlSpanner spanner, TagNode node, RenderOptions options,
+                  HtmlSpanner.CancellationCallback cancellationCallback) {
+
+        this.spanner = spanner;
+        this.spanStack = new SpanStack(spanner, options);
+
+        if (options.getStylesheet() != null) {
+            spanStack.registerStylesheet(options.getStylesheet());
+        }
+
+        HandlerTable handlerTable = spanner.getHandlerTable();
+
+        this.buildTextFirst = options.isBuildTextFirst() && handlerTable.isTextOnly();
+        this.builder = buildTextFirst ? new TextBuffer() : new SpannableStringBuilder();
+
+        this.traversal = new TagNodeTraversal(handlerTable, node, builder, spanStack,
+                cancellationCallback, options.getMaxDepth(), options.getCheckInterval());
+    }
+
+    /**
+     * Renders for at most roughly the given time.
+     * <p>
+     * The time is checked every few nodes, so a step may run somewhat
+     * over its budget, and always makes some progress.
+     *
+     * @return true if the render is done, and getResult() can be called.
+     * @throws com.iammonk.htmlspanner.exception.ParsingCancelledException
+     * if the CancellationCallback of the session says it's cancelled.
+     */
+    public boolean step(long budgetNanos) {
+
+        if (!done && traversal.step(budgetNanos)) {
+            applySpans();
+            done = true;
+        }
+
+        return done;
+    }
+
+    /**
+     * Renders everything that's left.
+     *
+     * @return the rendered text.
+     */
+    public Spannable finish() {
+        step(Long.MAX_VALUE);
+        return result;
+    }
+
+    /**
+     * Renders for at most roughly the given time, and then stops the
+     * render if it isn't done yet.
+     *
+     * @return the text rendered so far, and if it was cut short.
+     */
+    public RenderResult finishWithin(long budgetNanos) {
+
+        if (!step(budgetNanos)) {
+            truncate();
+        }
+
+        return new RenderResult(result, truncated);
+    }
+
+    /**
+     * Stops the render, and keeps the text rendered so far as the result.
+     * <p>
+     * Tags that were started are closed where the text ends, so their
+     * spans are still applied.
+     */
+    public void truncate() {
+
+        if (!done) {
+            traversal.truncate();
+            applySpans();
+            done = true;
+            truncated = true;
+        }
+    }
+
+    private void applySpans() {
+
+        if (buildTextFirst) {
+            result = new SpannableStringBuilder(builder);
+            spanStack.applySpansInOrder(spanner, result);
+        } else {
+            spanStack.applySpans(spanner, builder);
+            result = builder;
+        }
+    }
+
+    /**
+     * Marks the result as truncated, because the input was cut short
+     * before it was cleaned.
+     */
+    void setInputTruncated() {
+        truncated = true;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Returns true if the render was stopped before the end of the document.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the rendered text.
+     *
+     * @throws IllegalStateException if the render isn't done yet.
+     */
+    public Spannable getResult() {
+
+        if (!done) {
+            throw new IllegalStateException("The render isn't done yet.");
+        }
+
+        return result;
+    }
+}
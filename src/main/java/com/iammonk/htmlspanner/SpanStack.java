@@ -3,59 +3,277 @@ package com.iammonk.htmlspanner;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 
+import com.iammonk.htmlspanner.css.AncestorFilter;
 import com.iammonk.htmlspanner.css.CompiledRule;
+import com.iammonk.htmlspanner.css.RuleIndex;
+import com.iammonk.htmlspanner.css.Stylesheet;
 import com.iammonk.htmlspanner.style.Style;
 
 import org.htmlcleaner.TagNode;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
 
 /**
  * Simple stack structure that Spans can be pushed on.
  * <p>
  * Handles the lookup and application of CSS styles.
+ * <p>
+ * Spans are kept as records in parallel arrays: the span object (or a
+ * SpanCallback for spans that can only be created later), its start,
+ * end and flags. Records are applied last-in, first-out, or sorted by
+ * where they start when the text was built before any spans were added.
  *
  * @author Alex Kuiper
  */
 public class SpanStack {
 
-    private final Stack<SpanCallback> spanItemStack = new Stack<SpanCallback>();
+    /**
+     * Flags value marking a record that holds a SpanCallback instead of a span.
+     */
+    private static final int DEFERRED = -1;
+
+    private Object[] spans = new Object[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int[] flags = new int[64];
+
+    private int spanCount = 0;
+
+    private final HtmlSpanner spanner;
+    private final RenderOptions options;
+
+    private final RuleIndex rules = new RuleIndex();
 
-    private final Set<CompiledRule> rules = new HashSet<CompiledRule>();
+    private final AncestorFilter ancestors = new AncestorFilter();
 
-    private final Map<TagNode, List<CompiledRule>> lookupCache = new HashMap<TagNode, List<CompiledRule>>();
+    /**
+     * Styles resolved for the nodes that are currently being handled,
+     * indexed by their nesting depth.
+     */
+    private NodeStyle[] nodeStyles = new NodeStyle[16];
+    private int nodeDepth = 0;
+
+    /**
+     * Number of recently styled nodes kept around for siblings to share their style.
+     */
+    private static final int SHARED_STYLE_COUNT = 8;
+
+    private final SharedStyle[] sharedStyles = new SharedStyle[SHARED_STYLE_COUNT];
+    private int nextSharedStyle = 0;
+
+    public SpanStack() {
+        this(null, new RenderOptions());
+    }
+
+    /**
+     * Creates a SpanStack for a render by the given HtmlSpanner with the given options.
+     */
+    public SpanStack(HtmlSpanner spanner, RenderOptions options) {
+        this.spanner = spanner;
+        this.options = options;
+    }
+
+    /**
+     * Returns the HtmlSpanner running the render this SpanStack belongs to, or null.
+     */
+    public HtmlSpanner getSpanner() {
+        return spanner;
+    }
+
+    /**
+     * Returns the options of the render this SpanStack belongs to.
+     */
+    public RenderOptions getRenderOptions() {
+        return options;
+    }
 
     public void registerCompiledRule(CompiledRule rule) {
         this.rules.add(rule);
+
+        //New rules may change the outcome for nodes we've already seen
+        Arrays.fill(sharedStyles, null);
+    }
+
+    /**
+     * Registers all rules of the given stylesheet.
+     */
+    public void registerStylesheet(Stylesheet stylesheet) {
+        for (CompiledRule rule : stylesheet.getRules()) {
+            registerCompiledRule(rule);
+        }
     }
 
+    /**
+     * Returns the given base style with all CSS rules that match the node applied.
+     * <p>
+     * For the node that is currently being handled the result is kept until
+     * the node is done, so beforeChildren() and handleTagNode() only resolve
+     * it once.
+     */
     public Style getStyle(TagNode node, Style baseStyle) {
 
-        if (!lookupCache.containsKey(node)) {
-            List<CompiledRule> matchingRules = new ArrayList<CompiledRule>();
-            for (CompiledRule rule : rules) {
-                if (rule.matches(node)) {
-                    matchingRules.add(rule);
+        NodeStyle current = null;
+
+        if (nodeDepth > 0 && nodeStyles[nodeDepth - 1].node == node) {
+            current = nodeStyles[nodeDepth - 1];
+
+            if (current.matchingRules != null) {
+
+                if (current.baseStyle != baseStyle) {
+                    current.baseStyle = baseStyle;
+                    current.style = applyRules(current.matchingRules, baseStyle);
                 }
+
+                return current.style;
             }
-            lookupCache.put(node, matchingRules);
         }
 
+        List<CompiledRule> matchingRules;
+        Style result;
+
+        SharedStyle shared = findSharedStyle(node);
+
+        if (shared != null) {
+            matchingRules = shared.matchingRules;
+
+            if (shared.baseStyle != baseStyle) {
+                shared.baseStyle = baseStyle;
+                shared.style = applyRules(matchingRules, baseStyle);
+            }
+
+            result = shared.style;
+
+        } else {
+            matchingRules = new ArrayList<CompiledRule>();
+
+            if (ancestors.isValidFor(node)) {
+                rules.collectMatchingRules(node, ancestors, matchingRules);
+            } else {
+                rules.collectMatchingRules(node, matchingRules);
+            }
+
+            result = applyRules(matchingRules, baseStyle);
+            shareStyle(node, matchingRules, baseStyle, result);
+        }
+
+        if (current != null) {
+            current.matchingRules = matchingRules;
+            current.baseStyle = baseStyle;
+            current.style = result;
+        }
+
+        return result;
+    }
+
+    private static Style applyRules(List<CompiledRule> matchingRules, Style baseStyle) {
+
         Style result = baseStyle;
 
-        for (CompiledRule rule : lookupCache.get(node)) {
+        for (CompiledRule rule : matchingRules) {
             result = rule.applyStyle(result);
         }
 
         return result;
     }
 
+    /**
+     * Looks for a recently styled sibling which is indistinguishable from
+     * the given node as far as CSS selectors are concerned.
+     */
+    private SharedStyle findSharedStyle(TagNode node) {
+
+        TagNode parent = node.getParent();
+
+        if (parent == null) {
+            return null;
+        }
+
+        for (SharedStyle shared : sharedStyles) {
+            if (shared != null && shared.parent == parent && shared.matches(node)) {
+                return shared;
+            }
+        }
+
+        return null;
+    }
+
+    private void shareStyle(TagNode node, List<CompiledRule> matchingRules,
+                            Style baseStyle, Style style) {
+
+        if (node.getParent() == null) {
+            return;
+        }
+
+        SharedStyle shared = sharedStyles[nextSharedStyle];
+
+        if (shared == null) {
+            shared = new SharedStyle();
+            sharedStyles[nextSharedStyle] = shared;
+        }
+
+        nextSharedStyle = (nextSharedStyle + 1) % SHARED_STYLE_COUNT;
+
+        shared.parent = node.getParent();
+        shared.tagName = node.getName();
+        shared.id = node.getAttributeByName("id");
+        shared.className = node.getAttributeByName("class");
+        shared.matchingRules = matchingRules;
+        shared.baseStyle = baseStyle;
+        shared.style = style;
+    }
+
+    /**
+     * Called by the traversal before the handler of the given node is called.
+     */
+    void beginNode(TagNode node) {
+
+        if (nodeDepth == nodeStyles.length) {
+            NodeStyle[] newNodeStyles = new NodeStyle[nodeDepth * 2];
+            System.arraycopy(nodeStyles, 0, newNodeStyles, 0, nodeDepth);
+            nodeStyles = newNodeStyles;
+        }
+
+        NodeStyle nodeStyle = nodeStyles[nodeDepth];
+
+        if (nodeStyle == null) {
+            nodeStyle = new NodeStyle();
+            nodeStyles[nodeDepth] = nodeStyle;
+        }
+
+        nodeStyle.node = node;
+        nodeDepth++;
+    }
+
+    /**
+     * Called by the traversal when the handler of the last begun node is done.
+     */
+    void endNode() {
+
+        nodeDepth--;
+
+        NodeStyle nodeStyle = nodeStyles[nodeDepth];
+        nodeStyle.node = null;
+        nodeStyle.matchingRules = null;
+        nodeStyle.baseStyle = null;
+        nodeStyle.style = null;
+    }
+
+    /**
+     * Called by the traversal before the children of the given node are handled.
+     */
+    void pushAncestor(TagNode node) {
+        ancestors.push(node);
+    }
+
+    /**
+     * Called by the traversal after the children of the last pushed node are handled.
+     */
+    void popAncestor() {
+        ancestors.pop();
+    }
+
     private static String option(String s) {
         if (s == null) {
             return "";
@@ -67,20 +285,180 @@ public class SpanStack {
     public void pushSpan(final Object span, final int start, final int end) {
 
         if (end > start) {
-            SpanCallback callback = (spanner, builder) -> builder.setSpan(span, start, end,
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-
-            spanItemStack.push(callback);
+            push(span, start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
     }
 
+    /**
+     * Pushes a SpanCallback whose spans may cover any part of the text.
+     */
     public void pushSpan(SpanCallback callback) {
-        spanItemStack.push(callback);
+        push(callback, 0, Integer.MAX_VALUE, DEFERRED);
+    }
+
+    /**
+     * Pushes a SpanCallback which only adds spans between start and end.
+     * <p>
+     * The range is used to put the callback in its place when the spans
+     * are applied in order; see applySpansInOrder().
+     */
+    public void pushSpan(SpanCallback callback, int start, int end) {
+        push(callback, start, end, DEFERRED);
+    }
+
+    private void push(Object span, int start, int end, int spanFlags) {
+
+        if (spanCount == spans.length) {
+            int newLength = spanCount * 2;
+
+            Object[] newSpans = new Object[newLength];
+            System.arraycopy(spans, 0, newSpans, 0, spanCount);
+            spans = newSpans;
+
+            int[] newStarts = new int[newLength];
+            System.arraycopy(starts, 0, newStarts, 0, spanCount);
+            starts = newStarts;
+
+            int[] newEnds = new int[newLength];
+            System.arraycopy(ends, 0, newEnds, 0, spanCount);
+            ends = newEnds;
+
+            int[] newFlags = new int[newLength];
+            System.arraycopy(flags, 0, newFlags, 0, spanCount);
+            flags = newFlags;
+        }
+
+        spans[spanCount] = span;
+        starts[spanCount] = start;
+        ends[spanCount] = end;
+        flags[spanCount] = spanFlags;
+
+        spanCount++;
     }
 
     public void applySpans(HtmlSpanner spanner, SpannableStringBuilder builder) {
-        while (!spanItemStack.isEmpty()) {
-            spanItemStack.pop().applySpan(spanner, builder);
+
+        for (int i = spanCount - 1; i >= 0; i--) {
+
+            if (flags[i] == DEFERRED) {
+                ((SpanCallback) spans[i]).applySpan(spanner, builder);
+            } else {
+                builder.setSpan(spans[i], starts[i], ends[i], flags[i]);
+            }
+
+            spans[i] = null;
+        }
+
+        spanCount = 0;
+    }
+
+    /**
+     * Applies the spans sorted by their start, and spans starting at the
+     * same position from the outermost to the innermost.
+     * <p>
+     * SpannableStringBuilder keeps its spans sorted by start, so adding them
+     * in that order saves it from moving the ones it already has. Spans
+     * with the same range keep the order applySpans() would give them, so
+     * a SpanCallback still finds the spans of the enclosing tags.
+     */
+    public void applySpansInOrder(HtmlSpanner spanner, SpannableStringBuilder builder) {
+
+        //Last pushed first, as applySpans() does
+        int[] order = new int[spanCount];
+
+        for (int i = 0; i < spanCount; i++) {
+            order[i] = spanCount - 1 - i;
+        }
+
+        sortByRange(order, new int[spanCount], 0, spanCount);
+
+        for (int i : order) {
+
+            if (flags[i] == DEFERRED) {
+                ((SpanCallback) spans[i]).applySpan(spanner, builder);
+            } else {
+                builder.setSpan(spans[i], starts[i], ends[i], flags[i]);
+            }
+
+            spans[i] = null;
+        }
+
+        spanCount = 0;
+    }
+
+    /**
+     * Merge sort of the record indexes between from and to, by start and
+     * then by end descending. The sort is stable, so records with the same
+     * range keep their order.
+     */
+    private void sortByRange(int[] order, int[] buffer, int from, int to) {
+
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+
+        sortByRange(order, buffer, from, middle);
+        sortByRange(order, buffer, middle, to);
+
+        System.arraycopy(order, from, buffer, from, to - from);
+
+        int left = from;
+        int right = middle;
+
+        for (int i = from; i < to; i++) {
+
+            if (right == to || (left < middle && !comesBefore(buffer[right], buffer[left]))) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
         }
     }
+
+    private boolean comesBefore(int a, int b) {
+        return starts[a] < starts[b] || (starts[a] == starts[b] && ends[a] > ends[b]);
+    }
+
+    /**
+     * Style computed for a node, which siblings with the same tag name,
+     * id and class can reuse: selectors only look at those and at the
+     * parents, which siblings have in common.
+     */
+    private static class SharedStyle {
+
+        private TagNode parent;
+        private String tagName;
+        private String id;
+        private String className;
+
+        private List<CompiledRule> matchingRules;
+
+        private Style baseStyle;
+        private Style style;
+
+        private boolean matches(TagNode node) {
+            return equal(tagName, node.getName())
+                    && equal(id, node.getAttributeByName("id"))
+                    && equal(className, node.getAttributeByName("class"));
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    /**
+     * Style resolved for a node that is being handled.
+     */
+    private static class NodeStyle {
+
+        private TagNode node;
+
+        private List<CompiledRule> matchingRules;
+
+        private Style baseStyle;
+        private Style style;
+    }
 }
@@ -40,20 +40,56 @@ public abstract class TagNodeHandler {
 
 	private HtmlSpanner spanner;
 
+	private boolean shared;
+
 	/**
 	 * Called by HtmlSpanner when this TagNodeHandler is registered.
+	 * <p>
+	 * Ignored for the built-in handlers, since they are shared by all
+	 * HtmlSpanners.
 	 */
 	public void setSpanner(HtmlSpanner spanner) {
-		this.spanner = spanner;
+		if (!shared) {
+			this.spanner = spanner;
+		}
+	}
+
+	/**
+	 * Returns true if this is one of the built-in handlers shared by all
+	 * HtmlSpanners. Handlers wrapping other handlers shouldn't pass
+	 * setSpanner() on when this is true.
+	 */
+	protected final boolean isShared() {
+		return shared;
+	}
+
+	void markShared() {
+		this.shared = true;
 	}
 
 	/**
 	 * Returns a reference to the HtmlSpanner.
+	 * <p>
+	 * Handlers that were never registered, like the shared built-in
+	 * handlers, get an HtmlSpanner with the default settings.
 	 * 
 	 * @return the HtmlSpanner;
 	 */
 	protected HtmlSpanner getSpanner() {
-		return spanner;
+		return spanner != null ? spanner : HtmlSpanner.getDefaultSpanner();
+	}
+
+	/**
+	 * Returns the HtmlSpanner that is running the render the given
+	 * SpanStack belongs to.
+	 * <p>
+	 * The built-in handlers are shared by all HtmlSpanners, so they use
+	 * this instead of getSpanner(). For a SpanStack that doesn't belong to
+	 * a render this is the same as getSpanner().
+	 */
+	protected HtmlSpanner getSpanner(SpanStack spanStack) {
+		HtmlSpanner renderingSpanner = spanStack.getSpanner();
+		return renderingSpanner != null ? renderingSpanner : getSpanner();
 	}
 
 	/**
@@ -75,6 +111,22 @@ public abstract class TagNodeHandler {
 		return false;
 	}
 
+	/**
+	 * If this TagNodeHandler only works with the text of the builder.
+	 * 
+	 * A handler that returns true may append text to the builder, read it,
+	 * and replace or delete text at its end, but adds all its spans through
+	 * the SpanStack: it never sets spans on the builder or reads them back.
+	 * When all handlers of a render are text-only, the render can build the
+	 * text first and add all spans afterwards; see
+	 * RenderOptions.setBuildTextFirst().
+	 * 
+	 * The default is false.
+	 */
+	public boolean isTextOnly() {
+		return false;
+	}
+
 	/**
 	 * Handle the given node and add spans if needed.
 	 * 
@@ -96,14 +148,28 @@ public abstract class TagNodeHandler {
 	/**
 	 * Utility method to append newlines while making sure that there are never
 	 * more than 2 consecutive newlines in the text (if whitespace stripping was
-	 * enabled).
+	 * enabled in the default options of the HtmlSpanner).
      * @return true if a newline was added
 	 */
 	protected boolean appendNewLine(SpannableStringBuilder builder) {
+		return appendNewLine(builder, this.spanner.isStripExtraWhiteSpace());
+	}
+
+	/**
+	 * Utility method to append newlines while making sure that there are never
+	 * more than 2 consecutive newlines in the text (if whitespace stripping was
+	 * enabled for the current render).
+     * @return true if a newline was added
+	 */
+	protected boolean appendNewLine(SpannableStringBuilder builder, SpanStack spanStack) {
+		return appendNewLine(builder, spanStack.getRenderOptions().isStripExtraWhiteSpace());
+	}
+
+	private static boolean appendNewLine(SpannableStringBuilder builder, boolean stripExtraWhiteSpace) {
 
 		int len = builder.length();
 
-		if (this.spanner.isStripExtraWhiteSpace()) {
+		if (stripExtraWhiteSpace) {
 			// Should never have more than 2 \n characters in a row.
 			if (len > 2 && builder.charAt(len - 1) == '\n'
 					&& builder.charAt(len - 2) == '\n') {
@@ -111,8 +177,24 @@ public abstract class TagNodeHandler {
 			}
 		}
 
-		builder.append("\n");
+		appendLineBreak(builder);
 
         return true;
 	}
+
+	/**
+	 * Ends the current line. A space at the end of the line is replaced by
+	 * the newline, since it would only be trailing whitespace.
+	 */
+	protected static void appendLineBreak(SpannableStringBuilder builder) {
+
+		int len = builder.length();
+
+		//Replaced in place, so spans recorded up to here keep their positions
+		if (len > 0 && builder.charAt(len - 1) == ' ') {
+			builder.replace(len - 1, len, "\n");
+		} else {
+			builder.append('\n');
+		}
+	}
 }
@@ -0,0 +1,323 @@
+package com.iammonk.htmlspanner;
+
+import android.text.SpannableStringBuilder;
+
+import com.iammonk.htmlspanner.exception.ParsingCancelledException;
+
+import org.htmlcleaner.BaseToken;
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.TagNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Walks a tree of TagNodes and calls the registered TagNodeHandlers.
+ * <p>
+ * The traversal keeps its own stack of frames on the heap instead of
+ * recursing, so deeply nested documents can't overflow the thread stack.
+ * For every node the order of calls is the same as a recursive walk:
+ * beforeChildren(), then all children, then handleTagNode() with the
+ * length of the text before and after the children.
+ * <p>
+ * The traversal runs in steps with a time budget, keeping its frames
+ * between calls, so a RenderSession can spread it out over time.
+ * <p>
+ * Nodes nested deeper than the maximum depth are not handed to a handler,
+ * only their text content is added. Nodes whose handler renders their
+ * content itself, like style and pre, are left out entirely at that depth.
+ * <p>
+ * Whitespace is collapsed like CSS does for white-space: normal, also
+ * across element boundaries: a space is only added when the text so far
+ * doesn't already end in whitespace, so there's never a leading space at
+ * the start of a line or two spaces in a row. A space at the end of a
+ * line is dropped by TagNodeHandler when a handler ends the line.
+ */
+final class TagNodeTraversal {
+
+    private final HandlerTable handlerTable;
+    private final SpannableStringBuilder builder;
+    private final SpanStack spanStack;
+    private final HtmlSpanner.CancellationCallback cancellationCallback;
+    private final int maxDepth;
+    private final int checkInterval;
+
+    /**
+     * Reused buffer the text of a content node is decoded into, before
+     * it's added to the builder in a single append.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    private Frame[] frames = new Frame[16];
+    private int depth = 0;
+
+    /**
+     * The node to handle, until the first step() enters it.
+     */
+    private TagNode root;
+
+    private int rootAncestors = 0;
+
+    /**
+     * Creates a traversal of the given node with the handlers of the given
+     * table. Nothing is handled until the first call to step(), so creating
+     * one is cheap.
+     */
+    TagNodeTraversal(HandlerTable handlerTable, TagNode root, SpannableStringBuilder builder,
+                     SpanStack spanStack, HtmlSpanner.CancellationCallback cancellationCallback,
+                     int maxDepth, int checkInterval) {
+        this.handlerTable = handlerTable;
+        this.root = root;
+        this.builder = builder;
+        this.spanStack = spanStack;
+        this.cancellationCallback = cancellationCallback;
+        this.maxDepth = maxDepth;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Handles nodes until either all are done or the time budget is used up.
+     * The traversal can be picked up again by calling step() again.
+     * <p>
+     * Both the clock and the CancellationCallback are only checked once
+     * every checkInterval nodes. The CancellationCallback is also checked
+     * at the start of every step and right before the traversal is done,
+     * so a render shorter than checkInterval nodes still notices it was
+     * cancelled.
+     *
+     * @return true if the traversal is done.
+     */
+    boolean step(long budgetNanos) {
+
+        checkForCancellation();
+
+        long deadline = System.nanoTime() + budgetNanos;
+        int nodesSinceCheck = 0;
+
+        if (root != null) {
+            start();
+        }
+
+        while (depth > 0) {
+
+            advance();
+
+            //Reading the clock isn't free, so only do it every few nodes
+            if (++nodesSinceCheck >= checkInterval) {
+                nodesSinceCheck = 0;
+
+                checkForCancellation();
+
+                if (depth > 0 && System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+            }
+        }
+
+        checkForCancellation();
+
+        finish();
+
+        return true;
+    }
+
+    /**
+     * Enters the root node, which runs the beforeChildren() of its handler.
+     */
+    private void start() {
+
+        //CSS matching needs to see the parents of the root as well
+        rootAncestors = pushAncestors(root.getParent());
+
+        enter(root);
+
+        root = null;
+    }
+
+    /**
+     * Handles the next child of the innermost open node, or closes that
+     * node if all its children are done.
+     */
+    private void advance() {
+
+        Frame frame = frames[depth - 1];
+
+        if (frame.childIndex < frame.children.size()) {
+
+            BaseToken childNode = frame.children.get(frame.childIndex++);
+
+            if (childNode instanceof ContentNode) {
+                handleContent((ContentNode) childNode);
+            } else if (childNode instanceof TagNode) {
+                enter((TagNode) childNode);
+            }
+
+        } else {
+            leave(frame);
+        }
+    }
+
+    /**
+     * Closes all open nodes without handling the rest of their children,
+     * so the handlers still get to add spans for the text so far.
+     */
+    void truncate() {
+
+        //Truncated before the first step: there's nothing to close
+        root = null;
+
+        while (depth > 0) {
+            Frame frame = frames[depth - 1];
+            frame.childIndex = frame.children.size();
+            leave(frame);
+        }
+
+        finish();
+    }
+
+    private void finish() {
+
+        for (int i = 0; i < rootAncestors; i++) {
+            spanStack.popAncestor();
+        }
+
+        rootAncestors = 0;
+    }
+
+    private int pushAncestors(TagNode parent) {
+
+        List<TagNode> ancestors = new ArrayList<>();
+
+        for (TagNode node = parent; node != null; node = node.getParent()) {
+            ancestors.add(node);
+        }
+
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            spanStack.pushAncestor(ancestors.get(i));
+        }
+
+        return ancestors.size();
+    }
+
+    private void enter(TagNode node) {
+
+        if (depth == frames.length) {
+            Frame[] newFrames = new Frame[frames.length * 2];
+            System.arraycopy(frames, 0, newFrames, 0, frames.length);
+            frames = newFrames;
+        }
+
+        Frame frame = frames[depth];
+
+        if (frame == null) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+
+        depth++;
+
+        frame.node = node;
+        frame.childIndex = 0;
+
+        TagNodeHandler handler = handlerTable.get(node.getName());
+
+        if (depth > maxDepth) {
+            frame.handler = null;
+
+            //Content such as CSS in a style tag is never meant to be shown as text
+            if (handler.rendersContent()) {
+                frame.children = Collections.emptyList();
+            } else {
+                frame.children = node.getAllChildren();
+            }
+
+            return;
+        }
+
+        frame.lengthBefore = builder.length();
+
+        frame.handler = handler;
+
+        spanStack.beginNode(node);
+        handler.beforeChildren(node, builder, spanStack);
+        spanStack.pushAncestor(node);
+
+        if (handler.rendersContent()) {
+            frame.children = Collections.emptyList();
+        } else {
+            frame.children = node.getAllChildren();
+        }
+    }
+
+    private void leave(Frame frame) {
+
+        if (frame.handler != null) {
+            spanStack.popAncestor();
+            frame.handler.handleTagNode(frame.node, builder, frame.lengthBefore,
+                    builder.length(), spanStack);
+            spanStack.endNode();
+        }
+
+        //Don't keep the tree reachable through a reused frame
+        frame.node = null;
+        frame.handler = null;
+        frame.children = null;
+
+        depth--;
+    }
+
+    private void handleContent(ContentNode contentNode) {
+
+        text.setLength(0);
+        TextUtil.appendHtmlEntities(text, contentNode.getContent(), false);
+
+        boolean stripNonBreakingSpace = spanStack.getRenderOptions().isStripExtraWhiteSpace();
+        boolean afterWhiteSpace = builder.length() == 0
+                || TextUtil.isWhiteSpace(builder.charAt(builder.length() - 1));
+
+        //Runs within the node are already a single space; compact the ones
+        //that continue a run from earlier output in place.
+        int write = 0;
+
+        for (int read = 0; read < text.length(); read++) {
+            char c = text.charAt(read);
+
+            if (c == '\u00A0' && stripNonBreakingSpace) {
+                //Replace unicode non-breaking space with normal space.
+                c = ' ';
+            }
+
+            if (c == ' ') {
+                if (afterWhiteSpace) {
+                    continue;
+                }
+
+                afterWhiteSpace = true;
+            } else {
+                afterWhiteSpace = TextUtil.isWhiteSpace(c);
+            }
+
+            text.setCharAt(write++, c);
+        }
+
+        if (write > 0) {
+            text.setLength(write);
+            builder.append(text);
+        }
+    }
+
+    private void checkForCancellation() {
+        if (cancellationCallback != null && cancellationCallback.isCancelled()) {
+            throw new ParsingCancelledException();
+        }
+    }
+
+    private static final class Frame {
+        TagNode node;
+        TagNodeHandler handler;
+        List<? extends BaseToken> children;
+        int childIndex;
+        int lengthBefore;
+    }
+}
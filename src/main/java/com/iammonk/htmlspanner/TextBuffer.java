@@ -0,0 +1,134 @@
+package com.iammonk.htmlspanner;
+
+import android.text.SpannableStringBuilder;
+
+import java.lang.reflect.Array;
+
+/**
+ * SpannableStringBuilder which only holds text, for renders that build the
+ * text before adding any spans.
+ * <p>
+ * The text is kept in a plain StringBuilder, so appending to it skips the
+ * span bookkeeping and input filters of a SpannableStringBuilder. Text-only
+ * handlers never set spans on the builder, so setting one is an error;
+ * the span queries report an empty builder.
+ */
+final class TextBuffer extends SpannableStringBuilder {
+
+    private final StringBuilder text = new StringBuilder(256);
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public void getChars(int start, int end, char[] dest, int destOffset) {
+        text.getChars(start, end, dest, destOffset);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    @Override
+    public SpannableStringBuilder append(CharSequence s) {
+        text.append(s);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder append(CharSequence s, int start, int end) {
+        text.append(s, start, end);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder append(char c) {
+        text.append(c);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder replace(int start, int end, CharSequence s) {
+        text.replace(start, end, s.toString());
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder replace(int start, int end, CharSequence s, int sourceStart, int sourceEnd) {
+        text.replace(start, end, s.subSequence(sourceStart, sourceEnd).toString());
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder insert(int where, CharSequence s) {
+        text.insert(where, s);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder insert(int where, CharSequence s, int start, int end) {
+        text.insert(where, s, start, end);
+        return this;
+    }
+
+    @Override
+    public SpannableStringBuilder delete(int start, int end) {
+        text.delete(start, end);
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        text.setLength(0);
+    }
+
+    @Override
+    public void setSpan(Object what, int start, int end, int flags) {
+        throw new UnsupportedOperationException(
+                "Spans can't be set while the text is built; push them on the SpanStack instead.");
+    }
+
+    @Override
+    public void removeSpan(Object what) {
+        //There are no spans to remove
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] getSpans(int queryStart, int queryEnd, Class<T> kind) {
+        return (T[]) Array.newInstance(kind, 0);
+    }
+
+    @Override
+    public int getSpanStart(Object what) {
+        return -1;
+    }
+
+    @Override
+    public int getSpanEnd(Object what) {
+        return -1;
+    }
+
+    @Override
+    public int getSpanFlags(Object what) {
+        return 0;
+    }
+
+    @Override
+    public int nextSpanTransition(int start, int limit, Class kind) {
+        return limit;
+    }
+}
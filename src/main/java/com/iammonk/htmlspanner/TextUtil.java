@@ -1,133 +1,19 @@
 package com.iammonk.htmlspanner;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
 
 public class TextUtil {
 
-	private static final Pattern SPECIAL_CHAR_WHITESPACE = Pattern
-			.compile("(&[a-z]*;|&#x?([a-f]|[A-F]|[0-9])*;|[\\s\n]+)");
-
-	private static final Pattern SPECIAL_CHAR_NO_WHITESPACE = Pattern
-			.compile("(&[a-z]*;|&#x?([a-f]|[A-F]|[0-9])*;)");
-
-	private static final Map<String, String> REPLACEMENTS = new HashMap<String, String>();
-
-	static {
-
-		REPLACEMENTS.put("&nbsp;", "\u00A0");
-		REPLACEMENTS.put("&amp;", "&");
-		REPLACEMENTS.put("&quot;", "\"");
-		REPLACEMENTS.put("&cent;", "¢");
-		REPLACEMENTS.put("&lt;", "<");
-		REPLACEMENTS.put("&gt;", ">");
-		REPLACEMENTS.put("&sect;", "§");
-
-        REPLACEMENTS.put("&ldquo;", "“");
-        REPLACEMENTS.put("&rdquo;", "”");
-        REPLACEMENTS.put("&lsquo;", "‘");
-        REPLACEMENTS.put("&rsquo;", "’");
-
-		REPLACEMENTS.put("&ndash;", "\u2013");
-		REPLACEMENTS.put("&mdash;", "\u2014");
-		REPLACEMENTS.put("&horbar;", "\u2015");
-
-		REPLACEMENTS.put("&apos;", "'");
-		REPLACEMENTS.put("&iexcl;", "¡");
-		REPLACEMENTS.put("&pound;", "£");
-		REPLACEMENTS.put("&curren;", "¤");
-		REPLACEMENTS.put("&yen;", "¥");
-		REPLACEMENTS.put("&brvbar;", "¦");
-		REPLACEMENTS.put("&uml;", "¨");
-		REPLACEMENTS.put("&copy;", "©");
-		REPLACEMENTS.put("&ordf;", "ª");
-		REPLACEMENTS.put("&laquo;", "«");
-		REPLACEMENTS.put("&not;", "¬");
-		REPLACEMENTS.put("&reg;", "®");
-		REPLACEMENTS.put("&macr;", "¯");
-		REPLACEMENTS.put("&deg;", "°");
-		REPLACEMENTS.put("&plusmn;", "±");
-		REPLACEMENTS.put("&sup2;", "²");
-		REPLACEMENTS.put("&sup3;", "³");
-		REPLACEMENTS.put("&acute;", "´");
-		REPLACEMENTS.put("&micro;", "µ");
-		REPLACEMENTS.put("&para;", "¶");
-		REPLACEMENTS.put("&middot;", "·");
-		REPLACEMENTS.put("&cedil;", "¸");
-		REPLACEMENTS.put("&sup1;", "¹");
-		REPLACEMENTS.put("&ordm;", "º");
-		REPLACEMENTS.put("&raquo;", "»");
-		REPLACEMENTS.put("&frac14;", "¼");
-		REPLACEMENTS.put("&frac12;", "½");
-		REPLACEMENTS.put("&frac34;", "¾");
-		REPLACEMENTS.put("&iquest;", "¿");
-		REPLACEMENTS.put("&times;", "×");
-		REPLACEMENTS.put("&divide;", "÷");
-		REPLACEMENTS.put("&Agrave;", "À");
-		REPLACEMENTS.put("&Aacute;", "Á");
-		REPLACEMENTS.put("&Acirc;", "Â");
-		REPLACEMENTS.put("&Atilde;", "Ã");
-		REPLACEMENTS.put("&Auml;", "Ä");
-		REPLACEMENTS.put("&Aring;", "Å");
-		REPLACEMENTS.put("&AElig;", "Æ");
-		REPLACEMENTS.put("&Ccedil;", "Ç");
-		REPLACEMENTS.put("&Egrave;", "È");
-		REPLACEMENTS.put("&Eacute;", "É");
-		REPLACEMENTS.put("&Ecirc;", "Ê");
-		REPLACEMENTS.put("&Euml;", "Ë");
-		REPLACEMENTS.put("&Igrave;", "Ì");
-		REPLACEMENTS.put("&Iacute;", "Í");
-		REPLACEMENTS.put("&Icirc;", "Î");
-		REPLACEMENTS.put("&Iuml;", "Ï");
-		REPLACEMENTS.put("&ETH;", "Ð");
-		REPLACEMENTS.put("&Ntilde;", "Ñ");
-		REPLACEMENTS.put("&Ograve;", "Ò");
-		REPLACEMENTS.put("&Oacute;", "Ó");
-		REPLACEMENTS.put("&Ocirc;", "Ô");
-		REPLACEMENTS.put("&Otilde;", "Õ");
-		REPLACEMENTS.put("&Ouml;", "Ö");
-		REPLACEMENTS.put("&Oslash;", "Ø");
-		REPLACEMENTS.put("&Ugrave;", "Ù");
-		REPLACEMENTS.put("&Uacute;", "Ú");
-		REPLACEMENTS.put("&Ucirc;", "Û");
-		REPLACEMENTS.put("&Uuml;", "Ü");
-		REPLACEMENTS.put("&Yacute;", "Ý");
-		REPLACEMENTS.put("&THORN;", "Þ");
-		REPLACEMENTS.put("&szlig;", "ß");
-		REPLACEMENTS.put("&agrave;", "à");
-		REPLACEMENTS.put("&aacute;", "á");
-		REPLACEMENTS.put("&acirc;", "â");
-		REPLACEMENTS.put("&atilde;", "ã");
-		REPLACEMENTS.put("&auml;", "ä");
-		REPLACEMENTS.put("&aring;", "å");
-		REPLACEMENTS.put("&aelig;", "æ");
-		REPLACEMENTS.put("&ccedil;", "ç");
-		REPLACEMENTS.put("&egrave;", "è");
-		REPLACEMENTS.put("&eacute;", "é");
-		REPLACEMENTS.put("&ecirc;", "ê");
-		REPLACEMENTS.put("&euml;", "ë");
-		REPLACEMENTS.put("&igrave;", "ì");
-		REPLACEMENTS.put("&iacute;", "í");
-		REPLACEMENTS.put("&icirc;", "î");
-		REPLACEMENTS.put("&iuml;", "ï");
-		REPLACEMENTS.put("&eth;", "ð");
-		REPLACEMENTS.put("&ntilde;", "ñ");
-		REPLACEMENTS.put("&ograve;", "ò");
-		REPLACEMENTS.put("&oacute;", "ó");
-		REPLACEMENTS.put("&ocirc;", "ô");
-		REPLACEMENTS.put("&otilde;", "õ");
-		REPLACEMENTS.put("&ouml;", "ö");
-		REPLACEMENTS.put("&oslash;", "ø");
-		REPLACEMENTS.put("&ugrave;", "ù");
-		REPLACEMENTS.put("&uacute;", "ú");
-		REPLACEMENTS.put("&ucirc;", "û");
-		REPLACEMENTS.put("&uuml;", "ü");
-		REPLACEMENTS.put("&yacute;", "ý");
-		REPLACEMENTS.put("&thorn;", "þ");
-		REPLACEMENTS.put("&yuml;", "ÿ");
-	}
+	/**
+	 * What numeric references in the range 0x80 - 0x9F really mean: pages
+	 * mislabeled as Latin-1 use them for the Windows-1252 characters.
+	 */
+	private static final char[] WINDOWS_1252 = {
+			'€', '\u0081', '‚', 'ƒ', '„', '…', '†', '‡',
+			'ˆ', '‰', 'Š', '‹', 'Œ', '\u008D', 'Ž', '\u008F',
+			'\u0090', '‘', '’', '“', '”', '•', '–', '—',
+			'˜', '™', 'š', '›', 'œ', '\u009D', 'ž', 'Ÿ'
+	};
 
 	/**
 	 * Replaces all HTML entities ( &lt;, &amp; ), with their Unicode
@@ -139,61 +25,216 @@ public class TextUtil {
 	 */
 	public static String replaceHtmlEntities(String aText,
 			boolean preserveFormatting) {
-		StringBuffer result = new StringBuffer();
 
-		Map<String, String> replacements = new HashMap<>(
-				REPLACEMENTS);
-		Matcher matcher;
+		if (!needsReplacing(aText, preserveFormatting)) {
+			return aText;
+		}
 
-		if (preserveFormatting) {
-			matcher = SPECIAL_CHAR_NO_WHITESPACE.matcher(aText);
-		} else {
-			matcher = SPECIAL_CHAR_WHITESPACE.matcher(aText);
-			replacements.put("", " ");
-			replacements.put("\n", " ");
+		StringBuilder result = new StringBuilder(aText.length());
+		appendHtmlEntities(result, aText, preserveFormatting);
+
+		return result.toString();
+	}
+
+	/**
+	 * Appends the text to the given StringBuilder, with all HTML entities
+	 * replaced by their Unicode characters.
+	 */
+	public static void appendHtmlEntities(StringBuilder out, CharSequence aText,
+			boolean preserveFormatting) {
+		try {
+			appendHtmlEntities((Appendable) out, aText, preserveFormatting);
+		} catch (IOException io) {
+			//A StringBuilder doesn't throw
+			throw new IllegalStateException(io);
 		}
+	}
+
+	/**
+	 * Appends the text to the given Appendable, with all HTML entities
+	 * replaced by their Unicode characters.
+	 * <p>
+	 * Unless preserveFormatting is set, every run of whitespace is
+	 * replaced by a single space.
+	 */
+	public static void appendHtmlEntities(Appendable out, CharSequence aText,
+			boolean preserveFormatting) throws IOException {
+
+		int length = aText.length();
+		int copyFrom = 0;
+		int i = 0;
+
+		//Plain text is copied in runs, up to the next thing to replace
+		while (i < length) {
+
+			char c = aText.charAt(i);
+
+			if (c == '&') {
+				out.append(aText, copyFrom, i);
+				i = appendEntity(out, aText, i);
+				copyFrom = i;
+
+			} else if (!preserveFormatting && isWhiteSpace(c)) {
 
-		while (matcher.find()) {
-            try {
-			    matcher.appendReplacement(result,
-					getReplacement(matcher, replacements));
-            } catch ( ArrayIndexOutOfBoundsException i ) {
-                //Ignore, seems to be a matcher bug
-            }
+				int end = i + 1;
+
+				while (end < length && isWhiteSpace(aText.charAt(end))) {
+					end++;
+				}
+
+				if (c != ' ' || end - i > 1) {
+					out.append(aText, copyFrom, i);
+					out.append(' ');
+					copyFrom = end;
+				}
+
+				i = end;
+
+			} else {
+				i++;
+			}
 		}
-		matcher.appendTail(result);
-		return result.toString();
+
+		out.append(aText, copyFrom, length);
 	}
 
-	private static String getReplacement(Matcher aMatcher,
-			Map<String, String> replacements) {
-
-		String match = aMatcher.group(0).trim();
-		String result = replacements.get(match);
-
-		if (result != null) {
-			return result;
-		} else if ( match.startsWith("&#")) {
-			
-			int code;
-			
-			// Translate to unicode character.
-			try {
-				
-				//Check if it's hex or normal
-				if ( match.startsWith("&#x") ) {
-					code = Integer.decode( "0x" + match.substring(3, match.length() -1));
-				} else {				
-					code = Integer.parseInt(match.substring(2,
-						match.length() - 1));
+	private static boolean needsReplacing(String aText,
+			boolean preserveFormatting) {
+
+		boolean afterSpace = false;
+
+		for (int i = 0; i < aText.length(); i++) {
+
+			char c = aText.charAt(i);
+
+			if (c == '&') {
+				return true;
+			}
+
+			if (!preserveFormatting && isWhiteSpace(c)) {
+				if (c != ' ' || afterSpace) {
+					return true;
 				}
-				
-				return "" + (char) code;
-			} catch (NumberFormatException nfe) {
-				return "";
+
+				afterSpace = true;
+			} else {
+				afterSpace = false;
 			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Same characters as \s in a regular expression. This is the only
+	 * definition of whitespace used when collapsing text.
+	 */
+	static boolean isWhiteSpace(char c) {
+		return c == ' ' || (c >= '\t' && c <= '\r');
+	}
+
+	/**
+	 * Appends the entity starting at the given '&', or the '&' itself if
+	 * no entity starts there.
+	 * 
+	 * @return the index right after what was replaced.
+	 */
+	private static int appendEntity(Appendable out, CharSequence aText,
+			int ampersand) throws IOException {
+
+		int length = aText.length();
+		int i = ampersand + 1;
+
+		if (i < length && aText.charAt(i) == '#') {
+			return appendNumericEntity(out, aText, ampersand);
+		}
+
+		//Find the longest name, since some may appear without a ';'
+		int node = HtmlEntities.ROOT;
+		int matchedNode = -1;
+		int matchedEnd = -1;
+
+		while (i < length) {
+			node = HtmlEntities.child(node, aText.charAt(i));
+
+			if (node < 0) {
+				break;
+			}
+
+			i++;
+
+			if (HtmlEntities.hasValue(node)) {
+				matchedNode = node;
+				matchedEnd = i;
+			}
+		}
+
+		if (matchedNode < 0) {
+			out.append('&');
+			return ampersand + 1;
+		}
+
+		HtmlEntities.appendValue(out, matchedNode);
+		return matchedEnd;
+	}
+
+	private static int appendNumericEntity(Appendable out, CharSequence aText,
+			int ampersand) throws IOException {
+
+		int length = aText.length();
+		int i = ampersand + 2;
+		int radix = 10;
+
+		if (i < length && (aText.charAt(i) == 'x' || aText.charAt(i) == 'X')) {
+			radix = 16;
+			i++;
+		}
+
+		int digitsStart = i;
+		int code = 0;
+
+		while (i < length) {
+			int digit = Character.digit(aText.charAt(i), radix);
+
+			if (digit < 0) {
+				break;
+			}
+
+			//Stop counting once it's out of range, so it can't overflow
+			if (code <= Character.MAX_CODE_POINT) {
+				code = code * radix + digit;
+			}
+
+			i++;
+		}
+
+		if (i == digitsStart) {
+			out.append('&');
+			return ampersand + 1;
+		}
+
+		if (i < length && aText.charAt(i) == ';') {
+			i++;
+		}
+
+		appendCodePoint(out, code);
+		return i;
+	}
+
+	private static void appendCodePoint(Appendable out, int code)
+			throws IOException {
+
+		if (code == 0 || code > Character.MAX_CODE_POINT
+				|| (code >= Character.MIN_SURROGATE && code <= Character.MAX_SURROGATE)) {
+			out.append('\uFFFD');
+		} else if (code >= 0x80 && code <= 0x9F) {
+			out.append(WINDOWS_1252[code - 0x80]);
+		} else if (code >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			int offset = code - Character.MIN_SUPPLEMENTARY_CODE_POINT;
+			out.append((char) (Character.MIN_HIGH_SURROGATE + (offset >>> 10)));
+			out.append((char) (Character.MIN_LOW_SURROGATE + (offset & 0x3FF)));
 		} else {
-			return "";
+			out.append((char) code);
 		}
 	}
 
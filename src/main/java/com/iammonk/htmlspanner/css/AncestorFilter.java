@@ -0,0 +1,135 @@
+package com.iammonk.htmlspanner.css;
+
+import org.htmlcleaner.TagNode;
+
+/**
+ * Counting Bloom filter over the tag names, ids and classes of the
+ * ancestors of the node that is currently being rendered.
+ * <p>
+ * When a selector needs a parent with a tag name, id or class that the
+ * filter has never seen, the rule can't match and is rejected without
+ * walking up the tree. The filter can give false positives, in which
+ * case the normal matching still decides, but never false negatives.
+ * <p>
+ * Nodes are pushed when their children are entered and popped when
+ * they are left, so the filter always holds exactly the ancestors of
+ * the children of the top node.
+ */
+public final class AncestorFilter {
+
+    private static final int SIZE = 1 << 12;
+    private static final int MASK = SIZE - 1;
+
+    private static final int KEYS_PER_NODE = 3;
+
+    private final int[] counters = new int[SIZE];
+
+    private TagNode[] nodes = new TagNode[16];
+    private int[] keyHashes = new int[16 * KEYS_PER_NODE];
+    private int[] keyCounts = new int[16];
+
+    private int depth = 0;
+
+    /**
+     * Adds the keys of the given node, which becomes the new top node.
+     */
+    public void push(TagNode node) {
+
+        if (depth == nodes.length) {
+            TagNode[] newNodes = new TagNode[depth * 2];
+            System.arraycopy(nodes, 0, newNodes, 0, depth);
+            nodes = newNodes;
+
+            int[] newKeyHashes = new int[depth * 2 * KEYS_PER_NODE];
+            System.arraycopy(keyHashes, 0, newKeyHashes, 0, depth * KEYS_PER_NODE);
+            keyHashes = newKeyHashes;
+
+            int[] newKeyCounts = new int[depth * 2];
+            System.arraycopy(keyCounts, 0, newKeyCounts, 0, depth);
+            keyCounts = newKeyCounts;
+        }
+
+        int offset = depth * KEYS_PER_NODE;
+        int count = 0;
+
+        count = addKey(offset, count, CSSCompiler.KeyedMatcher.TAG_NAME, node.getName());
+        count = addKey(offset, count, CSSCompiler.KeyedMatcher.ID, node.getAttributeByName("id"));
+        count = addKey(offset, count, CSSCompiler.KeyedMatcher.CLASS, node.getAttributeByName("class"));
+
+        nodes[depth] = node;
+        keyCounts[depth] = count;
+        depth++;
+    }
+
+    /**
+     * Removes the keys of the top node.
+     */
+    public void pop() {
+
+        depth--;
+
+        int offset = depth * KEYS_PER_NODE;
+
+        for (int i = 0; i < keyCounts[depth]; i++) {
+            int hash = keyHashes[offset + i];
+            counters[hash & MASK]--;
+            counters[(hash >>> 16) & MASK]--;
+        }
+
+        nodes[depth] = null;
+    }
+
+    /**
+     * Returns true if the filter holds exactly the ancestors of the given node.
+     */
+    public boolean isValidFor(TagNode node) {
+        return depth > 0 && nodes[depth - 1] == node.getParent();
+    }
+
+    /**
+     * Returns false if at least one of the given keys definitely
+     * doesn't belong to any ancestor.
+     */
+    boolean mightContainAll(int[] hashes) {
+
+        for (int hash : hashes) {
+            if (counters[hash & MASK] == 0 || counters[(hash >>> 16) & MASK] == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int addKey(int offset, int count, int keyType, String key) {
+
+        if (key == null) {
+            return count;
+        }
+
+        int hash = hash(keyType, key);
+
+        counters[hash & MASK]++;
+        counters[(hash >>> 16) & MASK]++;
+
+        keyHashes[offset + count] = hash;
+        return count + 1;
+    }
+
+    /**
+     * Hash of a key, of which the lower and upper 16 bits are used
+     * as two independent hash functions.
+     */
+    static int hash(int keyType, String key) {
+        int hash = key.hashCode() * 31 + keyType;
+
+        //Murmur3 finalizer, to spread similar keys over the whole table
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return hash;
+    }
+}
@@ -1,9 +1,5 @@
 package com.iammonk.htmlspanner.css;
 
-import android.graphics.Color;
-import android.util.Log;
-
-import com.iammonk.htmlspanner.FontFamily;
 import com.iammonk.htmlspanner.HtmlSpanner;
 import com.iammonk.htmlspanner.style.Style;
 import com.iammonk.htmlspanner.style.StyleValue;
@@ -22,6 +18,15 @@ import java.util.List;
  */
 public class CSSCompiler {
 
+    /**
+     * Sets one or more properties on a Style.
+     * <p>
+     * An updater must only set properties to values that were known when
+     * it was created (or that come from the spanner), and never read the
+     * Style it's given. Rules rely on this: their updaters are run once
+     * against an empty Style when they are compiled, and the result is
+     * used as a delta for every node the rule matches.
+     */
     public interface StyleUpdater {
         Style updateStyle(Style style, HtmlSpanner spanner);
     }
@@ -33,45 +38,44 @@ public class CSSCompiler {
     public static CompiledRule compile(Rule rule, HtmlSpanner spanner) {
 
         List<List<TagNodeMatcher>> matchers = new ArrayList<>();
-        List<StyleUpdater> styleUpdaters = new ArrayList<>();
 
         for (Selector selector : rule.getSelectors()) {
             List<CSSCompiler.TagNodeMatcher> selMatchers = CSSCompiler.createMatchersFromSelector(selector);
             matchers.add(selMatchers);
         }
 
-        Style blank = new Style();
+        //Fonts are resolved here, once per rule instead of once per node
+        Style delta = new Style();
 
         for (PropertyValue propertyValue : rule.getPropertyValues()) {
             CSSCompiler.StyleUpdater updater = CSSCompiler.getStyleUpdater(propertyValue.getProperty(),
                     propertyValue.getValue());
 
             if (updater != null) {
-                styleUpdaters.add(updater);
-                blank = updater.updateStyle(blank, spanner);
+                delta = updater.updateStyle(delta, spanner);
             }
         }
 
         String asText = rule.toString();
 
-        return new CompiledRule(spanner, matchers, styleUpdaters, asText);
+        return new CompiledRule(matchers, delta, asText);
     }
 
+    /**
+     * Parses a CSS colour.
+     *
+     * @throws IllegalArgumentException if the value isn't a colour.
+     * @see ColorParser
+     */
     public static Integer parseCSSColor(String colorString) {
 
-        //Check for CSS short-hand notation: #0fc -> #00ffcc
-        if (colorString.length() == 4 && colorString.startsWith("#")) {
-            StringBuilder builder = new StringBuilder("#");
-            for (int i = 1; i < colorString.length(); i++) {
-                //Duplicate each char
-                builder.append(colorString.charAt(i));
-                builder.append(colorString.charAt(i));
-            }
+        long color = ColorParser.parse(colorString);
 
-            colorString = builder.toString();
+        if (color == ColorParser.INVALID) {
+            throw new IllegalArgumentException("Unknown color: " + colorString);
         }
 
-        return Color.parseColor(colorString);
+        return (int) color;
     }
 
     public static List<TagNodeMatcher> createMatchersFromSelector(Selector selector) {
@@ -104,7 +108,32 @@ public class CSSCompiler {
     }
 
 
-    private static class ClassMatcher implements TagNodeMatcher {
+    /**
+     * A TagNodeMatcher that can only match nodes with a specific
+     * tag name, id or class.
+     * <p>
+     * The key is used to index rules, so only rules that can possibly
+     * match a node need to be tested against it.
+     */
+    abstract static class KeyedMatcher implements TagNodeMatcher {
+
+        static final int TAG_NAME = 0;
+        static final int ID = 1;
+        static final int CLASS = 2;
+
+        /**
+         * Returns which kind of key this matcher requires.
+         */
+        abstract int getKeyType();
+
+        /**
+         * Returns the tag name, id or class a node needs to have to match,
+         * or null if this matcher can't be indexed.
+         */
+        abstract String getKey();
+    }
+
+    private static class ClassMatcher extends KeyedMatcher {
 
         private String tagName;
         private String className;
@@ -134,9 +163,19 @@ public class CSSCompiler {
             String classAttribute = tagNode.getAttributeByName("class");
             return classAttribute != null && classAttribute.equals(className);
         }
+
+        @Override
+        int getKeyType() {
+            return CLASS;
+        }
+
+        @Override
+        String getKey() {
+            return className;
+        }
     }
 
-    private static class TagNameMatcher implements TagNodeMatcher {
+    private static class TagNameMatcher extends KeyedMatcher {
         private final String tagName;
 
         private TagNameMatcher(String selectorString) {
@@ -147,9 +186,19 @@ public class CSSCompiler {
         public boolean matches(TagNode tagNode) {
             return tagNode != null && tagName.equalsIgnoreCase(tagNode.getName());
         }
+
+        @Override
+        int getKeyType() {
+            return TAG_NAME;
+        }
+
+        @Override
+        String getKey() {
+            return tagName.toLowerCase();
+        }
     }
 
-    private static class IdMatcher implements TagNodeMatcher {
+    private static class IdMatcher extends KeyedMatcher {
         private final String id;
 
         private IdMatcher(String selectorString) {
@@ -166,178 +215,29 @@ public class CSSCompiler {
             String idAttribute = tagNode.getAttributeByName("id");
             return idAttribute != null && idAttribute.equals(id);
         }
-    }
-
-    public static StyleUpdater getStyleUpdater(final String key, final String value) {
-
-        if ("color".equals(key)) {
-            try {
-                final Integer color = parseCSSColor(value);
-                return (style, spanner) -> style.setColor(color);
-            } catch (IllegalArgumentException ia) {
-                return null;
-            }
-        }
-
-        if ("background-color".equals(key)) {
-            try {
-                final Integer color = parseCSSColor(value);
-                return (style, spanner) -> style.setBackgroundColor(color);
-            } catch (IllegalArgumentException ia) {
-                return null;
-            }
-        }
-
-        if ("align".equals(key) || "text-align".equals(key)) {
-            try {
-                final Style.TextAlignment alignment = Style.TextAlignment.valueOf(value.toUpperCase());
-                return (style, spanner) -> style.setTextAlignment(alignment);
-
-            } catch (IllegalArgumentException i) {
-                return null;
-            }
-        }
-
-        if ("font-weight".equals(key)) {
-
-            try {
-                final Style.FontWeight weight = Style.FontWeight.valueOf(value.toUpperCase());
-                return (style, spanner) -> style.setFontWeight(weight);
-
-            } catch (IllegalArgumentException i) {
-                return null;
-            }
-        }
-
-        if ("font-style".equals(key)) {
-            try {
-                final Style.FontStyle fontStyle = Style.FontStyle.valueOf(value.toUpperCase());
-                return (style, spanner) -> style.setFontStyle(fontStyle);
-            } catch (IllegalArgumentException i) {
-                return null;
-            }
-        }
-
-        if ("font-family".equals(key)) {
-            return (style, spanner) -> {
-                FontFamily family = spanner.getFont(value);
-                return style.setFontFamily(family);
-            };
-
-        }
-
-        if ("font-size".equals(key)) {
-
-            final StyleValue styleValue = StyleValue.parse(value);
-
-            if (styleValue != null) {
-
-                return (style, spanner) -> style.setFontSize(styleValue);
 
-            } else {
-
-                //Fonts have an extra legacy format where you just specify a plain number.
-                try {
-                    final float number = translateFontSize(Integer.parseInt(value));
-                    return (style, spanner) -> style.setFontSize(new StyleValue(number, StyleValue.Unit.EM));
-                } catch (NumberFormatException nfe) {
-                    return null;
-                }
-            }
-        }
-
-        if ("margin-bottom".equals(key)) {
-            final StyleValue styleValue = StyleValue.parse(value);
-            if (styleValue != null) {
-                return (style, spanner) -> style.setMarginBottom(styleValue);
-            }
-        }
-
-        if ("margin-top".equals(key)) {
-
-            final StyleValue styleValue = StyleValue.parse(value);
-
-            if (styleValue != null) {
-                return (style, spanner) -> style.setMarginTop(styleValue);
-            }
-        }
-
-        if ("margin-left".equals(key)) {
-
-            final StyleValue styleValue = StyleValue.parse(value);
-
-            if (styleValue != null) {
-                return (style, spanner) -> style.setMarginLeft(styleValue);
-            }
-        }
-
-        if ("margin-right".equals(key)) {
-
-            final StyleValue styleValue = StyleValue.parse(value);
-
-            if (styleValue != null) {
-                return (style, spanner) -> style.setMarginRight(styleValue);
-            }
-        }
-
-        if ("margin".equals(key)) {
-            return parseMargin(value);
-        }
-
-        if ("text-indent".equals(key)) {
-            final StyleValue styleValue = StyleValue.parse(value);
-
-            if (styleValue != null) {
-                return (style, spanner) -> style.setTextIndent(styleValue);
-            }
-        }
-
-        if ("display".equals(key)) {
-            try {
-                final Style.DisplayStyle displayStyle = Style.DisplayStyle.valueOf(value.toUpperCase());
-                return (style, spanner) -> style.setDisplayStyle(displayStyle);
-            } catch (IllegalArgumentException ia) {
-                return null;
-            }
-        }
-
-        if ("border-style".equals(key)) {
-            try {
-                final Style.BorderStyle borderStyle = Style.BorderStyle.valueOf(value.toUpperCase());
-                return (style, spanner) -> style.setBorderStyle(borderStyle);
-            } catch (IllegalArgumentException ia) {
-                return null;
-            }
-        }
-
-        if ("border-color".equals(key)) {
-            try {
-                final Integer borderColor = parseCSSColor(value);
-                return (style, spanner) -> style.setBorderColor(borderColor);
-            } catch (IllegalArgumentException ia) {
-                return null;
-            }
-        }
-
-        if ("border-width".equals(key)) {
-
-            final StyleValue borderWidth = StyleValue.parse(value);
-            if (borderWidth != null) {
-                return (style, spanner) -> style.setBorderWidth(borderWidth);
-            } else {
-                return null;
-            }
+        @Override
+        int getKeyType() {
+            return ID;
         }
 
-
-        if ("border".equals(key)) {
-            return parseBorder(value);
+        @Override
+        String getKey() {
+            return id;
         }
+    }
 
-        return null;
+    /**
+     * Returns an updater for the given declaration, or null if the
+     * property is unknown or the value isn't valid.
+     *
+     * @see PropertyRegistry
+     */
+    public static StyleUpdater getStyleUpdater(final String key, final String value) {
+        return PropertyRegistry.getStyleUpdater(key, value);
     }
 
-    private static float translateFontSize(int fontSize) {
+    static float translateFontSize(int fontSize) {
 
         switch (fontSize) {
             case 1:
@@ -364,7 +264,7 @@ public class CSSCompiler {
      * <p>
      * Border definitions are a complete mess, since the order is not set.
      */
-    private static StyleUpdater parseBorder(String borderDefinition) {
+    static StyleUpdater parseBorder(String borderDefinition) {
 
         String[] parts = borderDefinition.split("\\s");
 
@@ -384,11 +284,11 @@ public class CSSCompiler {
             }
 
             if (borderColor == null) {
-                try {
-                    borderColor = parseCSSColor(part);
+                long color = ColorParser.parse(part);
+
+                if (color != ColorParser.INVALID) {
+                    borderColor = (int) color;
                     continue;
-                } catch (IllegalArgumentException ia) {
-                    //try next one
                 }
             }
 
@@ -424,7 +324,7 @@ public class CSSCompiler {
 
     }
 
-    private static StyleUpdater parseMargin(String marginValue) {
+    static StyleUpdater parseMargin(String marginValue) {
 
         String[] parts = marginValue.split("\\s");
 
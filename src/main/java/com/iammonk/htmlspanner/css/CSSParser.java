@@ -22,6 +22,14 @@ import java.util.List;
 
 /**
  * Main logic for the CSS parser.
+ * <p>
+ * The parser makes a single pass over the input. Instead of looking at
+ * characters one by one, it scans ahead to the next character that matters
+ * in the current state and copies the whole run in between at once.
+ * <p>
+ * Like a browser, the parser recovers from errors: a broken declaration
+ * or rule is skipped, and parsing continues with the next one. Each
+ * problem can be reported as a ParseDiagnostic.
  *
  * @author <a href="mailto:christoffer@christoffer.me">Christoffer Pettersson</a>
  */
@@ -33,60 +41,74 @@ public final class CSSParser {
      *
      * @param css A String representation of CSS.
      * @return A list of Rules
-     * @throws Exception If any errors occur.
      */
 
-    public static List<Rule> parse(final String css) throws Exception {
-
-        CSSParser parser = new CSSParser();
-
-        List<Rule> rules = new ArrayList<Rule>();
-
-        if (css == null || css.trim().length() == 0) {
-            return rules;
-        }
-
-        for (int i = 0; i < css.length(); i++) {
-
-            char c = css.charAt(i);
+    public static List<Rule> parse(final String css) {
+        return parse(css, null);
+    }
 
-            if (i < css.length() - 1) {
+    /**
+     * Reads CSS and returns back a list of Rules.
+     *
+     * @param css The CSS text.
+     * @return A list of Rules
+     */
 
-                char nextC = css.charAt(i + 1);
-                parser.parse(rules, c, nextC);
+    public static List<Rule> parse(final CharSequence css) {
+        return parse(css, null);
+    }
 
-            } else {
+    /**
+     * Reads CSS and returns back a list of all Rules that could be parsed.
+     *
+     * @param css         The CSS text.
+     * @param diagnostics List to add the problems found to, or null.
+     * @return A list of Rules
+     */
 
-                parser.parse(rules, c, null);
+    public static List<Rule> parse(final CharSequence css, final List<ParseDiagnostic> diagnostics) {
 
-            }
+        List<Rule> rules = new ArrayList<Rule>();
 
+        if (css == null || isBlank(css)) {
+            return rules;
         }
 
+        new CSSParser(css, diagnostics).parse(rules);
+
         return rules;
     }
 
+    private final CharSequence css;
+    private final int length;
+    private final List<ParseDiagnostic> diagnostics;
+
     private final List<String> selectorNames;
-    private String selectorName;
-    private String propertyName;
-    private String valueName;
+    private final StringBuilder selectorName;
+    private final StringBuilder propertyName;
+    private final StringBuilder valueName;
     private final List<PropertyValue> values;
     private State state;
-    private Character previousChar;
-    private State beforeCommentMode;
+
+    // Index of the next character to read
+    private int pos;
+
+    private boolean ruleInvalid;
+    private boolean declarationInvalid;
 
     /**
      * Creates a new parser.
      */
 
-    private CSSParser() {
-        this.selectorName = "";
-        this.propertyName = "";
-        this.valueName = "";
+    private CSSParser(final CharSequence css, final List<ParseDiagnostic> diagnostics) {
+        this.css = css;
+        this.length = css.length();
+        this.diagnostics = diagnostics;
+        this.selectorName = new StringBuilder();
+        this.propertyName = new StringBuilder();
+        this.valueName = new StringBuilder();
         this.values = new ArrayList<>();
         this.state = State.INSIDE_SELECTOR;
-        this.previousChar = null;
-        this.beforeCommentMode = null;
         this.selectorNames = new ArrayList<>();
     }
 
@@ -94,93 +116,199 @@ public final class CSSParser {
      * Main parse logic.
      *
      * @param rules The list of rules.
-     * @param c     The current currency.
-     * @param nextC The next currency (or null).
-     * @throws Exception If any errors occurs.
      */
 
-    private void parse(final List<Rule> rules, final Character c, final Character nextC) throws Exception {
+    private void parse(final List<Rule> rules) {
+
+        // Start of the run of characters that haven't been copied yet
+        int runStart = 0;
+
+        while (pos < length) {
+
+            char c = css.charAt(pos);
+
+            // Special case if we find a comment
+            if (c == Chars.SLASH && pos + 1 < length && css.charAt(pos + 1) == Chars.STAR) {
+
+                currentBuffer().append(css, runStart, pos);
+
+                pos = skipComment(pos);
+                runStart = pos;
+
+                continue;
+            }
+
+            if (!isSpecial(c)) {
+                pos++;
+                continue;
+            }
 
-        // Special case if we find a comment
-        if (Chars.SLASH.equals(c) && Chars.STAR.equals(nextC)) {
+            currentBuffer().append(css, runStart, pos);
+            pos++;
+
+            switch (state) {
+
+                case INSIDE_SELECTOR: {
+                    parseSelector(c);
+                    break;
+                }
+                case INSIDE_PROPERTY_NAME: {
+                    parsePropertyName(rules, c);
+                    break;
+                }
+                case INSIDE_VALUE: {
+                    parseValue(rules, c);
+                    break;
+                }
+                case INSIDE_VALUE_ROUND_BRACKET: {
+                    parseValueInsideRoundBrackets(c);
+                    break;
+                }
 
-            // It's possible to find a comment in a comment
-            if (state != State.INSIDE_COMMENT) {
-                beforeCommentMode = state;
             }
 
-            state = State.INSIDE_COMMENT;
+            runStart = pos;
         }
 
+        currentBuffer().append(css, runStart, length);
+
+        parseEndOfInput(rules);
+    }
+
+    /**
+     * Returns true if the given character ends a run in the current state.
+     */
+
+    private boolean isSpecial(final char c) {
+
         switch (state) {
+            case INSIDE_SELECTOR:
+                return c == Chars.BRACKET_BEG || c == Chars.COMMA || c == Chars.SEMI_COLON;
+            case INSIDE_PROPERTY_NAME:
+                return c == Chars.COLON || c == Chars.SEMI_COLON || c == Chars.BRACKET_END
+                        || c == Chars.BRACKET_BEG;
+            case INSIDE_VALUE:
+                return c == Chars.SEMI_COLON || c == Chars.ROUND_BRACKET_BEG
+                        || c == Chars.COLON || c == Chars.BRACKET_END || c == Chars.BRACKET_BEG;
+            default:
+                return c == Chars.ROUND_BRACKET_END;
+        }
+    }
 
-            case INSIDE_SELECTOR: {
-                parseSelector(c);
-                break;
-            }
-            case INSIDE_COMMENT: {
-                parseComment(c);
-                break;
-            }
-            case INSIDE_PROPERTY_NAME: {
-                parsePropertyName(rules, c);
-                break;
+    /**
+     * Returns the buffer that characters are collected in for the current state.
+     */
+
+    private StringBuilder currentBuffer() {
+
+        switch (state) {
+            case INSIDE_SELECTOR:
+                return selectorName;
+            case INSIDE_PROPERTY_NAME:
+                return propertyName;
+            default:
+                return valueName;
+        }
+    }
+
+    /**
+     * Skips a comment.
+     *
+     * @param start The index of the opening '/'.
+     * @return The index right after the closing '/', or the end of the input.
+     */
+
+    private int skipComment(final int start) {
+
+        for (int i = start + 2; i < length; i++) {
+            if (css.charAt(i) == Chars.SLASH && css.charAt(i - 1) == Chars.STAR) {
+                return i + 1;
             }
-            case INSIDE_VALUE: {
-                parseValue(c);
-                break;
+        }
+
+        report(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT, start,
+                "The comment was never closed.");
+
+        return length;
+    }
+
+    /**
+     * Skips a {} block, including any blocks nested inside it.
+     *
+     * @param start The index right after the opening '{'.
+     * @return The index right after the matching '}', or the end of the input.
+     */
+
+    private int skipBlock(final int start) {
+
+        int depth = 1;
+        int i = start;
+
+        while (i < length) {
+
+            char c = css.charAt(i);
+
+            if (c == Chars.SLASH && i + 1 < length && css.charAt(i + 1) == Chars.STAR) {
+                i = skipComment(i);
+                continue;
             }
-            case INSIDE_VALUE_ROUND_BRACKET: {
-                parseValueInsideRoundBrackets(c);
-                break;
+
+            if (c == Chars.BRACKET_BEG) {
+                depth++;
+            } else if (c == Chars.BRACKET_END) {
+                depth--;
+
+                if (depth == 0) {
+                    return i + 1;
+                }
             }
 
+            i++;
         }
 
-        // Save the previous character
-        previousChar = c;
+        report(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT, start - 1,
+                "The block was never closed.");
 
+        return length;
     }
 
     /**
      * Parse a value.
      *
-     * @param c The current character.
-     * @throws IncorrectFormatException If any errors occur.
+     * @param rules The list of rules.
+     * @param c     The current character.
      */
 
-    private void parseValue(final Character c) throws IncorrectFormatException {
-
-        // Special case if the value is a data uri, the value can contain a ;
-        //		boolean valueHasDataURI = valueName.toLowerCase().indexOf("data:") != -1;
-
-        if (Chars.SEMI_COLON.equals(c)) {
+    private void parseValue(final List<Rule> rules, final char c) {
 
-            // Store it in the values map
-            PropertyValue pv = new PropertyValue(propertyName.trim(), valueName.trim());
-            values.add(pv);
-            propertyName = "";
-            valueName = "";
+        if (c == Chars.SEMI_COLON) {
 
+            endDeclaration();
             state = State.INSIDE_PROPERTY_NAME;
 
-        } else if (Chars.ROUND_BRACKET_BEG.equals(c)) {
+        } else if (c == Chars.ROUND_BRACKET_BEG) {
 
-            valueName += Chars.ROUND_BRACKET_BEG;
+            valueName.append(Chars.ROUND_BRACKET_BEG);
 
             state = State.INSIDE_VALUE_ROUND_BRACKET;
 
-        } else if (Chars.COLON.equals(c)) {
+        } else if (c == Chars.COLON) {
+
+            if (!declarationInvalid) {
+                report(IncorrectFormatException.ErrorCode.FOUND_COLON_WHILE_READING_VALUE, pos - 1, "The value '" + trim(valueName) + "' for property '" + trim(propertyName) + "' in the selector '" + currentSelector() + "' had a ':' character.");
+                declarationInvalid = true;
+            }
 
-            throw new IncorrectFormatException(IncorrectFormatException.ErrorCode.FOUND_COLON_WHILE_READING_VALUE, "The value '" + valueName.trim() + "' for property '" + propertyName.trim() + "' in the selector '" + selectorName.trim() + "' had a ':' character.");
+        } else if (c == Chars.BRACKET_END) {
 
-        } else if (Chars.BRACKET_END.equals(c)) {
+            // The last declaration doesn't need a ';'
+            endDeclaration();
+            endRule(rules);
 
-            throw new IncorrectFormatException(IncorrectFormatException.ErrorCode.FOUND_END_BRACKET_BEFORE_SEMICOLON, "The value '" + valueName.trim() + "' for property '" + propertyName.trim() + "' in the selector '" + selectorName.trim() + "' should end with an ';', not with '}'.");
+        } else if (c == Chars.BRACKET_BEG) {
 
-        } else {
+            skipBlockInDeclaration();
 
-            valueName += c;
         }
 
     }
@@ -189,20 +317,15 @@ public final class CSSParser {
      * Parse value inside a round bracket (
      *
      * @param c The current character.
-     * @throws IncorrectFormatException If any error occurs.
      */
 
-    private void parseValueInsideRoundBrackets(final Character c) throws IncorrectFormatException {
+    private void parseValueInsideRoundBrackets(final char c) {
 
-        if (Chars.ROUND_BRACKET_END.equals(c)) {
+        if (c == Chars.ROUND_BRACKET_END) {
 
-            valueName += Chars.ROUND_BRACKET_END;
+            valueName.append(Chars.ROUND_BRACKET_END);
             state = State.INSIDE_VALUE;
 
-        } else {
-
-            valueName += c;
-
         }
     }
 
@@ -211,90 +334,258 @@ public final class CSSParser {
      *
      * @param rules The list of rules.
      * @param c     The current character.
-     * @throws IncorrectFormatException If any error occurs
      */
 
-    private void parsePropertyName(final List<Rule> rules, final Character c) throws IncorrectFormatException {
+    private void parsePropertyName(final List<Rule> rules, final char c) {
 
-        if (Chars.COLON.equals(c)) {
+        if (c == Chars.COLON) {
             state = State.INSIDE_VALUE;
 
-        } else if (Chars.SEMI_COLON.equals(c)) {
+        } else if (c == Chars.SEMI_COLON) {
 
-            throw new IncorrectFormatException(IncorrectFormatException.ErrorCode.FOUND_SEMICOLON_WHEN_READING_PROPERTY_NAME, "Unexpected character '" + c + "' for property '" + propertyName.trim() + "' in the selector '" + selectorName.trim() + "' should end with an ';', not with '}'.");
-
-        } else if (Chars.BRACKET_END.equals(c)) {
+            // Empty declarations are allowed, a name without a value isn't
+            if (!declarationInvalid && trim(propertyName).length() > 0) {
+                report(IncorrectFormatException.ErrorCode.FOUND_SEMICOLON_WHEN_READING_PROPERTY_NAME, pos - 1, "Unexpected character '" + c + "' for property '" + trim(propertyName) + "' in the selector '" + currentSelector() + "'.");
+            }
 
-            Rule rule = new Rule();
+            propertyName.setLength(0);
+            declarationInvalid = false;
 
-            /*
-             * Huge logic to create a new rule
-             */
+        } else if (c == Chars.BRACKET_END) {
 
-            for (String s : selectorNames) {
-                Selector selector = new Selector(s.trim());
-                rule.addSelector(selector);
+            if (!declarationInvalid && trim(propertyName).length() > 0) {
+                report(IncorrectFormatException.ErrorCode.MISSING_COLON_IN_DECLARATION, pos - 1, "The property '" + trim(propertyName) + "' in the selector '" + currentSelector() + "' has no value.");
             }
-            selectorNames.clear();
 
-            Selector selector = new Selector(selectorName.trim());
-            selectorName = "";
-            rule.addSelector(selector);
+            endRule(rules);
+
+        } else if (c == Chars.BRACKET_BEG) {
+
+            skipBlockInDeclaration();
+
+        }
+
+    }
 
-            // Add the property values
-            for (PropertyValue pv : values) {
-                rule.addPropertyValue(pv);
+    /**
+     * Parse a selector.
+     *
+     * @param c The current character.
+     */
+
+    private void parseSelector(final char c) {
+
+        if (c == Chars.BRACKET_BEG) {
+
+            if (isAtRule()) {
+                report(IncorrectFormatException.ErrorCode.FOUND_AT_RULE, pos - 1, "The at-rule '" + currentSelector() + "' is not supported.");
+
+                pos = skipBlock(pos);
+                resetSelector();
+
+                return;
             }
-            values.clear();
 
-            if (!rule.getPropertyValues().isEmpty()) {
-                rules.add(rule);
+            if (!ruleInvalid && !selectorNames.isEmpty() && trim(selectorName).length() == 0) {
+                report(IncorrectFormatException.ErrorCode.FOUND_COLON_WHEN_READING_SELECTOR_NAME, pos - 1, "Found an ',' in a selector name without any actual name after it.");
+                ruleInvalid = true;
             }
 
-            state = State.INSIDE_SELECTOR;
+            state = State.INSIDE_PROPERTY_NAME;
 
-        } else {
-            propertyName += c;
+        } else if (c == Chars.COMMA) {
+            String name = trim(selectorName);
 
+            if (name.length() == 0) {
+                if (!ruleInvalid) {
+                    report(IncorrectFormatException.ErrorCode.FOUND_COLON_WHEN_READING_SELECTOR_NAME, pos - 1, "Found an ',' in a selector name without any actual name before it.");
+                    ruleInvalid = true;
+                }
+            } else {
+                selectorNames.add(name);
+            }
+
+            selectorName.setLength(0);
+
+        } else if (c == Chars.SEMI_COLON) {
+
+            // Statement at-rules like @import end with a ';'
+            if (isAtRule()) {
+                report(IncorrectFormatException.ErrorCode.FOUND_AT_RULE, pos - 1, "The at-rule '" + currentSelector() + "' is not supported.");
+                resetSelector();
+            } else {
+                selectorName.append(c);
+            }
         }
 
     }
 
     /**
-     * Parse a selector.
+     * Called when the input ends, to close any open rule the way a browser would.
      *
-     * @param c The current character.
+     * @param rules The list of rules.
      */
 
-    private void parseComment(final Character c) {
-        if (Chars.STAR.equals(previousChar) && Chars.SLASH.equals(c)) {
-            state = beforeCommentMode;
+    private void parseEndOfInput(final List<Rule> rules) {
+
+        if (state == State.INSIDE_SELECTOR) {
+
+            if (trim(selectorName).length() > 0 || !selectorNames.isEmpty()) {
+                report(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT, length, "The selector '" + currentSelector() + "' has no declarations.");
+            }
+
+            return;
         }
 
+        report(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT, length, "The rule for selector '" + currentSelector() + "' was never closed.");
+
+        if (state != State.INSIDE_PROPERTY_NAME) {
+            endDeclaration();
+        }
+
+        endRule(rules);
     }
 
     /**
-     * Parse a selector.
+     * Skips a block that was found in a declaration, which makes the declaration invalid.
+     */
+
+    private void skipBlockInDeclaration() {
+
+        if (!declarationInvalid) {
+            report(IncorrectFormatException.ErrorCode.FOUND_BLOCK_IN_DECLARATION, pos - 1, "Found a '{' in a declaration in the selector '" + currentSelector() + "'.");
+            declarationInvalid = true;
+        }
+
+        pos = skipBlock(pos);
+    }
+
+    /**
+     * Stores the current declaration, unless it was invalid.
+     */
+
+    private void endDeclaration() {
+
+        if (!declarationInvalid) {
+            // Store it in the values map
+            PropertyValue pv = new PropertyValue(trim(propertyName), trim(valueName));
+            values.add(pv);
+        }
+
+        propertyName.setLength(0);
+        valueName.setLength(0);
+        declarationInvalid = false;
+    }
+
+    /**
+     * Creates a Rule from the selectors and declarations read so far,
+     * unless the selector was invalid.
      *
-     * @param c The current character.
-     * @throws IncorrectFormatException If an error occurs.
+     * @param rules The list of rules.
      */
 
-    private void parseSelector(final Character c) throws IncorrectFormatException {
+    private void endRule(final List<Rule> rules) {
 
-        if (Chars.BRACKET_BEG.equals(c)) {
-            state = State.INSIDE_PROPERTY_NAME;
-        } else if (Chars.COMMA.equals(c)) {
-            if (selectorName.trim().length() == 0) {
-                throw new IncorrectFormatException(IncorrectFormatException.ErrorCode.FOUND_COLON_WHEN_READING_SELECTOR_NAME, "Found an ',' in a selector name without any actual name before it.");
-            }
+        Rule rule = new Rule();
+
+        /*
+         * Huge logic to create a new rule
+         */
+
+        for (String s : selectorNames) {
+            Selector selector = new Selector(s);
+            rule.addSelector(selector);
+        }
+
+        Selector selector = new Selector(trim(selectorName));
+        rule.addSelector(selector);
+
+        // Add the property values
+        for (PropertyValue pv : values) {
+            rule.addPropertyValue(pv);
+        }
+        values.clear();
+
+        // Anything between the last ';' and the '}' is dropped
+        propertyName.setLength(0);
+        declarationInvalid = false;
+
+        if (!ruleInvalid && !rule.getPropertyValues().isEmpty()) {
+            rules.add(rule);
+        }
+
+        resetSelector();
+        state = State.INSIDE_SELECTOR;
+    }
+
+    private void resetSelector() {
+        selectorNames.clear();
+        selectorName.setLength(0);
+        ruleInvalid = false;
+    }
+
+    private boolean isAtRule() {
+
+        String first = selectorNames.isEmpty() ? trim(selectorName) : selectorNames.get(0);
+
+        return first.length() > 0 && first.charAt(0) == '@';
+    }
+
+    /**
+     * Returns the selector that is currently being read, for use in messages.
+     */
+
+    private String currentSelector() {
 
-            selectorNames.add(selectorName.trim());
-            selectorName = "";
-        } else {
-            selectorName += c;
+        if (selectorNames.isEmpty()) {
+            return trim(selectorName);
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (String name : selectorNames) {
+            result.append(name).append(", ");
+        }
+
+        return result.append(trim(selectorName)).toString();
+    }
+
+    private void report(final IncorrectFormatException.ErrorCode errorCode, final int offset, final String message) {
+        if (diagnostics != null) {
+            diagnostics.add(new ParseDiagnostic(errorCode, offset, message));
+        }
+    }
+
+    /**
+     * Returns the contents of the buffer without leading and trailing
+     * whitespace, like String.trim().
+     */
+
+    private static String trim(final StringBuilder buffer) {
+
+        int start = 0;
+        int end = buffer.length();
+
+        while (start < end && buffer.charAt(start) <= ' ') {
+            start++;
+        }
+
+        while (end > start && buffer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        return buffer.substring(start, end);
+    }
+
+    private static boolean isBlank(final CharSequence css) {
+
+        for (int i = 0; i < css.length(); i++) {
+            if (css.charAt(i) > ' ') {
+                return false;
+            }
         }
 
+        return true;
     }
 
 }
@@ -0,0 +1,479 @@
+package com.iammonk.htmlspanner.css;
+
+/**
+ * Parser for CSS colour values.
+ * <p>
+ * Understands #rgb, #rgba, #rrggbb and #rrggbbaa, the rgb(), rgba(),
+ * hsl() and hsla() functions (with commas or spaces between the
+ * arguments) and all CSS named colours. Parsing doesn't allocate, and
+ * a value that isn't a colour gives INVALID instead of an exception.
+ * <p>
+ * This class doesn't depend on Android, so it can also be used on a
+ * plain JVM.
+ */
+public final class ColorParser {
+
+    /**
+     * Returned by parse() for values that aren't colours.
+     */
+    public static final long INVALID = -1L;
+
+    //Sorted, so they can be searched with a binary search
+    private static final String[] NAMES = {
+            "aliceblue", "antiquewhite", "aqua", "aquamarine", "azure", "beige", "bisque", "black",
+            "blanchedalmond", "blue", "blueviolet", "brown", "burlywood", "cadetblue", "chartreuse",
+            "chocolate", "coral", "cornflowerblue", "cornsilk", "crimson", "cyan", "darkblue",
+            "darkcyan", "darkgoldenrod", "darkgray", "darkgreen", "darkgrey", "darkkhaki",
+            "darkmagenta", "darkolivegreen", "darkorange", "darkorchid", "darkred", "darksalmon",
+            "darkseagreen", "darkslateblue", "darkslategray", "darkslategrey", "darkturquoise",
+            "darkviolet", "deeppink", "deepskyblue", "dimgray", "dimgrey", "dodgerblue",
+            "firebrick", "floralwhite", "forestgreen", "fuchsia", "gainsboro", "ghostwhite", "gold",
+            "goldenrod", "gray", "green", "greenyellow", "grey", "honeydew", "hotpink", "indianred",
+            "indigo", "ivory", "khaki", "lavender", "lavenderblush", "lawngreen", "lemonchiffon",
+            "lightblue", "lightcoral", "lightcyan", "lightgoldenrodyellow", "lightgray",
+            "lightgreen", "lightgrey", "lightpink", "lightsalmon", "lightseagreen", "lightskyblue",
+            "lightslategray", "lightslategrey", "lightsteelblue", "lightyellow", "lime",
+            "limegreen", "linen", "magenta", "maroon", "mediumaquamarine", "mediumblue",
+            "mediumorchid", "mediumpurple", "mediumseagreen", "mediumslateblue",
+            "mediumspringgreen", "mediumturquoise", "mediumvioletred", "midnightblue", "mintcream",
+            "mistyrose", "moccasin", "navajowhite", "navy", "oldlace", "olive", "olivedrab",
+            "orange", "orangered", "orchid", "palegoldenrod", "palegreen", "paleturquoise",
+            "palevioletred", "papayawhip", "peachpuff", "peru", "pink", "plum", "powderblue",
+            "purple", "rebeccapurple", "red", "rosybrown", "royalblue", "saddlebrown", "salmon",
+            "sandybrown", "seagreen", "seashell", "sienna", "silver", "skyblue", "slateblue",
+            "slategray", "slategrey", "snow", "springgreen", "steelblue", "tan", "teal", "thistle",
+            "tomato", "transparent", "turquoise", "violet", "wheat", "white", "whitesmoke",
+            "yellow", "yellowgreen"
+    };
+
+    private static final int[] VALUES = {
+            0xFFF0F8FF, 0xFFFAEBD7, 0xFF00FFFF, 0xFF7FFFD4, 0xFFF0FFFF, 0xFFF5F5DC, 0xFFFFE4C4,
+            0xFF000000, 0xFFFFEBCD, 0xFF0000FF, 0xFF8A2BE2, 0xFFA52A2A, 0xFFDEB887, 0xFF5F9EA0,
+            0xFF7FFF00, 0xFFD2691E, 0xFFFF7F50, 0xFF6495ED, 0xFFFFF8DC, 0xFFDC143C, 0xFF00FFFF,
+            0xFF00008B, 0xFF008B8B, 0xFFB8860B, 0xFFA9A9A9, 0xFF006400, 0xFFA9A9A9, 0xFFBDB76B,
+            0xFF8B008B, 0xFF556B2F, 0xFFFF8C00, 0xFF9932CC, 0xFF8B0000, 0xFFE9967A, 0xFF8FBC8F,
+            0xFF483D8B, 0xFF2F4F4F, 0xFF2F4F4F, 0xFF00CED1, 0xFF9400D3, 0xFFFF1493, 0xFF00BFFF,
+            0xFF696969, 0xFF696969, 0xFF1E90FF, 0xFFB22222, 0xFFFFFAF0, 0xFF228B22, 0xFFFF00FF,
+            0xFFDCDCDC, 0xFFF8F8FF, 0xFFFFD700, 0xFFDAA520, 0xFF808080, 0xFF008000, 0xFFADFF2F,
+            0xFF808080, 0xFFF0FFF0, 0xFFFF69B4, 0xFFCD5C5C, 0xFF4B0082, 0xFFFFFFF0, 0xFFF0E68C,
+            0xFFE6E6FA, 0xFFFFF0F5, 0xFF7CFC00, 0xFFFFFACD, 0xFFADD8E6, 0xFFF08080, 0xFFE0FFFF,
+            0xFFFAFAD2, 0xFFD3D3D3, 0xFF90EE90, 0xFFD3D3D3, 0xFFFFB6C1, 0xFFFFA07A, 0xFF20B2AA,
+            0xFF87CEFA, 0xFF778899, 0xFF778899, 0xFFB0C4DE, 0xFFFFFFE0, 0xFF00FF00, 0xFF32CD32,
+            0xFFFAF0E6, 0xFFFF00FF, 0xFF800000, 0xFF66CDAA, 0xFF0000CD, 0xFFBA55D3, 0xFF9370DB,
+            0xFF3CB371, 0xFF7B68EE, 0xFF00FA9A, 0xFF48D1CC, 0xFFC71585, 0xFF191970, 0xFFF5FFFA,
+            0xFFFFE4E1, 0xFFFFE4B5, 0xFFFFDEAD, 0xFF000080, 0xFFFDF5E6, 0xFF808000, 0xFF6B8E23,
+            0xFFFFA500, 0xFFFF4500, 0xFFDA70D6, 0xFFEEE8AA, 0xFF98FB98, 0xFFAFEEEE, 0xFFDB7093,
+            0xFFFFEFD5, 0xFFFFDAB9, 0xFFCD853F, 0xFFFFC0CB, 0xFFDDA0DD, 0xFFB0E0E6, 0xFF800080,
+            0xFF663399, 0xFFFF0000, 0xFFBC8F8F, 0xFF4169E1, 0xFF8B4513, 0xFFFA8072, 0xFFF4A460,
+            0xFF2E8B57, 0xFFFFF5EE, 0xFFA0522D, 0xFFC0C0C0, 0xFF87CEEB, 0xFF6A5ACD, 0xFF708090,
+            0xFF708090, 0xFFFFFAFA, 0xFF00FF7F, 0xFF4682B4, 0xFFD2B48C, 0xFF008080, 0xFFD8BFD8,
+            0xFFFF6347, 0x00000000, 0xFF40E0D0, 0xFFEE82EE, 0xFFF5DEB3, 0xFFFFFFFF, 0xFFF5F5F5,
+            0xFFFFFF00, 0xFF9ACD32
+    };
+
+    private ColorParser() {
+    }
+
+    /**
+     * Parses a CSS colour.
+     *
+     * @return the colour as an ARGB int in the lower 32 bits of the
+     * result (so it is never negative), or INVALID.
+     */
+    public static long parse(CharSequence value) {
+
+        if (value == null) {
+            return INVALID;
+        }
+
+        int start = 0;
+        int end = value.length();
+
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            return INVALID;
+        }
+
+        if (value.charAt(start) == '#') {
+            return parseHex(value, start + 1, end);
+        }
+
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == '(') {
+                return parseFunction(value, start, i, end);
+            }
+        }
+
+        return parseName(value, start, end);
+    }
+
+    private static long parseHex(CharSequence value, int start, int end) {
+
+        int red;
+        int green;
+        int blue;
+        int alpha = 0xFF;
+
+        switch (end - start) {
+            case 3:
+            case 4:
+                red = hexDigit(value.charAt(start)) * 0x11;
+                green = hexDigit(value.charAt(start + 1)) * 0x11;
+                blue = hexDigit(value.charAt(start + 2)) * 0x11;
+
+                if (end - start == 4) {
+                    alpha = hexDigit(value.charAt(start + 3)) * 0x11;
+                }
+                break;
+            case 6:
+            case 8:
+                red = hexByte(value, start);
+                green = hexByte(value, start + 2);
+                blue = hexByte(value, start + 4);
+
+                if (end - start == 8) {
+                    alpha = hexByte(value, start + 6);
+                }
+                break;
+            default:
+                return INVALID;
+        }
+
+        if (red < 0 || green < 0 || blue < 0 || alpha < 0) {
+            return INVALID;
+        }
+
+        return argb(alpha, red, green, blue);
+    }
+
+    private static int hexByte(CharSequence value, int index) {
+
+        int high = hexDigit(value.charAt(index));
+        int low = hexDigit(value.charAt(index + 1));
+
+        if (high < 0 || low < 0) {
+            return -1;
+        }
+
+        return (high << 4) | low;
+    }
+
+    private static int hexDigit(char c) {
+
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+
+        //Large enough to stay negative after multiplying by 0x11
+        return -0x100;
+    }
+
+    /**
+     * Parses rgb(), rgba(), hsl() and hsla().
+     *
+     * @param paren the index of the opening bracket.
+     */
+    private static long parseFunction(CharSequence value, int start, int paren, int end) {
+
+        int nameEnd = paren;
+        while (nameEnd > start && value.charAt(nameEnd - 1) <= ' ') {
+            nameEnd--;
+        }
+
+        boolean hsl;
+
+        if (matches(value, start, nameEnd, "rgb") || matches(value, start, nameEnd, "rgba")) {
+            hsl = false;
+        } else if (matches(value, start, nameEnd, "hsl") || matches(value, start, nameEnd, "hsla")) {
+            hsl = true;
+        } else {
+            return INVALID;
+        }
+
+        int close = end - 1;
+
+        if (value.charAt(close) != ')') {
+            return INVALID;
+        }
+
+        float first = 0f;
+        float second = 0f;
+        float third = 0f;
+        float alpha = 1f;
+
+        int percentages = 0;
+        int count = 0;
+        int i = paren + 1;
+
+        while (true) {
+
+            i = skipWhitespace(value, i, close);
+
+            if (i == close) {
+                break;
+            }
+
+            if (count == 4) {
+                return INVALID;
+            }
+
+            int numberEnd = scanNumber(value, i, close);
+
+            if (numberEnd < 0) {
+                return INVALID;
+            }
+
+            float number = parseNumber(value, i, numberEnd);
+            i = numberEnd;
+
+            if (i < close && value.charAt(i) == '%') {
+                percentages |= 1 << count;
+                i++;
+            } else if (hsl && count == 0 && matches(value, i, Math.min(i + 3, close), "deg")) {
+                i += 3;
+            }
+
+            switch (count) {
+                case 0:
+                    first = number;
+                    break;
+                case 1:
+                    second = number;
+                    break;
+                case 2:
+                    third = number;
+                    break;
+                default:
+                    alpha = number;
+                    break;
+            }
+
+            count++;
+
+            i = skipWhitespace(value, i, close);
+
+            if (i < close && (value.charAt(i) == ',' || value.charAt(i) == '/')) {
+                i++;
+            }
+        }
+
+        if (count < 3) {
+            return INVALID;
+        }
+
+        if ((percentages & (1 << 3)) != 0) {
+            alpha = alpha / 100f;
+        }
+
+        int alphaByte = Math.round(clamp(alpha, 0f, 1f) * 255f);
+
+        if (hsl) {
+            return hslToArgb(alphaByte, first, second / 100f, third / 100f);
+        }
+
+        return argb(alphaByte,
+                rgbComponent(first, (percentages & 1) != 0),
+                rgbComponent(second, (percentages & 2) != 0),
+                rgbComponent(third, (percentages & 4) != 0));
+    }
+
+    private static int rgbComponent(float number, boolean percentage) {
+
+        if (percentage) {
+            number = number * 255f / 100f;
+        }
+
+        return Math.round(clamp(number, 0f, 255f));
+    }
+
+    private static long hslToArgb(int alpha, float hue, float saturation, float lightness) {
+
+        float h = (hue % 360f) / 360f;
+        if (h < 0) {
+            h += 1f;
+        }
+
+        float s = clamp(saturation, 0f, 1f);
+        float l = clamp(lightness, 0f, 1f);
+
+        float q = l < 0.5f ? l * (1f + s) : l + s - l * s;
+        float p = 2f * l - q;
+
+        return argb(alpha,
+                Math.round(hueToRgb(p, q, h + 1f / 3f) * 255f),
+                Math.round(hueToRgb(p, q, h) * 255f),
+                Math.round(hueToRgb(p, q, h - 1f / 3f) * 255f));
+    }
+
+    private static float hueToRgb(float p, float q, float t) {
+
+        if (t < 0f) {
+            t += 1f;
+        }
+
+        if (t > 1f) {
+            t -= 1f;
+        }
+
+        if (t < 1f / 6f) {
+            return p + (q - p) * 6f * t;
+        }
+
+        if (t < 1f / 2f) {
+            return q;
+        }
+
+        if (t < 2f / 3f) {
+            return p + (q - p) * (2f / 3f - t) * 6f;
+        }
+
+        return p;
+    }
+
+    /**
+     * Returns the index after the number starting at start, or -1 if
+     * there is no number there.
+     */
+    private static int scanNumber(CharSequence value, int start, int end) {
+
+        int i = start;
+
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+
+        int digits = 0;
+
+        while (i < end && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+
+        if (i < end && value.charAt(i) == '.') {
+            i++;
+
+            while (i < end && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+
+        return digits > 0 ? i : -1;
+    }
+
+    /**
+     * Parses a number that was found by scanNumber().
+     */
+    private static float parseNumber(CharSequence value, int start, int end) {
+
+        int i = start;
+        boolean negative = false;
+
+        if (value.charAt(i) == '-' || value.charAt(i) == '+') {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        float result = 0f;
+
+        while (i < end && isDigit(value.charAt(i))) {
+            result = result * 10f + (value.charAt(i) - '0');
+            i++;
+        }
+
+        if (i < end && value.charAt(i) == '.') {
+            i++;
+
+            float scale = 0.1f;
+
+            while (i < end) {
+                result += (value.charAt(i) - '0') * scale;
+                scale /= 10f;
+                i++;
+            }
+        }
+
+        return negative ? -result : result;
+    }
+
+    private static long parseName(CharSequence value, int start, int end) {
+
+        int low = 0;
+        int high = NAMES.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(value, start, end, NAMES[middle]);
+
+            if (comparison == 0) {
+                return VALUES[middle] & 0xFFFFFFFFL;
+            } else if (comparison > 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return INVALID;
+    }
+
+    /**
+     * Compares a region of the value, ignoring case, to a lower case name.
+     */
+    private static int compare(CharSequence value, int start, int end, String name) {
+
+        int length = Math.min(end - start, name.length());
+
+        for (int i = 0; i < length; i++) {
+            int difference = toLowerCase(value.charAt(start + i)) - name.charAt(i);
+
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return (end - start) - name.length();
+    }
+
+    private static boolean matches(CharSequence value, int start, int end, String name) {
+        return end - start == name.length() && compare(value, start, end, name) == 0;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipWhitespace(CharSequence value, int start, int end) {
+
+        int i = start;
+
+        while (i < end && value.charAt(i) <= ' ') {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+
+    private static long argb(int alpha, int red, int green, int blue) {
+        return ((alpha << 24) | (red << 16) | (green << 8) | blue) & 0xFFFFFFFFL;
+    }
+}
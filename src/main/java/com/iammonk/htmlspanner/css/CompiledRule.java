@@ -1,6 +1,5 @@
 package com.iammonk.htmlspanner.css;
 
-import com.iammonk.htmlspanner.HtmlSpanner;
 import com.iammonk.htmlspanner.style.Style;
 
 import org.htmlcleaner.TagNode;
@@ -12,24 +11,55 @@ import java.util.List;
  * A Compiled CSS Rule.
  * <p>
  * A CompiledRule consists of a numbers of matchers which can match TagNodes,
- * and StyleUpdaters which can update a Style object if the rule matches.
+ * and a style delta holding the properties the rule sets. The delta is
+ * computed once when the rule is compiled, and merged into the Style of
+ * every node the rule matches.
  */
 public class CompiledRule {
 
     private final List<List<CSSCompiler.TagNodeMatcher>> matchers;
-    private final List<CSSCompiler.StyleUpdater> styleUpdaters;
+    private final Style styleDelta;
 
-    private final HtmlSpanner spanner;
+    /**
+     * For each matcher chain, the hashes of the keys its parents need to have.
+     */
+    private final int[][] ancestorKeys;
 
     private final String asText;
 
-    CompiledRule(HtmlSpanner spanner, List<List<CSSCompiler.TagNodeMatcher>> matchers,
-                 List<CSSCompiler.StyleUpdater> styleUpdaters, String asText) {
+    CompiledRule(List<List<CSSCompiler.TagNodeMatcher>> matchers, Style styleDelta, String asText) {
 
-        this.spanner = spanner;
         this.matchers = matchers;
-        this.styleUpdaters = styleUpdaters;
+        this.styleDelta = styleDelta;
         this.asText = asText;
+
+        this.ancestorKeys = new int[matchers.size()][];
+        for (int i = 0; i < matchers.size(); i++) {
+            this.ancestorKeys[i] = getAncestorKeys(matchers.get(i));
+        }
+    }
+
+    private static int[] getAncestorKeys(List<CSSCompiler.TagNodeMatcher> chain) {
+
+        List<Integer> hashes = new ArrayList<>();
+
+        for (int i = 1; i < chain.size(); i++) {
+
+            if (chain.get(i) instanceof CSSCompiler.KeyedMatcher) {
+                CSSCompiler.KeyedMatcher matcher = (CSSCompiler.KeyedMatcher) chain.get(i);
+
+                if (matcher.getKey() != null) {
+                    hashes.add(AncestorFilter.hash(matcher.getKeyType(), matcher.getKey()));
+                }
+            }
+        }
+
+        int[] result = new int[hashes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = hashes.get(i);
+        }
+
+        return result;
     }
 
     public String toString() {
@@ -37,17 +67,27 @@ public class CompiledRule {
     }
 
     public Style applyStyle(final Style style) {
+        return style.merge(styleDelta);
+    }
 
-        Style result = style;
+    /**
+     * Returns a Style holding only the properties this rule sets.
+     */
+    public Style getStyleDelta() {
+        return styleDelta;
+    }
 
-        for (CSSCompiler.StyleUpdater updater : styleUpdaters) {
-            result = updater.updateStyle(result, spanner);
-        }
 
-        return result;
+    /**
+     * Returns the matcher chains of this rule, one per selector.
+     * <p>
+     * Each chain starts with the matcher for the node itself,
+     * followed by the matchers for its parents.
+     */
+    List<List<CSSCompiler.TagNodeMatcher>> getMatchers() {
+        return matchers;
     }
 
-
     public boolean matches(TagNode tagNode) {
 
         for (List<CSSCompiler.TagNodeMatcher> matcherList : matchers) {
@@ -59,6 +99,28 @@ public class CompiledRule {
         return false;
     }
 
+    /**
+     * Checks if this rule matches the given node, using the filter
+     * to skip selectors which need parents that aren't there.
+     *
+     * @param ancestors filter holding the ancestors of tagNode
+     */
+    public boolean matches(TagNode tagNode, AncestorFilter ancestors) {
+
+        for (int i = 0; i < matchers.size(); i++) {
+
+            if (ancestorKeys[i].length > 0 && !ancestors.mightContainAll(ancestorKeys[i])) {
+                continue;
+            }
+
+            if (matchesChain(matchers.get(i), tagNode)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private static boolean matchesChain(List<CSSCompiler.TagNodeMatcher> matchers, TagNode tagNode) {
 
         TagNode nodeToMatch = tagNode;
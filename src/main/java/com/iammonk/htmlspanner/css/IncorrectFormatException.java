@@ -19,6 +19,9 @@ package com.iammonk.htmlspanner.css;
 
 /**
  * An exception that is thrown when the CSS parser finds a character it shouldn't have.
+ * <p>
+ * The parser itself now recovers from such problems and reports them as
+ * ParseDiagnostics, which use the same ErrorCodes.
  *
  * @author <a href="mailto:christoffer@christoffer.me">Christoffer Pettersson</a>
  */
@@ -77,7 +80,27 @@ public class IncorrectFormatException extends Exception {
         /**
          * When the parse the value a colon : was found.
          */
-        FOUND_COLON_WHILE_READING_VALUE;
+        FOUND_COLON_WHILE_READING_VALUE,
+
+        /**
+         * When a declaration ends without a colon : separating property and value.
+         */
+        MISSING_COLON_IN_DECLARATION,
+
+        /**
+         * When a { block was found inside a declaration.
+         */
+        FOUND_BLOCK_IN_DECLARATION,
+
+        /**
+         * When an at-rule like @media or @import was found, which isn't supported.
+         */
+        FOUND_AT_RULE,
+
+        /**
+         * When the input ended inside a rule or a comment.
+         */
+        UNEXPECTED_END_OF_INPUT;
 
     }
 
@@ -0,0 +1,40 @@
+package com.iammonk.htmlspanner.css;
+
+/**
+ * Problem found by the CSSParser.
+ * <p>
+ * The parser doesn't stop at a problem: it skips the broken declaration
+ * or rule and reports a ParseDiagnostic for it instead.
+ */
+public final class ParseDiagnostic {
+
+    private final IncorrectFormatException.ErrorCode errorCode;
+    private final int offset;
+    private final String message;
+
+    ParseDiagnostic(IncorrectFormatException.ErrorCode errorCode, int offset, String message) {
+        this.errorCode = errorCode;
+        this.offset = offset;
+        this.message = message;
+    }
+
+    public IncorrectFormatException.ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Returns the offset in the CSS text at which the problem was found.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message + " (at offset " + offset + ")";
+    }
+}
@@ -0,0 +1,285 @@
+package com.iammonk.htmlspanner.css;
+
+import com.iammonk.htmlspanner.style.Style;
+import com.iammonk.htmlspanner.style.StyleValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of the CSS properties HtmlSpanner understands.
+ * <p>
+ * Each property has a PropertyHandler, which turns a value into a
+ * StyleUpdater. Updaters are immutable, so the registry keeps the ones
+ * it created per property and value, and hands out the same instance
+ * when the same declaration is seen again.
+ * <p>
+ * Applications can add support for extra properties, or replace the
+ * built-in handling of one, by calling register(). Stylesheets and style
+ * attributes that were parsed before are parsed again the next time
+ * they are used.
+ */
+public final class PropertyRegistry {
+
+    /**
+     * Creates StyleUpdaters for the values of a single CSS property.
+     */
+    public interface PropertyHandler {
+
+        /**
+         * Parses the given value.
+         *
+         * @return an updater that applies the value, or null if the
+         * value isn't valid for this property.
+         */
+        CSSCompiler.StyleUpdater createUpdater(String value);
+    }
+
+    /**
+     * Maximum number of updaters kept per property.
+     */
+    private static final int UPDATER_CACHE_SIZE = 128;
+
+    /**
+     * Cached in place of values that didn't give an updater.
+     */
+    private static final CSSCompiler.StyleUpdater NO_UPDATER = (style, spanner) -> style;
+
+    private static final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+    /**
+     * Counts changes to the registry, so caches of parsed CSS can tell
+     * when they're out of date.
+     */
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    static {
+        registerBuiltInProperties();
+    }
+
+    private PropertyRegistry() {
+    }
+
+    /**
+     * Registers the handler for the given property, replacing any
+     * handler that was registered for it before.
+     *
+     * @param property the property name, in lower case.
+     */
+    public static synchronized void register(String property, PropertyHandler handler) {
+        properties.put(property, new Property(handler));
+        registryChanged();
+    }
+
+    /**
+     * Removes the handler for the given property, so it will be ignored.
+     */
+    public static synchronized void unregister(String property) {
+        properties.remove(property);
+        registryChanged();
+    }
+
+    /**
+     * Returns a number that changes every time a property is registered
+     * or removed. Anything parsed with an older generation may be wrong.
+     */
+    public static int getGeneration() {
+        return generation.get();
+    }
+
+    private static void registryChanged() {
+
+        //Handlers may use other properties, as shorthands do
+        for (Property entry : properties.values()) {
+            entry.updaters.clear();
+        }
+
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns an updater for the given declaration, or null if the
+     * property is unknown or the value isn't valid.
+     */
+    public static CSSCompiler.StyleUpdater getStyleUpdater(String property, String value) {
+
+        Property entry = properties.get(property);
+
+        if (entry == null) {
+            return null;
+        }
+
+        return entry.getUpdater(value);
+    }
+
+    private static final class Property {
+
+        private final PropertyHandler handler;
+        private final Map<String, CSSCompiler.StyleUpdater> updaters = new ConcurrentHashMap<>();
+
+        private Property(PropertyHandler handler) {
+            this.handler = handler;
+        }
+
+        private CSSCompiler.StyleUpdater getUpdater(String value) {
+
+            CSSCompiler.StyleUpdater updater = updaters.get(value);
+
+            if (updater == null) {
+                updater = handler.createUpdater(value);
+
+                //The cache is simply emptied when it's full
+                if (updaters.size() >= UPDATER_CACHE_SIZE) {
+                    updaters.clear();
+                }
+
+                updaters.put(value, updater != null ? updater : NO_UPDATER);
+
+            } else if (updater == NO_UPDATER) {
+                updater = null;
+            }
+
+            return updater;
+        }
+    }
+
+    private static void registerBuiltInProperties() {
+
+        register("color", value -> {
+            long parsed = ColorParser.parse(value);
+
+            if (parsed == ColorParser.INVALID) {
+                return null;
+            }
+
+            final Integer color = (int) parsed;
+            return (style, spanner) -> style.setColor(color);
+        });
+
+        register("background-color", value -> {
+            long parsed = ColorParser.parse(value);
+
+            if (parsed == ColorParser.INVALID) {
+                return null;
+            }
+
+            final Integer color = (int) parsed;
+            return (style, spanner) -> style.setBackgroundColor(color);
+        });
+
+        PropertyHandler alignmentHandler = value -> {
+            try {
+                final Style.TextAlignment alignment = Style.TextAlignment.valueOf(value.toUpperCase());
+                return (style, spanner) -> style.setTextAlignment(alignment);
+            } catch (IllegalArgumentException i) {
+                return null;
+            }
+        };
+
+        register("align", alignmentHandler);
+        register("text-align", alignmentHandler);
+
+        register("font-weight", value -> {
+            try {
+                final Style.FontWeight weight = Style.FontWeight.valueOf(value.toUpperCase());
+                return (style, spanner) -> style.setFontWeight(weight);
+            } catch (IllegalArgumentException i) {
+                return null;
+            }
+        });
+
+        register("font-style", value -> {
+            try {
+                final Style.FontStyle fontStyle = Style.FontStyle.valueOf(value.toUpperCase());
+                return (style, spanner) -> style.setFontStyle(fontStyle);
+            } catch (IllegalArgumentException i) {
+                return null;
+            }
+        });
+
+        register("font-family", value ->
+                (style, spanner) -> style.setFontFamily(spanner.getFont(value)));
+
+        register("font-size", value -> {
+
+            final StyleValue styleValue = StyleValue.parse(value);
+
+            if (styleValue != null) {
+                return (style, spanner) -> style.setFontSize(styleValue);
+            }
+
+            //Fonts have an extra legacy format where you just specify a plain number.
+            try {
+                final StyleValue legacySize = new StyleValue(
+                        CSSCompiler.translateFontSize(Integer.parseInt(value)), StyleValue.Unit.EM);
+                return (style, spanner) -> style.setFontSize(legacySize);
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+        });
+
+        register("margin-bottom", value -> {
+            final StyleValue styleValue = StyleValue.parse(value);
+            return styleValue == null ? null : (style, spanner) -> style.setMarginBottom(styleValue);
+        });
+
+        register("margin-top", value -> {
+            final StyleValue styleValue = StyleValue.parse(value);
+            return styleValue == null ? null : (style, spanner) -> style.setMarginTop(styleValue);
+        });
+
+        register("margin-left", value -> {
+            final StyleValue styleValue = StyleValue.parse(value);
+            return styleValue == null ? null : (style, spanner) -> style.setMarginLeft(styleValue);
+        });
+
+        register("margin-right", value -> {
+            final StyleValue styleValue = StyleValue.parse(value);
+            return styleValue == null ? null : (style, spanner) -> style.setMarginRight(styleValue);
+        });
+
+        register("margin", CSSCompiler::parseMargin);
+
+        register("text-indent", value -> {
+            final StyleValue styleValue = StyleValue.parse(value);
+            return styleValue == null ? null : (style, spanner) -> style.setTextIndent(styleValue);
+        });
+
+        register("display", value -> {
+            try {
+                final Style.DisplayStyle displayStyle = Style.DisplayStyle.valueOf(value.toUpperCase());
+                return (style, spanner) -> style.setDisplayStyle(displayStyle);
+            } catch (IllegalArgumentException ia) {
+                return null;
+            }
+        });
+
+        register("border-style", value -> {
+            try {
+                final Style.BorderStyle borderStyle = Style.BorderStyle.valueOf(value.toUpperCase());
+                return (style, spanner) -> style.setBorderStyle(borderStyle);
+            } catch (IllegalArgumentException ia) {
+                return null;
+            }
+        });
+
+        register("border-color", value -> {
+            long parsed = ColorParser.parse(value);
+
+            if (parsed == ColorParser.INVALID) {
+                return null;
+            }
+
+            final Integer borderColor = (int) parsed;
+            return (style, spanner) -> style.setBorderColor(borderColor);
+        });
+
+        register("border-width", value -> {
+            final StyleValue borderWidth = StyleValue.parse(value);
+            return borderWidth == null ? null : (style, spanner) -> style.setBorderWidth(borderWidth);
+        });
+
+        register("border", CSSCompiler::parseBorder);
+    }
+}
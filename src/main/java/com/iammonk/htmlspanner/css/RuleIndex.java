@@ -0,0 +1,194 @@
+package com.iammonk.htmlspanner.css;
+
+import org.htmlcleaner.TagNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of CompiledRules by the rightmost part of their selectors.
+ * <p>
+ * Each selector of a rule is filed under the id, class or tag name its
+ * last part requires, or in a universal bucket if it can't be indexed.
+ * Looking up the rules for a node then only tests the rules filed under
+ * the node's own id, class and tag name, instead of every registered rule.
+ * <p>
+ * Matching rules are returned in the order they were added.
+ */
+public final class RuleIndex {
+
+    private final Map<String, List<Entry>> rulesById = new HashMap<>();
+    private final Map<String, List<Entry>> rulesByClass = new HashMap<>();
+    private final Map<String, List<Entry>> rulesByTagName = new HashMap<>();
+    private final List<Entry> universalRules = new ArrayList<>();
+
+    private int ruleCount = 0;
+
+    public void add(CompiledRule rule) {
+
+        Entry entry = new Entry(ruleCount++, rule);
+
+        for (List<CSSCompiler.TagNodeMatcher> chain : rule.getMatchers()) {
+
+            List<Entry> bucket = getBucket(chain);
+
+            //A rule with several selectors may end up in the same bucket more than once
+            if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != entry) {
+                bucket.add(entry);
+            }
+        }
+    }
+
+    public int size() {
+        return ruleCount;
+    }
+
+    /**
+     * Adds all rules which match the given node to the result list.
+     */
+    public void collectMatchingRules(TagNode node, List<CompiledRule> result) {
+        collectMatchingRules(node, null, result);
+    }
+
+    /**
+     * Adds all rules which match the given node to the result list.
+     *
+     * @param ancestors filter holding the ancestors of the node, or null
+     *                  if the parents should always be checked one by one.
+     */
+    public void collectMatchingRules(TagNode node, AncestorFilter ancestors, List<CompiledRule> result) {
+
+        if (ruleCount == 0) {
+            return;
+        }
+
+        List<Entry> byId = lookup(rulesById, node.getAttributeByName("id"));
+        List<Entry> byClass = lookup(rulesByClass, node.getAttributeByName("class"));
+        List<Entry> byTagName = lookup(rulesByTagName, node.getName());
+
+        int idIndex = 0;
+        int classIndex = 0;
+        int tagNameIndex = 0;
+        int universalIndex = 0;
+
+        //Merge the candidate lists in the order the rules were added
+        while (true) {
+
+            Entry next = null;
+
+            if (byId != null && idIndex < byId.size()) {
+                next = byId.get(idIndex);
+            }
+
+            if (byClass != null && classIndex < byClass.size()) {
+                next = earliest(next, byClass.get(classIndex));
+            }
+
+            if (byTagName != null && tagNameIndex < byTagName.size()) {
+                next = earliest(next, byTagName.get(tagNameIndex));
+            }
+
+            if (universalIndex < universalRules.size()) {
+                next = earliest(next, universalRules.get(universalIndex));
+            }
+
+            if (next == null) {
+                return;
+            }
+
+            //Skip the rule in every list it appears in, so it's only tested once
+            if (byId != null && idIndex < byId.size() && byId.get(idIndex) == next) {
+                idIndex++;
+            }
+
+            if (byClass != null && classIndex < byClass.size() && byClass.get(classIndex) == next) {
+                classIndex++;
+            }
+
+            if (byTagName != null && tagNameIndex < byTagName.size() && byTagName.get(tagNameIndex) == next) {
+                tagNameIndex++;
+            }
+
+            if (universalIndex < universalRules.size() && universalRules.get(universalIndex) == next) {
+                universalIndex++;
+            }
+
+            boolean matches;
+
+            if (ancestors != null) {
+                matches = next.rule.matches(node, ancestors);
+            } else {
+                matches = next.rule.matches(node);
+            }
+
+            if (matches) {
+                result.add(next.rule);
+            }
+        }
+    }
+
+    private List<Entry> getBucket(List<CSSCompiler.TagNodeMatcher> chain) {
+
+        if (chain.isEmpty() || !(chain.get(0) instanceof CSSCompiler.KeyedMatcher)) {
+            return universalRules;
+        }
+
+        CSSCompiler.KeyedMatcher matcher = (CSSCompiler.KeyedMatcher) chain.get(0);
+        String key = matcher.getKey();
+
+        if (key == null) {
+            return universalRules;
+        }
+
+        Map<String, List<Entry>> buckets;
+
+        switch (matcher.getKeyType()) {
+            case CSSCompiler.KeyedMatcher.ID:
+                buckets = rulesById;
+                break;
+            case CSSCompiler.KeyedMatcher.CLASS:
+                buckets = rulesByClass;
+                break;
+            default:
+                buckets = rulesByTagName;
+                break;
+        }
+
+        List<Entry> bucket = buckets.get(key);
+
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.put(key, bucket);
+        }
+
+        return bucket;
+    }
+
+    private static List<Entry> lookup(Map<String, List<Entry>> buckets, String key) {
+        if (key == null || buckets.isEmpty()) {
+            return null;
+        }
+
+        return buckets.get(key);
+    }
+
+    private static Entry earliest(Entry current, Entry candidate) {
+        if (current == null || candidate.order < current.order) {
+            return candidate;
+        }
+
+        return current;
+    }
+
+    private static class Entry {
+        private final int order;
+        private final CompiledRule rule;
+
+        private Entry(int order, CompiledRule rule) {
+            this.order = order;
+            this.rule = rule;
+        }
+    }
+}
@@ -30,11 +30,6 @@ enum State {
      */
     INSIDE_SELECTOR,
 
-    /**
-     * Inside a comment.
-     */
-    INSIDE_COMMENT,
-
     /**
      * Inside a property value.
      */
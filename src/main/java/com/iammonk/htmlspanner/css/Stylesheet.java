@@ -0,0 +1,93 @@
+package com.iammonk.htmlspanner.css;
+
+import com.iammonk.htmlspanner.HtmlSpanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compiled CSS stylesheet.
+ * <p>
+ * A Stylesheet is parsed and compiled once, and can then be used for any
+ * number of renders, from any thread: it is never changed after it's
+ * created. The rules are compiled for the HtmlSpanner that created the
+ * Stylesheet, and should only be used with that HtmlSpanner.
+ */
+public final class Stylesheet {
+
+    /**
+     * A Stylesheet without any rules.
+     */
+    public static final Stylesheet EMPTY = new Stylesheet(
+            Collections.<CompiledRule>emptyList(), Collections.<ParseDiagnostic>emptyList(), 0);
+
+    private final List<CompiledRule> rules;
+    private final List<ParseDiagnostic> diagnostics;
+
+    /**
+     * The PropertyRegistry generation the rules were compiled with.
+     */
+    private final int registryGeneration;
+
+    private Stylesheet(List<CompiledRule> rules, List<ParseDiagnostic> diagnostics, int registryGeneration) {
+        this.rules = rules;
+        this.diagnostics = diagnostics;
+        this.registryGeneration = registryGeneration;
+    }
+
+    /**
+     * Parses and compiles the given CSS.
+     * <p>
+     * Most code should use HtmlSpanner.compileStylesheet() instead, which
+     * caches the result.
+     */
+    public static Stylesheet compile(String css, HtmlSpanner spanner) {
+
+        //Read first, so a change while compiling makes the result outdated
+        int registryGeneration = PropertyRegistry.getGeneration();
+
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        List<Rule> parsedRules = CSSParser.parse(css, diagnostics);
+
+        if (parsedRules.isEmpty() && diagnostics.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<CompiledRule> compiledRules = new ArrayList<>(parsedRules.size());
+
+        for (Rule rule : parsedRules) {
+            compiledRules.add(CSSCompiler.compile(rule, spanner));
+        }
+
+        return new Stylesheet(Collections.unmodifiableList(compiledRules),
+                Collections.unmodifiableList(diagnostics), registryGeneration);
+    }
+
+    /**
+     * Returns the compiled rules, in the order they appeared in the CSS.
+     */
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the problems that were found while parsing the CSS.
+     */
+    public List<ParseDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Returns true if CSS properties were registered or removed with the
+     * PropertyRegistry since this stylesheet was compiled, so its rules
+     * may no longer match what compiling the same CSS would give.
+     */
+    public boolean isOutdated() {
+        return !rules.isEmpty() && registryGeneration != PropertyRegistry.getGeneration();
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+}
@@ -19,6 +19,7 @@ package com.iammonk.htmlspanner.handlers;
 import android.text.SpannableStringBuilder;
 
 import com.iammonk.htmlspanner.FontFamily;
+import com.iammonk.htmlspanner.HtmlSpanner;
 import com.iammonk.htmlspanner.SpanStack;
 import com.iammonk.htmlspanner.css.CSSCompiler;
 import com.iammonk.htmlspanner.style.Style;
@@ -38,13 +39,15 @@ public class FontHandler extends StyledTextHandler {
     public void handleTagNode(TagNode node, SpannableStringBuilder builder,
                               int start, int end, Style style, SpanStack spanStack) {
 
-        if (getSpanner().isAllowStyling()) {
+        if (spanStack.getRenderOptions().isAllowStyling()) {
+
+            HtmlSpanner spanner = getSpanner(spanStack);
 
             String face = node.getAttributeByName("face");
             String size = node.getAttributeByName("size");
             String color = node.getAttributeByName("color");
 
-            FontFamily family = getSpanner().getFont(face);
+            FontFamily family = spanner.getFont(face);
 
             style = style.setFontFamily(family);
 
@@ -52,16 +55,16 @@ public class FontHandler extends StyledTextHandler {
                 CSSCompiler.StyleUpdater updater = CSSCompiler.getStyleUpdater("font-size", size);
 
                 if (updater != null) {
-                    style = updater.updateStyle(style, getSpanner());
+                    style = updater.updateStyle(style, spanner);
                 }
             }
 
-            if (color != null && getSpanner().isUseColoursFromStyle()) {
+            if (color != null && spanStack.getRenderOptions().isUseColoursFromStyle()) {
 
                 CSSCompiler.StyleUpdater updater = CSSCompiler.getStyleUpdater("color", color);
 
                 if (updater != null) {
-                    style = updater.updateStyle(style, getSpanner());
+                    style = updater.updateStyle(style, spanner);
                 }
             }
         }
@@ -71,4 +71,9 @@ public class ImageHandler extends TagNodeHandler {
             return null;
         }
     }
+
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
 }
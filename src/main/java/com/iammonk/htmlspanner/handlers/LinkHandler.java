@@ -38,4 +38,9 @@ public class LinkHandler extends TagNodeHandler {
         final String href = node.getAttributeByName("href");
         spanStack.pushSpan(new URLSpan(href), start, end);
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
+}
@@ -68,7 +68,7 @@ public class ListItemHandler extends TagNodeHandler {
 
         if (builder.length() > 0
                 && builder.charAt(builder.length() - 1) != '\n') {
-            builder.append("\n");
+            appendLineBreak(builder);
         }
 
         if ("ol".equals(getParentName(node))) {
@@ -81,4 +81,9 @@ public class ListItemHandler extends TagNodeHandler {
         }
 
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.iammonk.htmlspanner.handlers;
 
+import com.iammonk.htmlspanner.SpanStack;
 import com.iammonk.htmlspanner.style.Style;
 
 /**
@@ -29,4 +30,10 @@ public class MonoSpaceHandler extends StyledTextHandler {
         return new Style().setFontFamily(
                 getSpanner().getFontResolver().getMonoSpaceFont());
     }
+
+    @Override
+    public Style getStyle(SpanStack spanStack) {
+        return new Style().setFontFamily(
+                getSpanner(spanStack).getFontResolver().getMonoSpaceFont());
+    }
 }
@@ -47,7 +47,7 @@ public class NewLineHandler extends WrappingHandler {
         super.handleTagNode(node, builder, start, end, spanStack);
 
         for (int i = 0; i < numberOfNewLines; i++) {
-            appendNewLine(builder);
+            appendNewLine(builder, spanStack);
         }
     }
 }
@@ -34,13 +34,11 @@ import org.htmlcleaner.TagNode;
  */
 public class PreHandler extends TagNodeHandler {
 
-    private void getPlainText(StringBuffer buffer, Object node) {
+    private void getPlainText(StringBuilder buffer, Object node) {
         if (node instanceof ContentNode) {
 
             ContentNode contentNode = (ContentNode) node;
-            String text = TextUtil.replaceHtmlEntities(contentNode.getContent(), true);
-
-            buffer.append(text);
+            TextUtil.appendHtmlEntities(buffer, contentNode.getContent(), true);
 
         } else if (node instanceof TagNode) {
             TagNode tagNode = (TagNode) node;
@@ -54,15 +52,15 @@ public class PreHandler extends TagNodeHandler {
     public void handleTagNode(TagNode node, SpannableStringBuilder builder,
                               int start, int end, SpanStack spanStack) {
 
-        StringBuffer buffer = new StringBuffer();
+        StringBuilder buffer = new StringBuilder();
         getPlainText(buffer, node);
 
-        builder.append(buffer.toString());
+        builder.append(buffer);
 
-        FontFamily monoSpace = getSpanner().getFontResolver().getMonoSpaceFont();
+        FontFamily monoSpace = getSpanner(spanStack).getFontResolver().getMonoSpaceFont();
         spanStack.pushSpan(new FontFamilySpan(monoSpace), start, builder.length());
-        appendNewLine(builder);
-        appendNewLine(builder);
+        appendNewLine(builder, spanStack);
+        appendNewLine(builder, spanStack);
     }
 
     @Override
@@ -70,4 +68,9 @@ public class PreHandler extends TagNodeHandler {
         return true;
     }
 
-}
\ No newline at end of file
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
+
+}
@@ -1,13 +1,9 @@
 package com.iammonk.htmlspanner.handlers;
 
 import android.text.SpannableStringBuilder;
-import android.util.Log;
 
 import com.iammonk.htmlspanner.SpanStack;
 import com.iammonk.htmlspanner.TagNodeHandler;
-import com.iammonk.htmlspanner.css.CSSCompiler;
-import com.iammonk.htmlspanner.css.CSSParser;
-import com.iammonk.htmlspanner.css.Rule;
 
 import org.htmlcleaner.ContentNode;
 import org.htmlcleaner.TagNode;
@@ -20,32 +16,27 @@ public class StyleNodeHandler extends TagNodeHandler {
     @Override
     public void handleTagNode(TagNode node, SpannableStringBuilder builder, int start, int end, SpanStack spanStack) {
 
-        if (getSpanner().isAllowStyling()) {
+        if (spanStack.getRenderOptions().isAllowStyling()) {
 
             if (node.getAllChildren().size() == 1) {
                 Object childNode = node.getAllChildren().get(0);
 
                 if (childNode instanceof ContentNode) {
-                    parseCSSFromText(((ContentNode) childNode).getContent(),
-                            spanStack);
+                    spanStack.registerStylesheet(getSpanner(spanStack).compileStylesheet(
+                            ((ContentNode) childNode).getContent()));
                 }
             }
         }
 
     }
 
-    private void parseCSSFromText(String text, SpanStack spanStack) {
-        try {
-            for (Rule rule : CSSParser.parse(text)) {
-                spanStack.registerCompiledRule(CSSCompiler.compile(rule, getSpanner()));
-            }
-        } catch (Exception e) {
-            Log.e("StyleNodeHandler", "Unparseable CSS definition", e);
-        }
+    @Override
+    public boolean rendersContent() {
+        return true;
     }
 
     @Override
-    public boolean rendersContent() {
+    public boolean isTextOnly() {
         return true;
     }
 }
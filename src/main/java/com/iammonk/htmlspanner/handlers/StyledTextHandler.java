@@ -33,15 +33,32 @@ public class StyledTextHandler extends TagNodeHandler {
         return style;
     }
 
+    /**
+     * Returns the base style for a node in the render the given SpanStack
+     * belongs to. By default this is simply getStyle().
+     */
+    public Style getStyle(SpanStack spanStack) {
+        return getStyle();
+    }
+
+    /**
+     * StyledTextHandler pushes all its spans on the SpanStack. Subclasses
+     * which set spans on the builder themselves should return false.
+     */
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
+
     @Override
     public void beforeChildren(TagNode node, SpannableStringBuilder builder, SpanStack spanStack) {
 
-        Style useStyle = spanStack.getStyle(node, getStyle());
+        Style useStyle = spanStack.getStyle(node, getStyle(spanStack));
 
         if (builder.length() > 0 && useStyle.getDisplayStyle() == Style.DisplayStyle.BLOCK) {
 
             if (builder.charAt(builder.length() - 1) != '\n') {
-                builder.append('\n');
+                appendLineBreak(builder);
             }
         }
 
@@ -53,14 +70,14 @@ public class StyledTextHandler extends TagNodeHandler {
 
             if (styleValue.getUnit() == StyleValue.Unit.PX) {
                 if (styleValue.getIntValue() > 0) {
-                    if (appendNewLine(builder)) {
+                    if (appendNewLine(builder, spanStack)) {
                         spanStack.pushSpan(new VerticalMarginSpan(styleValue.getIntValue()),
                                 builder.length() - 1, builder.length());
                     }
                 }
             } else {
                 if (styleValue.getFloatValue() > 0f) {
-                    if (appendNewLine(builder)) {
+                    if (appendNewLine(builder, spanStack)) {
                         spanStack.pushSpan(new VerticalMarginSpan(styleValue.getFloatValue()),
                                 builder.length() - 1, builder.length());
                     }
@@ -74,14 +91,14 @@ public class StyledTextHandler extends TagNodeHandler {
 
     public final void handleTagNode(TagNode node, SpannableStringBuilder builder,
                                     int start, int end, SpanStack spanStack) {
-        Style styleFromCSS = spanStack.getStyle(node, getStyle());
+        Style styleFromCSS = spanStack.getStyle(node, getStyle(spanStack));
         handleTagNode(node, builder, start, end, styleFromCSS, spanStack);
     }
 
     public void handleTagNode(TagNode node, SpannableStringBuilder builder, int start, int end, Style useStyle, SpanStack stack) {
 
         if (useStyle.getDisplayStyle() == Style.DisplayStyle.BLOCK) {
-            appendNewLine(builder);
+            appendNewLine(builder, stack);
 
             //If we have a bottom margin, we insert an extra newline. We'll manipulate the line height
             //of this newline to create the margin.
@@ -91,13 +108,13 @@ public class StyledTextHandler extends TagNodeHandler {
 
                 if (styleValue.getUnit() == StyleValue.Unit.PX) {
                     if (styleValue.getIntValue() > 0) {
-                        appendNewLine(builder);
+                        appendNewLine(builder, stack);
                         stack.pushSpan(new VerticalMarginSpan(styleValue.getIntValue()),
                                 builder.length() - 1, builder.length());
                     }
                 } else {
                     if (styleValue.getFloatValue() > 0f) {
-                        appendNewLine(builder);
+                        appendNewLine(builder, stack);
 
                         stack.pushSpan(new VerticalMarginSpan(styleValue.getFloatValue()),
                                 builder.length() - 1, builder.length());
@@ -108,8 +125,9 @@ public class StyledTextHandler extends TagNodeHandler {
         }
 
         if (builder.length() > start) {
-            stack.pushSpan(new StyleCallback(getSpanner().getFontResolver()
-                    .getDefaultFont(), useStyle, start, builder.length()));
+            stack.pushSpan(new StyleCallback(getSpanner(stack).getFontResolver()
+                    .getDefaultFont(), useStyle, start, builder.length(),
+                    stack.getRenderOptions().isUseColoursFromStyle()), start, builder.length());
         } else {
             Log.d("StyledTextHandler", "Refusing to push span of length " + (builder.length() - start));
         }
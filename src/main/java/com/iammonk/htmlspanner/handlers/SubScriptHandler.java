@@ -35,4 +35,9 @@ public class SubScriptHandler extends TagNodeHandler {
 
         spanStack.pushSpan(new SubscriptSpan(), start, end);
     }
+
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
 }
@@ -35,4 +35,9 @@ public class SuperScriptHandler extends TagNodeHandler {
         spanStack.pushSpan(new SuperscriptSpan(), start, end);
     }
 
+    @Override
+    public boolean isTextOnly() {
+        return true;
+    }
+
 }
@@ -32,6 +32,7 @@ import android.text.TextPaint;
 import android.text.style.AlignmentSpan;
 import android.text.style.ImageSpan;
 
+import com.iammonk.htmlspanner.RenderOptions;
 import com.iammonk.htmlspanner.SpanStack;
 import com.iammonk.htmlspanner.TagNodeHandler;
 
@@ -96,7 +97,7 @@ public class TableHandler extends TagNodeHandler {
         return true;
     }
 
-    private void readNode(Object node, Table table) {
+    private void readNode(Object node, Table table, RenderOptions options) {
 
         // We can't handle plain content nodes within the table.
         if (node instanceof TagNode) {
@@ -104,7 +105,7 @@ public class TableHandler extends TagNodeHandler {
             TagNode tagNode = (TagNode) node;
 
             if (tagNode.getName().equals("td")) {
-                Spanned result = this.getSpanner().fromTagNode(tagNode, null);
+                Spanned result = this.getSpanner().fromTagNode(tagNode, options, null);
                 table.addCell(result);
                 return;
             }
@@ -114,13 +115,13 @@ public class TableHandler extends TagNodeHandler {
             }
 
             for (Object child : tagNode.getAllChildren()) {
-                readNode(child, table);
+                readNode(child, table, options);
             }
         }
 
     }
 
-    private Table getTable(TagNode node) {
+    private Table getTable(TagNode node, RenderOptions options) {
 
         String border = node.getAttributeByName("border");
 
@@ -128,7 +129,7 @@ public class TableHandler extends TagNodeHandler {
 
         Table result = new Table(drawBorder);
 
-        readNode(node, result);
+        readNode(node, result, options);
 
         return result;
     }
@@ -173,7 +174,7 @@ public class TableHandler extends TagNodeHandler {
     public void handleTagNode(TagNode node, SpannableStringBuilder builder,
                               int start, int end, SpanStack spanStack) {
 
-        Table table = getTable(node);
+        Table table = getTable(node, spanStack.getRenderOptions());
 
         for (int i = 0; i < table.getRows().size(); i++) {
 
@@ -29,7 +29,16 @@ public class WrappingHandler extends TagNodeHandler {
     @Override
     public void setSpanner(HtmlSpanner spanner) {
         super.setSpanner(spanner);
-        wrappedHandler.setSpanner(spanner);
+
+        //The handlers a shared handler wraps are shared as well
+        if (!isShared()) {
+            wrappedHandler.setSpanner(spanner);
+        }
+    }
+
+    @Override
+    public boolean isTextOnly() {
+        return wrappedHandler.isTextOnly();
     }
 
     protected TagNodeHandler getWrappedHandler() {
@@ -28,7 +28,7 @@ public class BorderAttributeHandler extends WrappingStyleHandler {
                               Style useStyle, SpanStack spanStack) {
 
         if (node.getAttributeByName("border") != null) {
-            spanStack.pushSpan(new BorderSpan(useStyle, start, end, getSpanner().isUseColoursFromStyle()), start, end);
+            spanStack.pushSpan(new BorderSpan(useStyle, start, end, spanStack.getRenderOptions().isUseColoursFromStyle()), start, end);
         }
 
         super.handleTagNode(node, builder, start, end, useStyle, spanStack);
@@ -1,33 +1,70 @@
 package com.iammonk.htmlspanner.handlers.attributes;
 
 import android.text.SpannableStringBuilder;
-import android.util.Log;
 
+import com.iammonk.htmlspanner.HtmlSpanner;
 import com.iammonk.htmlspanner.SpanStack;
 import com.iammonk.htmlspanner.css.CSSCompiler;
+import com.iammonk.htmlspanner.css.PropertyRegistry;
 import com.iammonk.htmlspanner.handlers.StyledTextHandler;
 import com.iammonk.htmlspanner.style.Style;
 
 import org.htmlcleaner.TagNode;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Handler which parses style attributes and modifies the style accordingly.
+ * <p>
+ * Documents often repeat the same style attribute on many elements, so
+ * parsed attributes are cached by their text, shared by all handlers.
+ * Attributes are parsed again after a change to the PropertyRegistry.
  */
 public class StyleAttributeHandler extends WrappingStyleHandler {
 
+    /**
+     * Maximum number of parsed style attributes kept in the cache.
+     */
+    public static final int CACHE_SIZE = 512;
+
+    private static final CSSCompiler.StyleUpdater[] NO_UPDATERS = new CSSCompiler.StyleUpdater[0];
+
+    private static final Map<String, ParsedStyle> cache = new ConcurrentHashMap<>();
+
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+
     public StyleAttributeHandler(StyledTextHandler wrapHandler) {
         super(wrapHandler);
     }
 
+    /**
+     * Returns how many style attributes were found in the cache.
+     */
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns how many style attributes had to be parsed.
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
     @Override
     public void handleTagNode(TagNode node, SpannableStringBuilder builder, int start, int end, Style useStyle,
                               SpanStack spanStack) {
 
         String styleAttr = node.getAttributeByName("style");
 
-        if (getSpanner().isAllowStyling() && styleAttr != null) {
+        if (spanStack.getRenderOptions().isAllowStyling() && styleAttr != null) {
             super.handleTagNode(node, builder, start, end,
-                    parseStyleFromAttribute(useStyle, styleAttr),
+                    parseStyleFromAttribute(useStyle, styleAttr, getSpanner(spanStack)),
                     spanStack);
         } else {
             super.handleTagNode(node, builder, start, end, useStyle, spanStack);
@@ -35,16 +72,49 @@ public class StyleAttributeHandler extends WrappingStyleHandler {
 
     }
 
-    private Style parseStyleFromAttribute(Style baseStyle, String attribute) {
+    private Style parseStyleFromAttribute(Style baseStyle, String attribute, HtmlSpanner spanner) {
+
+        ParsedStyle parsedStyle = cache.get(attribute);
+
+        if (parsedStyle != null && parsedStyle.registryGeneration == PropertyRegistry.getGeneration()) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+            parsedStyle = parse(attribute);
+
+            //The cache is simply emptied when it's full
+            if (cache.size() >= CACHE_SIZE) {
+                cache.clear();
+            }
+
+            cache.put(attribute, parsedStyle);
+        }
+
+        //Updaters only set properties, so they can be applied to the base style directly
         Style style = baseStyle;
 
+        for (CSSCompiler.StyleUpdater updater : parsedStyle.updaters) {
+            style = updater.updateStyle(style, spanner);
+        }
+
+        return style;
+    }
+
+    private static ParsedStyle parse(String attribute) {
+
+        //Read first, so a change while parsing makes the result outdated
+        int registryGeneration = PropertyRegistry.getGeneration();
+
+        List<CSSCompiler.StyleUpdater> updaters = new ArrayList<>();
+
         String[] pairs = attribute.split(";");
         for (String pair : pairs) {
 
             String[] keyVal = pair.split(":");
 
+            //A single broken declaration makes us ignore the whole attribute
             if (keyVal.length != 2) {
-                return baseStyle;
+                return new ParsedStyle(NO_UPDATERS, registryGeneration);
             }
 
             String key = keyVal[0].toLowerCase().trim();
@@ -53,10 +123,30 @@ public class StyleAttributeHandler extends WrappingStyleHandler {
             CSSCompiler.StyleUpdater updater = CSSCompiler.getStyleUpdater(key, value);
 
             if (updater != null) {
-                style = updater.updateStyle(style, getSpanner());
+                updaters.add(updater);
             }
 
         }
-        return style;
+
+        return new ParsedStyle(updaters.toArray(new CSSCompiler.StyleUpdater[updaters.size()]),
+                registryGeneration);
+    }
+
+    /**
+     * The updaters of a parsed style attribute, and the PropertyRegistry
+     * generation they were created with.
+     * <p>
+     * The updaters are shared by all spanners; only their results depend
+     * on the fonts of a spanner.
+     */
+    private static final class ParsedStyle {
+
+        private final CSSCompiler.StyleUpdater[] updaters;
+        private final int registryGeneration;
+
+        private ParsedStyle(CSSCompiler.StyleUpdater[] updaters, int registryGeneration) {
+            this.updaters = updaters;
+            this.registryGeneration = registryGeneration;
+        }
     }
 }
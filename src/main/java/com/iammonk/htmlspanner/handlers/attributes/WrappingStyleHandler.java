@@ -30,6 +30,11 @@ public class WrappingStyleHandler extends StyledTextHandler {
         return wrappedHandler.getStyle();
     }
 
+    @Override
+    public Style getStyle(SpanStack spanStack) {
+        return wrappedHandler.getStyle(spanStack);
+    }
+
     @Override
     public void beforeChildren(TagNode node, SpannableStringBuilder builder, SpanStack spanStack) {
         if (wrappedHandler != null) {
@@ -45,6 +50,11 @@ public class WrappingStyleHandler extends StyledTextHandler {
         }
     }
 
+    @Override
+    public boolean isTextOnly() {
+        return wrappedHandler == null || wrappedHandler.isTextOnly();
+    }
+
     public StyledTextHandler getWrappedHandler() {
         return this.wrappedHandler;
     }
@@ -53,7 +63,8 @@ public class WrappingStyleHandler extends StyledTextHandler {
     public void setSpanner(HtmlSpanner spanner) {
         super.setSpanner(spanner);
 
-        if (this.getWrappedHandler() != null) {
+        //The handlers a shared handler wraps are shared as well
+        if (!isShared() && this.getWrappedHandler() != null) {
             this.getWrappedHandler().setSpanner(spanner);
         }
     }
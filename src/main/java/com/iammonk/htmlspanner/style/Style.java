@@ -2,11 +2,22 @@ package com.iammonk.htmlspanner.style;
 
 import com.iammonk.htmlspanner.FontFamily;
 
+import java.lang.ref.WeakReference;
+
 /**
  * CSS Style object.
  *
  * A Style is immutable: using a setter creates a new Style object with the
  * changed setings.
+ * <p>
+ * Internally a Style is kept compact: a bitmask records which properties
+ * are set, the enum properties are packed into a single int and colours
+ * are stored as plain ints.
+ * <p>
+ * Styles returned by the setters and by merge() are interned: as long as
+ * a style is in use, every equal style they return is that same instance,
+ * so those styles can be compared with ==. The constructors always create
+ * a new instance.
  */
 public class Style {
 
@@ -16,19 +27,47 @@ public class Style {
     public static enum DisplayStyle { BLOCK, INLINE };
     public static enum BorderStyle { SOLID, DASHED, DOTTED, DOUBLE }
 
+    private static final TextAlignment[] TEXT_ALIGNMENTS = TextAlignment.values();
+    private static final FontWeight[] FONT_WEIGHTS = FontWeight.values();
+    private static final FontStyle[] FONT_STYLES = FontStyle.values();
+    private static final DisplayStyle[] DISPLAY_STYLES = DisplayStyle.values();
+    private static final BorderStyle[] BORDER_STYLES = BorderStyle.values();
+
+    //Bits in the presence mask
+    private static final int FONT_FAMILY = 1;
+    private static final int TEXT_ALIGNMENT = 1 << 1;
+    private static final int FONT_SIZE = 1 << 2;
+    private static final int FONT_WEIGHT = 1 << 3;
+    private static final int FONT_STYLE = 1 << 4;
+    private static final int COLOR = 1 << 5;
+    private static final int BACKGROUND_COLOR = 1 << 6;
+    private static final int DISPLAY_STYLE = 1 << 7;
+    private static final int MARGIN_TOP = 1 << 8;
+    private static final int MARGIN_BOTTOM = 1 << 9;
+    private static final int MARGIN_LEFT = 1 << 10;
+    private static final int MARGIN_RIGHT = 1 << 11;
+    private static final int TEXT_INDENT = 1 << 12;
+    private static final int BORDER_COLOR = 1 << 13;
+    private static final int BORDER_STYLE = 1 << 14;
+    private static final int BORDER_WIDTH = 1 << 15;
+
+    //Position of each enum's ordinal in the packed enums int
+    private static final int TEXT_ALIGNMENT_SHIFT = 0;
+    private static final int FONT_WEIGHT_SHIFT = 4;
+    private static final int FONT_STYLE_SHIFT = 8;
+    private static final int DISPLAY_STYLE_SHIFT = 12;
+    private static final int BORDER_STYLE_SHIFT = 16;
+    private static final int ENUM_MASK = 0xF;
+
+    private final int present;
+    private final int enums;
+
+    private final int color;
+    private final int backgroundColor;
+    private final int borderColor;
+
     private final FontFamily fontFamily;
-    private final TextAlignment textAlignment;
     private final StyleValue fontSize;
-
-    private final FontWeight fontWeight;
-    private final FontStyle fontStyle;
-
-    private final Integer color;
-    private final Integer backgroundColor;
-    private final Integer borderColor;
-
-    private final DisplayStyle displayStyle;
-    private final BorderStyle borderStyle;
     private final StyleValue borderWidth;
 
     private final StyleValue textIndent;
@@ -38,25 +77,15 @@ public class Style {
     private final StyleValue marginLeft;
     private final StyleValue marginRight;
 
+    private final int hashCode;
+
+    /**
+     * True if this is the instance kept by the InternTable.
+     */
+    private final boolean interned;
 
     public Style() {
-        fontFamily = null;
-        textAlignment = null;
-        fontSize = null;
-        fontWeight = null;
-        fontStyle = null;
-        color = null;
-        backgroundColor = null;
-        displayStyle = null;
-        marginBottom = null;
-        textIndent = null;
-        marginTop = null;
-        marginLeft = null;
-        marginRight = null;
-
-        borderColor = null;
-        borderStyle = null;
-        borderWidth = null;
+        this(0, 0, 0, 0, 0, null, null, null, null, null, null, null, null, false);
     }
 
     public Style(FontFamily family, TextAlignment textAlignment, StyleValue fontSize,
@@ -65,141 +94,307 @@ public class Style {
                  StyleValue marginBottom, StyleValue marginLeft, StyleValue marginRight,
                  StyleValue textIndent, Integer borderColor, BorderStyle borderStyle,
                  StyleValue borderWidth) {
-        this.fontFamily = family;
-        this.textAlignment = textAlignment;
-        this.fontSize = fontSize;
 
-        this.fontWeight = fontWeight;
-        this.fontStyle = fontStyle;
+        this(presence(family, FONT_FAMILY) | presence(textAlignment, TEXT_ALIGNMENT)
+                        | presence(fontSize, FONT_SIZE) | presence(fontWeight, FONT_WEIGHT)
+                        | presence(fontStyle, FONT_STYLE) | presence(color, COLOR)
+                        | presence(backgroundColor, BACKGROUND_COLOR)
+                        | presence(displayStyle, DISPLAY_STYLE) | presence(marginTop, MARGIN_TOP)
+                        | presence(marginBottom, MARGIN_BOTTOM) | presence(marginLeft, MARGIN_LEFT)
+                        | presence(marginRight, MARGIN_RIGHT) | presence(textIndent, TEXT_INDENT)
+                        | presence(borderColor, BORDER_COLOR) | presence(borderStyle, BORDER_STYLE)
+                        | presence(borderWidth, BORDER_WIDTH),
+                pack(textAlignment, TEXT_ALIGNMENT_SHIFT) | pack(fontWeight, FONT_WEIGHT_SHIFT)
+                        | pack(fontStyle, FONT_STYLE_SHIFT) | pack(displayStyle, DISPLAY_STYLE_SHIFT)
+                        | pack(borderStyle, BORDER_STYLE_SHIFT),
+                color != null ? color : 0,
+                backgroundColor != null ? backgroundColor : 0,
+                borderColor != null ? borderColor : 0,
+                family, fontSize, borderWidth, textIndent,
+                marginTop, marginBottom, marginLeft, marginRight, false);
+    }
+
+    private Style(int present, int enums, int color, int backgroundColor, int borderColor,
+                  FontFamily fontFamily, StyleValue fontSize, StyleValue borderWidth,
+                  StyleValue textIndent, StyleValue marginTop, StyleValue marginBottom,
+                  StyleValue marginLeft, StyleValue marginRight, boolean interned) {
+        this.present = present;
+        this.enums = enums;
         this.color = color;
         this.backgroundColor = backgroundColor;
-        this.displayStyle = displayStyle;
-        this.marginBottom = marginBottom;
+        this.borderColor = borderColor;
+        this.fontFamily = fontFamily;
+        this.fontSize = fontSize;
+        this.borderWidth = borderWidth;
         this.textIndent = textIndent;
         this.marginTop = marginTop;
+        this.marginBottom = marginBottom;
         this.marginLeft = marginLeft;
         this.marginRight = marginRight;
+        this.interned = interned;
+
+        this.hashCode = hash(present, enums, color, backgroundColor, borderColor,
+                fontFamily, fontSize, borderWidth, textIndent,
+                marginTop, marginBottom, marginLeft, marginRight);
+    }
+
+    private static int hash(int present, int enums, int color, int backgroundColor,
+                            int borderColor, FontFamily fontFamily, StyleValue fontSize,
+                            StyleValue borderWidth, StyleValue textIndent, StyleValue marginTop,
+                            StyleValue marginBottom, StyleValue marginLeft,
+                            StyleValue marginRight) {
+        int hash = present;
+        hash = 31 * hash + enums;
+        hash = 31 * hash + color;
+        hash = 31 * hash + backgroundColor;
+        hash = 31 * hash + borderColor;
+        hash = 31 * hash + hash(fontFamily);
+        hash = 31 * hash + hash(fontSize);
+        hash = 31 * hash + hash(borderWidth);
+        hash = 31 * hash + hash(textIndent);
+        hash = 31 * hash + hash(marginTop);
+        hash = 31 * hash + hash(marginBottom);
+        hash = 31 * hash + hash(marginLeft);
+        hash = 31 * hash + hash(marginRight);
+        return hash;
+    }
+
+    /**
+     * Returns the interned style with the given properties. A new Style is
+     * only created if there's no such style yet.
+     */
+    private static Style intern(int present, int enums, int color, int backgroundColor,
+                                int borderColor, FontFamily fontFamily, StyleValue fontSize,
+                                StyleValue borderWidth, StyleValue textIndent,
+                                StyleValue marginTop, StyleValue marginBottom,
+                                StyleValue marginLeft, StyleValue marginRight) {
+
+        int hash = hash(present, enums, color, backgroundColor, borderColor,
+                fontFamily, fontSize, borderWidth, textIndent,
+                marginTop, marginBottom, marginLeft, marginRight);
+
+        synchronized (InternTable.class) {
+
+            Style style = InternTable.find(hash, present, enums, color, backgroundColor,
+                    borderColor, fontFamily, fontSize, borderWidth, textIndent,
+                    marginTop, marginBottom, marginLeft, marginRight);
+
+            if (style == null) {
+                style = new Style(present, enums, color, backgroundColor, borderColor,
+                        fontFamily, fontSize, borderWidth, textIndent,
+                        marginTop, marginBottom, marginLeft, marginRight, true);
+
+                InternTable.add(style);
+            }
+
+            return style;
+        }
+    }
 
-        this.borderColor = borderColor;
-        this.borderWidth = borderWidth;
-        this.borderStyle = borderStyle;
+    /**
+     * Returns the interned style equal to the given one.
+     */
+    private static Style intern(Style style) {
+
+        if (style.interned) {
+            return style;
+        }
+
+        return intern(style.present, style.enums, style.color, style.backgroundColor,
+                style.borderColor, style.fontFamily, style.fontSize, style.borderWidth,
+                style.textIndent, style.marginTop, style.marginBottom, style.marginLeft,
+                style.marginRight);
     }
 
-    public Style setFontFamily(FontFamily fontFamily) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, this.fontStyle, this.color, this.backgroundColor, this.displayStyle,
-                this.marginTop, this.marginBottom, this.marginLeft, this.marginRight, this.textIndent,
-                this.borderColor, this.borderStyle, this.borderWidth );
+    private boolean hasProperties(int present, int enums, int color, int backgroundColor,
+                                  int borderColor, FontFamily fontFamily, StyleValue fontSize,
+                                  StyleValue borderWidth, StyleValue textIndent,
+                                  StyleValue marginTop, StyleValue marginBottom,
+                                  StyleValue marginLeft, StyleValue marginRight) {
+        return this.present == present
+                && this.enums == enums
+                && this.color == color
+                && this.backgroundColor == backgroundColor
+                && this.borderColor == borderColor
+                && equal(this.fontFamily, fontFamily)
+                && equal(this.fontSize, fontSize)
+                && equal(this.borderWidth, borderWidth)
+                && equal(this.textIndent, textIndent)
+                && equal(this.marginTop, marginTop)
+                && equal(this.marginBottom, marginBottom)
+                && equal(this.marginLeft, marginLeft)
+                && equal(this.marginRight, marginRight);
+    }
+
+    private static int presence(Object value, int bit) {
+        return value != null ? bit : 0;
+    }
+
+    private static int pack(Enum<?> value, int shift) {
+        return value != null ? value.ordinal() << shift : 0;
     }
 
+    private int withBit(int bit, boolean set) {
+        return set ? present | bit : present & ~bit;
+    }
+
+    private Style withEnum(int bit, int shift, Enum<?> value) {
+
+        int newEnums = (enums & ~(ENUM_MASK << shift)) | pack(value, shift);
+
+        return intern(withBit(bit, value != null), newEnums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
+    }
+
+    private int getEnum(int shift) {
+        return (enums >>> shift) & ENUM_MASK;
+    }
+
+    private boolean has(int bit) {
+        return (present & bit) != 0;
+    }
+
+    public Style setFontFamily(FontFamily fontFamily) {
+        return intern(withBit(FONT_FAMILY, fontFamily != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
+    }
 
     public Style setTextAlignment(TextAlignment alignment) {
-        return new Style(this.fontFamily, alignment, this.fontSize, this.fontWeight,
-                this.fontStyle, this.color, this.backgroundColor, this.displayStyle,
-                this.marginTop, this.marginBottom, this.marginLeft, this.marginRight, this.textIndent,
-                this.borderColor, this.borderStyle, this.borderWidth );
+        return withEnum(TEXT_ALIGNMENT, TEXT_ALIGNMENT_SHIFT, alignment);
     }
 
     public Style setFontSize(StyleValue fontSize) {
-        return new Style(this.fontFamily, this.textAlignment, fontSize, this.fontWeight,
-                this.fontStyle, this.color, this.backgroundColor, this.displayStyle,
-                this.marginTop, this.marginBottom, this.marginLeft, this.marginRight, this.textIndent,
-                this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(FONT_SIZE, fontSize != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setFontWeight(FontWeight fontWeight) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize, fontWeight,
-                this.fontStyle, this.color, this.backgroundColor, this.displayStyle,
-                this.marginTop, this.marginBottom, this.marginLeft, this.marginRight, this.textIndent,
-                this.borderColor, this.borderStyle, this.borderWidth );
+        return withEnum(FONT_WEIGHT, FONT_WEIGHT_SHIFT, fontWeight);
     }
 
     public Style setFontStyle(FontStyle fontStyle) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return withEnum(FONT_STYLE, FONT_STYLE_SHIFT, fontStyle);
     }
 
     public Style setColor(Integer color) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(COLOR, color != null), enums,
+                color != null ? color : 0, backgroundColor, borderColor, fontFamily, fontSize,
+                borderWidth, textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setBackgroundColor( Integer bgColor ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, bgColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(BACKGROUND_COLOR, bgColor != null), enums,
+                color, bgColor != null ? bgColor : 0, borderColor, fontFamily, fontSize,
+                borderWidth, textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setDisplayStyle( DisplayStyle displayStyle ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return withEnum(DISPLAY_STYLE, DISPLAY_STYLE_SHIFT, displayStyle);
     }
 
     public Style setMarginBottom( StyleValue marginBottom ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, marginBottom, this.marginLeft,
-                this.marginRight,this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(MARGIN_BOTTOM, marginBottom != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setMarginTop( StyleValue marginTop ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, marginTop, this.marginBottom, this.marginLeft,
-                this.marginRight,this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(MARGIN_TOP, marginTop != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setMarginLeft( StyleValue marginLeft ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, marginLeft,
-                this.marginRight,this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(MARGIN_LEFT, marginLeft != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setMarginRight( StyleValue marginRight ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft,
-                marginRight,this.textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(MARGIN_RIGHT, marginRight != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setTextIndent( StyleValue textIndent ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                textIndent, this.borderColor, this.borderStyle, this.borderWidth );
+        return intern(withBit(TEXT_INDENT, textIndent != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setBorderStyle( BorderStyle borderStyle ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                textIndent, this.borderColor, borderStyle, this.borderWidth );
+        return withEnum(BORDER_STYLE, BORDER_STYLE_SHIFT, borderStyle);
     }
 
     public Style setBorderColor( Integer borderColor ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                textIndent, borderColor, borderStyle, this.borderWidth );
+        return intern(withBit(BORDER_COLOR, borderColor != null), enums,
+                color, backgroundColor, borderColor != null ? borderColor : 0, fontFamily, fontSize,
+                borderWidth, textIndent, marginTop, marginBottom, marginLeft, marginRight);
     }
 
     public Style setBorderWidth( StyleValue borderWidth ) {
-        return new Style(fontFamily, this.textAlignment, this.fontSize,
-                this.fontWeight, fontStyle, this.color, this.backgroundColor,
-                this.displayStyle, this.marginTop, this.marginBottom, this.marginLeft, this.marginRight,
-                textIndent, this.borderColor, this.borderStyle, borderWidth );
+        return intern(withBit(BORDER_WIDTH, borderWidth != null), enums,
+                color, backgroundColor, borderColor, fontFamily, fontSize, borderWidth,
+                textIndent, marginTop, marginBottom, marginLeft, marginRight);
+    }
+
+    /**
+     * Returns a copy of this style with all properties that are set in the
+     * given delta replaced by the values from the delta.
+     * <p>
+     * Properties that aren't set in the delta keep their value from this style.
+     * This creates at most one new Style, however many properties change.
+     */
+    public Style merge(Style delta) {
+
+        if (delta == null || delta.isEmpty()) {
+            return intern(this);
+        }
+
+        if (this.isEmpty()) {
+            return intern(delta);
+        }
+
+        int mask = delta.present;
+
+        int enumMask = enumMask(mask, TEXT_ALIGNMENT, TEXT_ALIGNMENT_SHIFT)
+                | enumMask(mask, FONT_WEIGHT, FONT_WEIGHT_SHIFT)
+                | enumMask(mask, FONT_STYLE, FONT_STYLE_SHIFT)
+                | enumMask(mask, DISPLAY_STYLE, DISPLAY_STYLE_SHIFT)
+                | enumMask(mask, BORDER_STYLE, BORDER_STYLE_SHIFT);
+
+        return intern(
+                this.present | mask,
+                (this.enums & ~enumMask) | (delta.enums & enumMask),
+                delta.has(COLOR) ? delta.color : this.color,
+                delta.has(BACKGROUND_COLOR) ? delta.backgroundColor : this.backgroundColor,
+                delta.has(BORDER_COLOR) ? delta.borderColor : this.borderColor,
+                delta.has(FONT_FAMILY) ? delta.fontFamily : this.fontFamily,
+                delta.has(FONT_SIZE) ? delta.fontSize : this.fontSize,
+                delta.has(BORDER_WIDTH) ? delta.borderWidth : this.borderWidth,
+                delta.has(TEXT_INDENT) ? delta.textIndent : this.textIndent,
+                delta.has(MARGIN_TOP) ? delta.marginTop : this.marginTop,
+                delta.has(MARGIN_BOTTOM) ? delta.marginBottom : this.marginBottom,
+                delta.has(MARGIN_LEFT) ? delta.marginLeft : this.marginLeft,
+                delta.has(MARGIN_RIGHT) ? delta.marginRight : this.marginRight);
+    }
+
+    private static int enumMask(int present, int bit, int shift) {
+        return (present & bit) != 0 ? ENUM_MASK << shift : 0;
+    }
+
+    /**
+     * Returns true if none of the properties of this style are set.
+     */
+    public boolean isEmpty() {
+        return present == 0;
     }
 
     public Integer getBackgroundColor() {
-        return this.backgroundColor;
+        return has(BACKGROUND_COLOR) ? Integer.valueOf(backgroundColor) : null;
     }
 
     public FontFamily getFontFamily() {
@@ -207,7 +402,7 @@ public class Style {
     }
 
     public TextAlignment getTextAlignment() {
-        return textAlignment;
+        return has(TEXT_ALIGNMENT) ? TEXT_ALIGNMENTS[getEnum(TEXT_ALIGNMENT_SHIFT)] : null;
     }
 
     public StyleValue getFontSize() {
@@ -215,19 +410,19 @@ public class Style {
     }
 
     public FontWeight getFontWeight() {
-        return fontWeight;
+        return has(FONT_WEIGHT) ? FONT_WEIGHTS[getEnum(FONT_WEIGHT_SHIFT)] : null;
     }
 
     public FontStyle getFontStyle() {
-        return fontStyle;
+        return has(FONT_STYLE) ? FONT_STYLES[getEnum(FONT_STYLE_SHIFT)] : null;
     }
 
     public Integer getColor() {
-        return this.color;
+        return has(COLOR) ? Integer.valueOf(color) : null;
     }
 
     public DisplayStyle getDisplayStyle() {
-        return this.displayStyle;
+        return has(DISPLAY_STYLE) ? DISPLAY_STYLES[getEnum(DISPLAY_STYLE_SHIFT)] : null;
     }
 
     public StyleValue getMarginBottom() {
@@ -251,17 +446,56 @@ public class Style {
     }
 
     public Integer getBorderColor() {
-        return this.borderColor;
+        return has(BORDER_COLOR) ? Integer.valueOf(borderColor) : null;
     }
 
     public BorderStyle getBorderStyle() {
-        return this.borderStyle;
+        return has(BORDER_STYLE) ? BORDER_STYLES[getEnum(BORDER_STYLE_SHIFT)] : null;
     }
 
     public StyleValue getBorderWidth() {
         return this.borderWidth;
     }
 
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof Style)) {
+            return false;
+        }
+
+        Style other = (Style) o;
+
+        //Two different interned styles are never equal
+        if (interned && other.interned) {
+            return false;
+        }
+
+        return hashCode == other.hashCode
+                && hasProperties(other.present, other.enums, other.color,
+                        other.backgroundColor, other.borderColor, other.fontFamily,
+                        other.fontSize, other.borderWidth, other.textIndent,
+                        other.marginTop, other.marginBottom, other.marginLeft,
+                        other.marginRight);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int hash(Object value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
     public String toString() {
 
         StringBuilder result = new StringBuilder( "{\n" );
@@ -270,32 +504,32 @@ public class Style {
             result.append( "  font-family: " + fontFamily.getName() + "\n");
         }
 
-        if ( textAlignment != null ) {
-            result.append( "  text-alignment: " + textAlignment + "\n");
+        if ( has(TEXT_ALIGNMENT) ) {
+            result.append( "  text-alignment: " + getTextAlignment() + "\n");
         }
 
         if ( fontSize != null ) {
             result.append( "  font-size: " + fontSize + "\n");
         }
 
-        if ( fontWeight != null ) {
-            result.append( "  font-weight: " + fontWeight + "\n" );
+        if ( has(FONT_WEIGHT) ) {
+            result.append( "  font-weight: " + getFontWeight() + "\n" );
         }
 
-        if ( fontStyle != null ) {
-            result.append( "  font-style: " + fontStyle + "\n" );
+        if ( has(FONT_STYLE) ) {
+            result.append( "  font-style: " + getFontStyle() + "\n" );
         }
 
-        if ( color != null ) {
+        if ( has(COLOR) ) {
             result.append("  color: " + color + "\n");
         }
 
-        if ( backgroundColor != null ) {
+        if ( has(BACKGROUND_COLOR) ) {
             result.append("  background-color: " + backgroundColor + "\n");
         }
 
-        if ( displayStyle != null ) {
-            result.append("  display: " + displayStyle + "\n");
+        if ( has(DISPLAY_STYLE) ) {
+            result.append("  display: " + getDisplayStyle() + "\n");
         }
 
         if ( marginTop != null ) {
@@ -318,11 +552,11 @@ public class Style {
             result.append("  text-indent: " + textIndent + "\n" );
         }
 
-        if ( borderStyle != null ) {
-            result.append("  border-style: " + borderStyle + "\n" );
+        if ( has(BORDER_STYLE) ) {
+            result.append("  border-style: " + getBorderStyle() + "\n" );
         }
 
-        if ( borderColor != null ) {
+        if ( has(BORDER_COLOR) ) {
             result.append("  border-color: " + borderColor + "\n" );
         }
 
@@ -335,4 +569,108 @@ public class Style {
         return result.toString();
     }
 
+    /**
+     * Hash table of all interned styles, with open addressing.
+     * <p>
+     * The table only holds weak references, so styles that are no longer
+     * used can still be collected. Their slots are dropped when the table
+     * is rebuilt. Only used while holding the lock on this class.
+     */
+    private static final class InternTable {
+
+        private static WeakReference<Style>[] slots = newSlots(1024);
+
+        //Slots in use, including those of styles that were collected
+        private static int used = 0;
+
+        @SuppressWarnings("unchecked")
+        private static WeakReference<Style>[] newSlots(int size) {
+            return new WeakReference[size];
+        }
+
+        private static int firstSlot(int hash, int length) {
+            return (hash ^ (hash >>> 16)) & (length - 1);
+        }
+
+        static Style find(int hash, int present, int enums, int color, int backgroundColor,
+                          int borderColor, FontFamily fontFamily, StyleValue fontSize,
+                          StyleValue borderWidth, StyleValue textIndent, StyleValue marginTop,
+                          StyleValue marginBottom, StyleValue marginLeft,
+                          StyleValue marginRight) {
+
+            int mask = slots.length - 1;
+
+            for (int i = firstSlot(hash, slots.length); slots[i] != null; i = (i + 1) & mask) {
+
+                Style style = slots[i].get();
+
+                if (style != null && style.hashCode == hash
+                        && style.hasProperties(present, enums, color, backgroundColor,
+                        borderColor, fontFamily, fontSize, borderWidth, textIndent,
+                        marginTop, marginBottom, marginLeft, marginRight)) {
+                    return style;
+                }
+            }
+
+            return null;
+        }
+
+        static void add(Style style) {
+
+            if (used >= slots.length * 3 / 4) {
+                rebuild();
+            }
+
+            put(slots, style);
+            used++;
+        }
+
+        private static void put(WeakReference<Style>[] table, Style style) {
+
+            int mask = table.length - 1;
+            int i = firstSlot(style.hashCode, table.length);
+
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+
+            table[i] = new WeakReference<>(style);
+        }
+
+        /**
+         * Drops the slots of collected styles, and grows the table if
+         * it's still more than half full after that.
+         */
+        private static void rebuild() {
+
+            int live = 0;
+
+            for (WeakReference<Style> slot : slots) {
+                if (slot != null && slot.get() != null) {
+                    live++;
+                }
+            }
+
+            int size = slots.length;
+
+            if (live >= size / 2) {
+                size *= 2;
+            }
+
+            WeakReference<Style>[] newSlots = newSlots(size);
+            used = 0;
+
+            for (WeakReference<Style> slot : slots) {
+
+                Style style = slot != null ? slot.get() : null;
+
+                if (style != null) {
+                    put(newSlots, style);
+                    used++;
+                }
+            }
+
+            slots = newSlots;
+        }
+    }
 }
@@ -26,16 +26,32 @@ public class StyleCallback implements SpanCallback {
     private final FontFamily defaultFont;
     private final Style useStyle;
 
+    /**
+     * Whether colours from the style are used, or null to ask the HtmlSpanner.
+     */
+    private final Boolean useColoursFromStyle;
+
     public StyleCallback( FontFamily defaultFont, Style style, int start, int end ) {
+        this( defaultFont, style, start, end, null );
+    }
+
+    public StyleCallback( FontFamily defaultFont, Style style, int start, int end, boolean useColoursFromStyle ) {
+        this( defaultFont, style, start, end, Boolean.valueOf(useColoursFromStyle) );
+    }
+
+    private StyleCallback( FontFamily defaultFont, Style style, int start, int end, Boolean useColoursFromStyle ) {
         this.defaultFont = defaultFont;
         this.useStyle = style;
         this.start = start;
         this.end = end;
+        this.useColoursFromStyle = useColoursFromStyle;
     }
 
     @Override
     public void applySpan(HtmlSpanner spanner, SpannableStringBuilder builder) {
 
+        boolean useColours = useColoursFromStyle != null ? useColoursFromStyle : spanner.isUseColoursFromStyle();
+
         if ( useStyle.getFontFamily() != null || useStyle.getFontStyle() != null || useStyle.getFontWeight() != null ) {
 
             FontFamilySpan originalSpan = getFontFamilySpan(builder, start, end);
@@ -66,14 +82,14 @@ public class StyleCallback implements SpanCallback {
         }
 
         //If there's no border, we use a BackgroundColorSpan to draw colour behind the text
-        if ( spanner.isUseColoursFromStyle() &&  useStyle.getBackgroundColor() != null  && useStyle.getBorderStyle() == null ) {
+        if ( useColours &&  useStyle.getBackgroundColor() != null  && useStyle.getBorderStyle() == null ) {
             builder.setSpan(new BackgroundColorSpan(useStyle.getBackgroundColor()), start, end,
                     Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
 
         //If there is a border, the BorderSpan will also draw the background colour if needed.
         if ( useStyle.getBorderStyle() != null ) {
-            builder.setSpan(new BorderSpan(useStyle, start, end, spanner.isUseColoursFromStyle()), start, end,
+            builder.setSpan(new BorderSpan(useStyle, start, end, useColours), start, end,
                     Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
 
@@ -94,7 +110,7 @@ public class StyleCallback implements SpanCallback {
             }
         }
 
-        if ( spanner.isUseColoursFromStyle() && useStyle.getColor() != null ) {
+        if ( useColours && useStyle.getColor() != null ) {
             builder.setSpan(new ForegroundColorSpan(useStyle.getColor()), start, end,
                     Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
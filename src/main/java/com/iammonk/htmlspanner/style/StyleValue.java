@@ -1,6 +1,7 @@
 package com.iammonk.htmlspanner.style;
 
-import android.util.Log;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created with IntelliJ IDEA.
@@ -13,47 +14,117 @@ public class StyleValue {
 
     public static enum Unit { PX, EM, PERCENTAGE };
 
-    private Integer intValue;
-    private Float floatValue;
-
-    private Unit unit;
+    /**
+     * The value 0, as returned by parse("0").
+     */
+    public static final StyleValue ZERO = new StyleValue(0f, Unit.EM);
+
+    /**
+     * The value 1em, as returned by parse("1em").
+     */
+    public static final StyleValue ONE_EM = new StyleValue(1f, Unit.EM);
+
+    /**
+     * Shared instances for the pixel sizes stylesheets use most, so
+     * parse() doesn't create new ones for them after the cache is emptied.
+     */
+    private static final StyleValue[] PIXELS = new StyleValue[33];
+
+    static {
+        for (int i = 0; i < PIXELS.length; i++) {
+            PIXELS[i] = new StyleValue(i);
+        }
+    }
 
+    private static final int PARSE_CACHE_SIZE = 256;
+
+    /**
+     * Cached in place of values that couldn't be parsed.
+     */
+    private static final StyleValue INVALID = new StyleValue(0f, null);
+
+    /**
+     * Results of parse() by input. The cache is simply emptied when it's full.
+     */
+    private static final Map<String, StyleValue> parseCache = new ConcurrentHashMap<>();
+
+    private final float value;
+    private final Unit unit;
+
+    /**
+     * Parses a CSS length like "10px", "1.5em" or "50%".
+     * <p>
+     * Results are cached, so the same string always gives back
+     * the same (immutable) instance while it stays in the cache.
+     * 0, 1em and pixel sizes up to 32px always give back a shared instance.
+     * <p>
+     * Values that can't be parsed are not logged: callers like the border
+     * shorthand try every part of a value, and most parts aren't lengths.
+     *
+     * @return the parsed value, or null if it can't be parsed.
+     */
     public static StyleValue parse( String value ) {
 
+        StyleValue result = parseCache.get(value);
+
+        if ( result == null ) {
+            result = parseUncached(value);
+
+            if ( parseCache.size() >= PARSE_CACHE_SIZE ) {
+                parseCache.clear();
+            }
+
+            parseCache.put(value, result != null ? result : INVALID);
+
+        } else if ( result == INVALID ) {
+            result = null;
+        }
+
+        return result;
+    }
+
+    private static StyleValue parseUncached( String value ) {
+
         if ( value.equals("0") ) {
-            return new StyleValue(0f, Unit.EM);
+            return ZERO;
         }
 
         if ( value.endsWith("px") ) {
 
             try {
-                final Integer intValue = Integer.parseInt( value.substring(0, value.length() -2) );
+                final int intValue = Integer.parseInt( value.substring(0, value.length() -2) );
+
+                if ( intValue >= 0 && intValue < PIXELS.length ) {
+                    return PIXELS[intValue];
+                }
+
                 return new StyleValue(intValue);
             } catch (NumberFormatException nfe ) {
-                Log.e("StyleValue", "Can't parse value: " + value );
                 return null;
             }
         }
 
         if ( value.endsWith("%") ) {
-            Log.d("StyleValue", "translating percentage " + value );
             try {
                 final int percentage = Integer.parseInt( value.substring(0, value.length() -1 ) );
                 final float floatValue = percentage / 100f;
 
                 return new StyleValue(floatValue, Unit.PERCENTAGE);
             } catch ( NumberFormatException nfe ) {
-                Log.e("StyleValue", "Can't parse font-size: " + value );
                 return null;
             }
         }
 
         if ( value.endsWith("em") ) {
             try {
-                final Float number = Float.parseFloat(value.substring(0, value.length() - 2));
+                final float number = Float.parseFloat(value.substring(0, value.length() - 2));
+
+                if ( number == 1f ) {
+                    return ONE_EM;
+                }
+
                 return new StyleValue(number, Unit.EM);
             } catch ( NumberFormatException nfe ) {
-                Log.e("CSSCompiler", "Can't parse value: " + value );
                 return null;
             }
         }
@@ -63,32 +134,56 @@ public class StyleValue {
 
     public StyleValue( int intValue ) {
         this.unit = Unit.PX;
-        this.intValue = intValue;
+        this.value = intValue;
     }
 
     public StyleValue( float floatValue, Unit unit ) {
-        this.floatValue = floatValue;
+        this.value = floatValue;
         this.unit = unit;
     }
 
     public int getIntValue() {
-        return this.intValue;
+        return (int) this.value;
     }
 
     public float getFloatValue() {
-        return this.floatValue;
+        return this.value;
     }
 
     public Unit getUnit() {
         return this.unit;
     }
 
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof StyleValue)) {
+            return false;
+        }
+
+        StyleValue other = (StyleValue) o;
+
+        return unit == other.unit
+                && Float.floatToIntBits(value) == Float.floatToIntBits(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = unit != null ? unit.hashCode() : 0;
+        result = 31 * result + Float.floatToIntBits(value);
+        return result;
+    }
+
     @Override
     public String toString() {
-        if ( intValue != null ) {
-            return "" + intValue + this.unit;
+        if ( unit == Unit.PX && value == (int) value ) {
+            return "" + (int) value + this.unit;
         } else {
-            return "" + floatValue + this.unit;
+            return "" + value + this.unit;
         }
     }
 }
@@ -0,0 +1,230 @@
+package com.iammonk.htmlspanner;
+
+import android.text.SpannableStringBuilder;
+
+import com.iammonk.htmlspanner.handlers.NewLineHandler;
+import com.iammonk.htmlspanner.handlers.TableHandler;
+
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.TagNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BuildTextFirstTest {
+
+    @Test
+    public void builtInHandlersAreTextOnly() {
+        assertTrue(new HtmlSpanner().getHandlerTable().isTextOnly());
+    }
+
+    @Test
+    public void handlerSettingSpansIsNotTextOnly() {
+
+        HtmlSpanner spanner = new HtmlSpanner();
+        spanner.registerHandler("table", new TableHandler());
+
+        assertFalse(spanner.getHandlerTable().isTextOnly());
+
+        spanner.unregisterHandler("table");
+
+        assertTrue(spanner.getHandlerTable().isTextOnly());
+    }
+
+    @Test
+    public void customHandlerIsNotTextOnly() {
+
+        HtmlSpanner spanner = new HtmlSpanner();
+        spanner.registerHandler("x", new TagNodeHandler() {
+            @Override
+            public void handleTagNode(TagNode node, SpannableStringBuilder builder,
+                                      int start, int end, SpanStack spanStack) {
+            }
+        });
+
+        assertFalse(spanner.getHandlerTable().isTextOnly());
+    }
+
+    @Test
+    public void wrappingHandlerIsTextOnlyIfWrappedHandlerIs() {
+
+        HtmlSpanner spanner = new HtmlSpanner();
+        spanner.registerHandler("x", new NewLineHandler(1, new TableHandler()));
+
+        assertFalse(spanner.getHandlerTable().isTextOnly());
+    }
+
+    @Test
+    public void textBufferHoldsText() {
+
+        TextBuffer buffer = new TextBuffer();
+
+        buffer.append("Hello ").append("big world", 4, 9).append('!');
+        buffer.replace(buffer.length() - 1, buffer.length(), "\n");
+        buffer.insert(0, ">");
+
+        assertEquals(">Hello world\n", buffer.toString());
+        assertEquals(13, buffer.length());
+        assertEquals('w', buffer.charAt(7));
+        assertEquals("Hello", buffer.subSequence(1, 6).toString());
+
+        char[] chars = new char[5];
+        buffer.getChars(1, 6, chars, 0);
+
+        assertEquals("Hello", new String(chars));
+    }
+
+    @Test
+    public void textBufferHasNoSpans() {
+
+        TextBuffer buffer = new TextBuffer();
+        buffer.append("text");
+
+        assertEquals(0, buffer.getSpans(0, buffer.length(), Object.class).length);
+        assertEquals(4, buffer.nextSpanTransition(0, 4, Object.class));
+
+        try {
+            buffer.setSpan(new Object(), 0, 1, 0);
+            fail("Setting a span should fail");
+        } catch (UnsupportedOperationException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void appliesSpansInTextOrder() {
+
+        List<String> applied = new ArrayList<>();
+
+        //Pushed the way handlers push them: children before their parents
+        SpanStack spanStack = new SpanStack();
+        spanStack.pushSpan("inner", 2, 5);
+        spanStack.pushSpan("sibling", 5, 8);
+        spanStack.pushSpan(new RecordingCallback(applied, "callback"), 1, 4);
+        spanStack.pushSpan("outer", 0, 10);
+        spanStack.pushSpan("enclosing", 0, 10);
+
+        spanStack.applySpansInOrder(null, new RecordingBuilder(applied));
+
+        assertEquals(Arrays.asList("enclosing", "outer", "callback", "inner", "sibling"), applied);
+    }
+
+    @Test
+    public void keepsOrderOfNestedSpans() {
+
+        List<String> lastInFirstOut = new ArrayList<>();
+        List<String> inOrder = new ArrayList<>();
+
+        SpanStack first = new SpanStack();
+        SpanStack second = new SpanStack();
+
+        for (SpanStack spanStack : new SpanStack[]{first, second}) {
+            spanStack.pushSpan("b", 3, 6);
+            spanStack.pushSpan("i", 3, 6);
+            spanStack.pushSpan("a", 0, 6);
+        }
+
+        first.applySpans(null, new RecordingBuilder(lastInFirstOut));
+        second.applySpansInOrder(null, new RecordingBuilder(inOrder));
+
+        assertEquals(lastInFirstOut, inOrder);
+    }
+
+    @Test
+    public void sortsLikeStableSort() {
+
+        Random random = new Random(42);
+
+        final List<int[]> ranges = new ArrayList<>();
+        SpanStack spanStack = new SpanStack();
+
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(50);
+            int end = start + 1 + random.nextInt(10);
+
+            ranges.add(new int[]{start, end});
+            spanStack.pushSpan(String.valueOf(i), start, end);
+        }
+
+        List<String> expected = new ArrayList<>();
+
+        for (int i = ranges.size() - 1; i >= 0; i--) {
+            expected.add(String.valueOf(i));
+        }
+
+        //Collections.sort() is a stable sort as well
+        Collections.sort(expected, (a, b) -> {
+            int[] rangeA = ranges.get(Integer.parseInt(a));
+            int[] rangeB = ranges.get(Integer.parseInt(b));
+
+            return rangeA[0] != rangeB[0] ? rangeA[0] - rangeB[0] : rangeB[1] - rangeA[1];
+        });
+
+        List<String> applied = new ArrayList<>();
+        spanStack.applySpansInOrder(null, new RecordingBuilder(applied));
+
+        assertEquals(expected, applied);
+    }
+
+    @Test
+    public void rendersWithTextFirst() {
+
+        TagNode root = new TagNode("p");
+        TagNode bold = new TagNode("b");
+
+        root.addChild(new ContentNode("Some "));
+        root.addChild(bold);
+        bold.addChild(new ContentNode("bold"));
+
+        RenderSession session = new RenderSession(new HtmlSpanner(), root,
+                new RenderOptions().setBuildTextFirst(true), null);
+
+        //SpannableStringBuilder is a stub in unit tests, so this only
+        //checks that the render gets to the end.
+        assertNotNull(session.finish());
+        assertTrue(session.isDone());
+    }
+
+    /**
+     * SpannableStringBuilder which records the names of the spans set on it.
+     */
+    private static final class RecordingBuilder extends SpannableStringBuilder {
+
+        private final List<String> applied;
+
+        RecordingBuilder(List<String> applied) {
+            this.applied = applied;
+        }
+
+        @Override
+        public void setSpan(Object what, int start, int end, int flags) {
+            applied.add((String) what);
+        }
+    }
+
+    private static final class RecordingCallback implements SpanCallback {
+
+        private final List<String> applied;
+        private final String name;
+
+        RecordingCallback(List<String> applied, String name) {
+            this.applied = applied;
+            this.name = name;
+        }
+
+        @Override
+        public void applySpan(HtmlSpanner spanner, SpannableStringBuilder builder) {
+            applied.add(name);
+        }
+    }
+}
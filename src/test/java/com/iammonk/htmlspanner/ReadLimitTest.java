@@ -0,0 +1,279 @@
+package com.iammonk.htmlspanner;
+
+import com.iammonk.htmlspanner.exception.ParsingCancelledException;
+
+import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.TagNode;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that cleaning a large document stops once a render is cancelled
+ * or runs out of time, instead of reading all of the input.
+ * <p>
+ * The test only checks that the input isn't read to the end; how long it
+ * took to stop depends on the machine, so it is printed rather than asserted.
+ */
+public class ReadLimitTest {
+
+    private static final int DOCUMENT_SIZE = 10 * 1024 * 1024;
+
+    private static final int CANCEL_AFTER_CHARS = 1024 * 1024;
+
+    private static final long DEADLINE_MILLIS = 50;
+
+    private static String html;
+
+    @BeforeClass
+    public static void createDocument() {
+
+        StringBuilder builder = new StringBuilder(DOCUMENT_SIZE + 100);
+        builder.append("<html><body>");
+
+        while (builder.length() < DOCUMENT_SIZE) {
+            builder.append("<p>Some <b>bold</b> text &amp; <i>more</i> text</p>\n");
+        }
+
+        builder.append("</body></html>");
+
+        html = builder.toString();
+    }
+
+    private static HtmlCleaner createCleaner() {
+        return new HtmlCleaner();
+    }
+
+    @Test
+    public void cancellingStopsReader() throws Exception {
+
+        CountingReader input = new CountingReader(new StringReader(html));
+        Canceller canceller = new Canceller(input);
+
+        Reader reader = new CancellableReader(input, new ReadLimit(canceller));
+
+        try {
+            createCleaner().clean(reader);
+            fail("Cleaning should have been cancelled");
+        } catch (ParsingCancelledException expected) {
+            report("Reader", canceller);
+        }
+
+        assertTrue(input.count < html.length());
+    }
+
+    @Test
+    public void cancellingStopsInputStream() throws Exception {
+
+        byte[] bytes = html.getBytes(Charset.forName("UTF-8"));
+
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(bytes));
+        Canceller canceller = new Canceller(input);
+
+        InputStream inputStream = new CancellableInputStream(input, new ReadLimit(canceller));
+
+        try {
+            createCleaner().clean(inputStream);
+            fail("Cleaning should have been cancelled");
+        } catch (ParsingCancelledException expected) {
+            report("InputStream", canceller);
+        }
+
+        assertTrue(input.count < bytes.length);
+    }
+
+    @Test
+    public void cancelledBeforeReadingReadsNothing() throws Exception {
+
+        CountingReader input = new CountingReader(new StringReader(html));
+        Reader reader = new CancellableReader(input, new ReadLimit(() -> true));
+
+        try {
+            createCleaner().clean(reader);
+            fail("Cleaning should have been cancelled");
+        } catch (ParsingCancelledException expected) {
+            //Expected
+        }
+
+        assertEquals(0, input.count);
+    }
+
+    @Test
+    public void deadlineCutsInputShort() throws Exception {
+
+        CountingReader input = new CountingReader(new StringReader(html));
+
+        long start = System.nanoTime();
+        ReadLimit limit = new ReadLimit(null, start + DEADLINE_MILLIS * 1000000L);
+
+        TagNode root = createCleaner().clean(new CancellableReader(input, limit));
+
+        System.out.println("Cleaning with a " + DEADLINE_MILLIS + " ms deadline took "
+                + (System.nanoTime() - start) / 1000000L + " ms");
+
+        assertTrue(limit.isTruncated());
+        assertTrue(input.count < html.length());
+
+        //What was read so far is still a usable tree
+        assertNotNull(root.findElementByName("body", false));
+    }
+
+    @Test
+    public void deadlineCutsInputStreamShort() throws Exception {
+
+        byte[] bytes = html.getBytes(Charset.forName("UTF-8"));
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(bytes));
+
+        ReadLimit limit = new ReadLimit(null, System.nanoTime() + DEADLINE_MILLIS * 1000000L);
+
+        TagNode root = createCleaner().clean(new CancellableInputStream(input, limit));
+
+        assertTrue(limit.isTruncated());
+        assertTrue(input.count < bytes.length);
+        assertNotNull(root.findElementByName("body", false));
+    }
+
+    @Test
+    public void noLimitReadsEverything() throws Exception {
+
+        String small = "<p>One</p><p>Two &amp; three</p>";
+
+        CountingReader input = new CountingReader(new StringReader(small));
+        ReadLimit limit = new ReadLimit(() -> false);
+
+        TagNode root = createCleaner().clean(new CancellableReader(input, limit));
+
+        assertFalse(limit.isTruncated());
+        assertEquals(small.length(), input.count);
+        assertEquals(2, root.getElementsByName("p", true).length);
+    }
+
+    /**
+     * Prints how long the clean took to stop, as it depends on the machine.
+     */
+    private static void report(String input, Canceller canceller) {
+
+        long micros = (System.nanoTime() - canceller.cancelledAt) / 1000L;
+
+        System.out.println(input + " stopped " + micros + " us after being cancelled");
+    }
+
+    /**
+     * CancellationCallback which is cancelled once a given amount of the
+     * input has been read.
+     */
+    private static final class Canceller implements HtmlSpanner.CancellationCallback {
+
+        private final Counting input;
+
+        private long cancelledAt = 0;
+
+        Canceller(Counting input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean isCancelled() {
+
+            if (input.getCount() < CANCEL_AFTER_CHARS) {
+                return false;
+            }
+
+            if (cancelledAt == 0) {
+                cancelledAt = System.nanoTime();
+            }
+
+            return true;
+        }
+    }
+
+    private interface Counting {
+        long getCount();
+    }
+
+    private static final class CountingReader extends FilterReader implements Counting {
+
+        long count = 0;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+
+            if (c >= 0) {
+                count++;
+            }
+
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+
+            if (read > 0) {
+                count += read;
+            }
+
+            return read;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream implements Counting {
+
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b >= 0) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+
+            if (read > 0) {
+                count += read;
+            }
+
+            return read;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.iammonk.htmlspanner;
+
+import android.text.SpannableStringBuilder;
+
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.TagNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TagNodeTraversalTest {
+
+    private static final int DEEP = 10000;
+
+    private final List<String> calls = new ArrayList<>();
+
+    private HtmlSpanner spanner;
+
+    @Before
+    public void createSpanner() {
+        spanner = new HtmlSpanner();
+        spanner.registerHandler("div", new RecordingHandler(calls, false));
+        spanner.registerHandler("span", new RecordingHandler(calls, false));
+        spanner.registerHandler("style", new RecordingHandler(calls, true));
+    }
+
+    private String render(TagNode root, int maxDepth) {
+
+        TextBuilder builder = new TextBuilder();
+        SpanStack spanStack = new SpanStack(spanner, new RenderOptions());
+
+        TagNodeTraversal traversal = new TagNodeTraversal(spanner.getHandlerTable(), root,
+                builder, spanStack, null, maxDepth, 100);
+
+        assertTrue(traversal.step(Long.MAX_VALUE));
+
+        return builder.toString();
+    }
+
+    private static TagNode element(String name, Object... children) {
+
+        TagNode node = new TagNode(name);
+
+        for (Object child : children) {
+            if (child instanceof String) {
+                node.addChild(new ContentNode((String) child));
+            } else {
+                node.addChild(child);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Creates a chain of nested divs with text at the bottom.
+     */
+    private static TagNode nest(int depth, String text) {
+
+        TagNode root = element("div");
+        TagNode node = root;
+
+        for (int i = 1; i < depth; i++) {
+            TagNode child = element("div");
+            node.addChild(child);
+            node = child;
+        }
+
+        node.addChild(new ContentNode(text));
+
+        return root;
+    }
+
+    @Test
+    public void callsHandlersInDocumentOrder() {
+
+        TagNode root = element("div", "a", element("span", "b"), "c");
+
+        assertEquals("abc", render(root, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("div[", "span[", "span(1,2)", "div(0,3)"), calls);
+    }
+
+    @Test
+    public void rendersDeeplyNestedDocument() throws Throwable {
+
+        final TagNode root = nest(DEEP, "deep");
+        final String[] result = new String[1];
+        final Throwable[] failure = new Throwable[1];
+
+        //A small stack makes sure the traversal doesn't depend on the
+        //stack size of the thread that happens to run the test.
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result[0] = render(root, Integer.MAX_VALUE);
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        }, "deep", 128 * 1024);
+
+        thread.start();
+        thread.join();
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        assertEquals("deep", result[0]);
+        assertEquals(DEEP * 2, calls.size());
+        assertEquals("div[", calls.get(DEEP - 1));
+        assertEquals("div(0,4)", calls.get(DEEP));
+        assertEquals("div(0,4)", calls.get(calls.size() - 1));
+    }
+
+    @Test
+    public void rendersDeeplyNestedDocumentThroughSpanner() {
+
+        spanner.unregisterHandler("div");
+        spanner.setMaxDepth(Integer.MAX_VALUE);
+
+        //SpannableStringBuilder is a stub in unit tests, so this only
+        //checks that the render gets to the end.
+        spanner.fromTagNode(nest(DEEP, "deep"), null);
+    }
+
+    @Test
+    public void keepsTextPastMaximumDepth() {
+
+        TagNode root = element("div", "a",
+                element("span", "b",
+                        element("span", "c",
+                                element("div", "d"))));
+
+        assertEquals("abcd", render(root, 2));
+
+        //Only the first two levels are handed to their handler
+        assertEquals(Arrays.asList("div[", "span[", "span(1,4)", "div(0,4)"), calls);
+    }
+
+    @Test
+    public void skipsContentRenderedByHandlerPastMaximumDepth() {
+
+        TagNode root = element("div", "a",
+                element("span",
+                        element("style", "p { color: red; }"),
+                        element("span", "b")));
+
+        assertEquals("ab", render(root, 1));
+        assertEquals(Arrays.asList("div[", "div(0,2)"), calls);
+    }
+
+    @Test
+    public void leavesContentToHandlerWithinMaximumDepth() {
+
+        TagNode root = element("div", element("style", "p { color: red; }"), "a");
+
+        assertEquals("a", render(root, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("div[", "style[", "style(0,0)", "div(0,1)"), calls);
+    }
+
+    @Test
+    public void handlesNothingBeforeFirstStep() {
+
+        TagNode root = element("div", "a");
+
+        RenderSession session = new RenderSession(spanner, root, new RenderOptions(), null);
+
+        assertTrue(calls.isEmpty());
+
+        session.step(0);
+
+        assertEquals("div[", calls.get(0));
+    }
+
+    @Test
+    public void truncatesBeforeFirstStep() {
+
+        RenderSession session = new RenderSession(spanner, element("div", "a"),
+                new RenderOptions(), null);
+
+        session.truncate();
+
+        assertTrue(session.isDone());
+        assertTrue(session.isTruncated());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void truncateClosesOpenNodes() {
+
+        TextBuilder builder = new TextBuilder();
+        SpanStack spanStack = new SpanStack(spanner, new RenderOptions());
+
+        TagNodeTraversal traversal = new TagNodeTraversal(spanner.getHandlerTable(),
+                element("div", "a", element("span", "b"), "c"), builder, spanStack,
+                null, Integer.MAX_VALUE, 1);
+
+        //With a check on every node, a zero budget handles one child per step
+        traversal.step(0);
+        traversal.step(0);
+        traversal.truncate();
+
+        assertEquals("a", builder.toString());
+        assertEquals(Arrays.asList("div[", "span[", "span(1,1)", "div(0,1)"), calls);
+    }
+
+    /**
+     * Handler which records when it's called, as "name[" for
+     * beforeChildren() and "name(start,end)" for handleTagNode().
+     */
+    private static final class RecordingHandler extends TagNodeHandler {
+
+        private final List<String> calls;
+        private final boolean rendersContent;
+
+        RecordingHandler(List<String> calls, boolean rendersContent) {
+            this.calls = calls;
+            this.rendersContent = rendersContent;
+        }
+
+        @Override
+        public void beforeChildren(TagNode node, SpannableStringBuilder builder, SpanStack spanStack) {
+            calls.add(node.getName() + "[");
+        }
+
+        @Override
+        public boolean rendersContent() {
+            return rendersContent;
+        }
+
+        @Override
+        public void handleTagNode(TagNode node, SpannableStringBuilder builder,
+                                  int start, int end, SpanStack spanStack) {
+            calls.add(node.getName() + "(" + start + "," + end + ")");
+        }
+    }
+
+    /**
+     * SpannableStringBuilder keeping its text in a StringBuilder, because
+     * the android.jar used by unit tests only has stubs.
+     */
+    static final class TextBuilder extends SpannableStringBuilder {
+
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public SpannableStringBuilder append(CharSequence s) {
+            text.append(s);
+            return this;
+        }
+
+        @Override
+        public SpannableStringBuilder append(char c) {
+            text.append(c);
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return text.charAt(index);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
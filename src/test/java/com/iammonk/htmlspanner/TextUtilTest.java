@@ -0,0 +1,125 @@
+package com.iammonk.htmlspanner;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TextUtilTest {
+
+    private static String decode(String text) {
+        return TextUtil.replaceHtmlEntities(text, true);
+    }
+
+    @Test
+    public void decodesNamedEntities() {
+        assertEquals("<a href=\"x\">&</a>", decode("&lt;a href=&quot;x&quot;&gt;&amp;&lt;/a&gt;"));
+        assertEquals("caf\u00E9 \u00A9 \u20AC", decode("caf&eacute; &copy; &euro;"));
+        assertEquals("\u00A0", decode("&nbsp;"));
+        assertEquals("\u00C6\u03B1", decode("&AElig;&alpha;"));
+    }
+
+    @Test
+    public void decodesEntitiesWithSeveralCharacters() {
+        assertEquals("fj", decode("&fjlig;"));
+        assertEquals("\u2242\u0338", decode("&NotEqualTilde;"));
+        assertEquals("\uD835\uDD04", decode("&Afr;"));
+    }
+
+    @Test
+    public void decodesLegacyEntitiesWithoutSemicolon() {
+        assertEquals("\u00A9 2024", decode("&copy 2024"));
+        assertEquals("&x", decode("&ampx"));
+        assertEquals("\u00E9t\u00E9", decode("&eacutet&eacute;"));
+    }
+
+    @Test
+    public void usesLongestMatch() {
+        assertEquals("\u2209", decode("&notin;"));
+        assertEquals("\u00ACit;", decode("&notit;"));
+        assertEquals("\u00AC", decode("&not"));
+    }
+
+    @Test
+    public void keepsUnknownEntities() {
+        assertEquals("&unknown;", decode("&unknown;"));
+        assertEquals("a & b", decode("a & b"));
+        assertEquals("&", decode("&"));
+        assertEquals("&;", decode("&;"));
+        assertEquals("AT&T", decode("AT&T"));
+    }
+
+    @Test
+    public void decodesDecimalReferences() {
+        assertEquals("AB", decode("&#65;&#66"));
+        assertEquals("\u00E9", decode("&#233;"));
+        assertEquals("\uD83D\uDE00", decode("&#128512;"));
+    }
+
+    @Test
+    public void decodesHexReferences() {
+        assertEquals("AA", decode("&#x41;&#X41;"));
+        assertEquals("\u20AC", decode("&#x20ac;"));
+        assertEquals("\uD83D\uDE00", decode("&#x1F600;"));
+    }
+
+    @Test
+    public void mapsWindows1252References() {
+        assertEquals("\u20AC\u2013\u2019\u0178", decode("&#128;&#150;&#x92;&#159;"));
+        assertEquals("\u0081", decode("&#129;"));
+    }
+
+    @Test
+    public void replacesInvalidReferences() {
+        assertEquals("\uFFFD", decode("&#0;"));
+        assertEquals("\uFFFD", decode("&#xD800;"));
+        assertEquals("\uFFFD", decode("&#x110000;"));
+        assertEquals("\uFFFDx", decode("&#99999999999999999999;x"));
+    }
+
+    @Test
+    public void keepsReferencesWithoutDigits() {
+        assertEquals("&#;", decode("&#;"));
+        assertEquals("&#x;", decode("&#x;"));
+        assertEquals("&#xyz", decode("&#xyz"));
+    }
+
+    @Test
+    public void collapsesWhiteSpaceUnlessPreserved() {
+        assertEquals("a b c ", TextUtil.replaceHtmlEntities("a \n\t b\rc\f\u000B", false));
+        assertEquals("a \n\t b", TextUtil.replaceHtmlEntities("a \n\t b", true));
+        assertEquals("a & b", TextUtil.replaceHtmlEntities("a  &amp;\n\nb", false));
+    }
+
+    @Test
+    public void keepsNonBreakingSpace() {
+        assertEquals("a\u00A0 b", TextUtil.replaceHtmlEntities("a&nbsp;  b", false));
+    }
+
+    @Test
+    public void returnsPlainTextAsIs() {
+        String text = "Nothing to replace here.";
+
+        assertSame(text, TextUtil.replaceHtmlEntities(text, false));
+        assertSame(text, TextUtil.replaceHtmlEntities(text, true));
+    }
+
+    @Test
+    public void appendsToBuilder() {
+        StringBuilder builder = new StringBuilder("x:");
+        TextUtil.appendHtmlEntities(builder, "&lt;p&gt;", false);
+
+        assertEquals("x:<p>", builder.toString());
+    }
+
+    @Test
+    public void appendsToAppendable() throws IOException {
+        StringWriter writer = new StringWriter();
+        TextUtil.appendHtmlEntities(writer, "1 &lt;  2", false);
+
+        assertEquals("1 < 2", writer.toString());
+    }
+}
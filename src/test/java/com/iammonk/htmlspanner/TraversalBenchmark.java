@@ -0,0 +1,164 @@
+package com.iammonk.htmlspanner;
+
+import android.text.SpannableStringBuilder;
+
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.TagNode;
+
+/**
+ * Compares the TagNodeTraversal with the recursive walk it replaced, on
+ * documents nested 10000 levels deep.
+ * <p>
+ * The recursive walk needs a large thread stack for such documents, so
+ * both are timed on a thread with a 256 MB stack. The benchmark also
+ * checks which of the two still work with a 256 KB stack.
+ * <p>
+ * Not a unit test; run it with
+ * <code>java com.iammonk.htmlspanner.TraversalBenchmark [depth]</code>.
+ */
+public final class TraversalBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private static final long LARGE_STACK = 256L * 1024 * 1024;
+    private static final long SMALL_STACK = 256L * 1024;
+
+    private TraversalBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        final HtmlSpanner spanner = new HtmlSpanner();
+        final TagNode root = createDocument(depth);
+
+        System.out.println("Depth " + depth);
+
+        runOnStack(LARGE_STACK, new Runnable() {
+            @Override
+            public void run() {
+
+                long recursive = Long.MAX_VALUE;
+                long iterative = Long.MAX_VALUE;
+
+                for (int round = 0; round < ROUNDS; round++) {
+
+                    long start = System.nanoTime();
+                    new RecursiveWalk(spanner).render(root);
+                    recursive = Math.min(recursive, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    renderIteratively(spanner, root);
+                    iterative = Math.min(iterative, System.nanoTime() - start);
+                }
+
+                System.out.println("Recursive walk:   " + recursive / 1000000.0 + " ms");
+                System.out.println("TagNodeTraversal: " + iterative / 1000000.0 + " ms");
+            }
+        });
+
+        runOnStack(SMALL_STACK, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new RecursiveWalk(spanner).render(root);
+                    System.out.println("Recursive walk fits in a 256 KB stack");
+                } catch (StackOverflowError e) {
+                    System.out.println("Recursive walk overflows a 256 KB stack");
+                }
+
+                renderIteratively(spanner, root);
+                System.out.println("TagNodeTraversal fits in a 256 KB stack");
+            }
+        });
+    }
+
+    private static void runOnStack(long stackSize, Runnable runnable) throws InterruptedException {
+        Thread thread = new Thread(null, runnable, "benchmark", stackSize);
+        thread.start();
+        thread.join();
+    }
+
+    private static int renderIteratively(HtmlSpanner spanner, TagNode root) {
+
+        SpannableStringBuilder builder = new TagNodeTraversalTest.TextBuilder();
+        SpanStack spanStack = new SpanStack(spanner, new RenderOptions());
+
+        TagNodeTraversal traversal = new TagNodeTraversal(spanner.getHandlerTable(), root,
+                builder, spanStack, null, Integer.MAX_VALUE, 1000);
+
+        traversal.step(Long.MAX_VALUE);
+
+        return builder.length();
+    }
+
+    /**
+     * Creates a chain of nested divs with some text on every level.
+     */
+    private static TagNode createDocument(int depth) {
+
+        TagNode root = new TagNode("div");
+        TagNode node = root;
+
+        for (int i = 1; i < depth; i++) {
+            TagNode child = new TagNode("div");
+            node.addChild(new ContentNode("Level " + i + " "));
+            node.addChild(child);
+            node = child;
+        }
+
+        node.addChild(new ContentNode("Bottom"));
+
+        return root;
+    }
+
+    /**
+     * The recursive walk as HtmlSpanner used to do it, with the same
+     * handler and SpanStack calls the TagNodeTraversal makes.
+     */
+    private static final class RecursiveWalk {
+
+        private final HandlerTable handlerTable;
+        private final SpannableStringBuilder builder = new TagNodeTraversalTest.TextBuilder();
+        private final SpanStack spanStack;
+
+        RecursiveWalk(HtmlSpanner spanner) {
+            this.handlerTable = spanner.getHandlerTable();
+            this.spanStack = new SpanStack(spanner, new RenderOptions());
+        }
+
+        int render(TagNode root) {
+            applySpan(root);
+            return builder.length();
+        }
+
+        private void applySpan(TagNode node) {
+
+            TagNodeHandler handler = handlerTable.get(node.getName());
+
+            int lengthBefore = builder.length();
+
+            spanStack.beginNode(node);
+            handler.beforeChildren(node, builder, spanStack);
+            spanStack.pushAncestor(node);
+
+            if (!handler.rendersContent()) {
+
+                for (Object childNode : node.getAllChildren()) {
+
+                    if (childNode instanceof ContentNode) {
+                        builder.append(TextUtil.replaceHtmlEntities(
+                                ((ContentNode) childNode).getContent(), false));
+                    } else if (childNode instanceof TagNode) {
+                        applySpan((TagNode) childNode);
+                    }
+                }
+            }
+
+            spanStack.popAncestor();
+            handler.handleTagNode(node, builder, lengthBefore, builder.length(), spanStack);
+            spanStack.endNode();
+        }
+    }
+}
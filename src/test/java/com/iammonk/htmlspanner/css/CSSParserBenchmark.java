@@ -0,0 +1,77 @@
+package com.iammonk.htmlspanner.css;
+
+import java.util.List;
+
+/**
+ * Times parsing a generated stylesheet of about 1 MB.
+ * <p>
+ * Not a unit test; run it with
+ * <code>java com.iammonk.htmlspanner.css.CSSParserBenchmark [size in bytes]</code>.
+ */
+public final class CSSParserBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    private CSSParserBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024 * 1024;
+
+        String css = createStylesheet(size);
+
+        long best = Long.MAX_VALUE;
+        int ruleCount = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+
+            long start = System.nanoTime();
+            List<Rule> rules = CSSParser.parse(css);
+            best = Math.min(best, System.nanoTime() - start);
+
+            ruleCount = rules.size();
+        }
+
+        System.out.println(css.length() + " chars, " + ruleCount + " rules");
+        System.out.println("Best of " + ROUNDS + ": " + best / 1000000.0 + " ms");
+    }
+
+    /**
+     * Creates a stylesheet of ordinary rules with a comment and an inline
+     * image every now and then.
+     */
+    private static String createStylesheet(int size) {
+
+        StringBuilder css = new StringBuilder(size + 1024);
+        int i = 0;
+
+        while (css.length() < size) {
+
+            if (i % 100 == 0) {
+                css.append("/* Section ").append(i / 100).append(" */\n");
+            }
+
+            css.append("div.section").append(i).append(" p, .c").append(i).append(" > span {\n")
+                    .append("    color: #").append(Integer.toHexString(0x100000 + i % 0xEFFFFF)).append(";\n")
+                    .append("    font-size: ").append(10 + i % 10).append("px;\n")
+                    .append("    margin: 0 0 1em 0;\n")
+                    .append("    font-family: \"Georgia\", serif;\n");
+
+            if (i % 50 == 0) {
+                css.append("    background: url(data:image/png;base64,");
+
+                for (int j = 0; j < 2000; j++) {
+                    css.append((char) ('A' + j % 26));
+                }
+
+                css.append(");\n");
+            }
+
+            css.append("}\n");
+            i++;
+        }
+
+        return css.toString();
+    }
+}
@@ -0,0 +1,271 @@
+package com.iammonk.htmlspanner.css;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CSSParserTest {
+
+    private final List<ParseDiagnostic> diagnostics = new ArrayList<>();
+
+    private List<Rule> parse(String css) {
+        return CSSParser.parse(css, diagnostics);
+    }
+
+    private static void assertRule(Rule rule, String selector, String... declarations) {
+
+        assertEquals(selector, selectorsOf(rule));
+
+        List<PropertyValue> values = rule.getPropertyValues();
+        assertEquals(declarations.length / 2, values.size());
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(declarations[i * 2], values.get(i).getProperty());
+            assertEquals(declarations[i * 2 + 1], values.get(i).getValue());
+        }
+    }
+
+    private static String selectorsOf(Rule rule) {
+
+        StringBuilder result = new StringBuilder();
+
+        for (Selector selector : rule.getSelectors()) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+
+            result.append(selector);
+        }
+
+        return result.toString();
+    }
+
+    private void assertDiagnostics(IncorrectFormatException.ErrorCode... errorCodes) {
+
+        assertEquals(diagnostics.toString(), errorCodes.length, diagnostics.size());
+
+        for (int i = 0; i < errorCodes.length; i++) {
+            assertEquals(errorCodes[i], diagnostics.get(i).getErrorCode());
+        }
+    }
+
+    @Test
+    public void parsesValidRules() {
+
+        List<Rule> rules = parse("a { color: red; font-size: 12px; }\n b, i.x {font-weight:bold}");
+
+        assertEquals(2, rules.size());
+        assertRule(rules.get(0), "a", "color", "red", "font-size", "12px");
+        assertRule(rules.get(1), "b, i.x", "font-weight", "bold");
+        assertDiagnostics();
+    }
+
+    @Test
+    public void blankInputGivesNoRules() {
+        assertTrue(parse("").isEmpty());
+        assertTrue(parse("  \n\t ").isEmpty());
+        assertTrue(CSSParser.parse((String) null).isEmpty());
+        assertDiagnostics();
+    }
+
+    @Test
+    public void skipsComments() {
+
+        List<Rule> rules = parse("/* header */ a /* x */ { color: /* y */ red; }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+        assertDiagnostics();
+    }
+
+    @Test
+    public void keepsSpecialCharactersInsideBrackets() {
+
+        List<Rule> rules = parse("a { background: url(http://example.com/a;b.png); color: red }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a",
+                "background", "url(http://example.com/a;b.png)", "color", "red");
+        assertDiagnostics();
+    }
+
+    @Test
+    public void keepsLongValues() {
+
+        StringBuilder data = new StringBuilder("url(data:image/png;base64,");
+
+        for (int i = 0; i < 100000; i++) {
+            data.append((char) ('a' + i % 26));
+        }
+
+        data.append(')');
+
+        List<Rule> rules = parse("a { background: " + data + " }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "background", data.toString());
+        assertDiagnostics();
+    }
+
+    @Test
+    public void skipsDeclarationWithColonInValue() {
+
+        String css = "a { color: red: blue; font-size: 12px }";
+        List<Rule> rules = parse(css);
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "font-size", "12px");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_COLON_WHILE_READING_VALUE);
+        assertEquals(css.indexOf("red:") + 3, diagnostics.get(0).getOffset());
+    }
+
+    @Test
+    public void skipsDeclarationWithoutValue() {
+
+        List<Rule> rules = parse("a { bogus; color: red }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_SEMICOLON_WHEN_READING_PROPERTY_NAME);
+    }
+
+    @Test
+    public void allowsEmptyDeclarations() {
+
+        List<Rule> rules = parse("a { ;; color: red;; }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+        assertDiagnostics();
+    }
+
+    @Test
+    public void dropsRuleWithoutValidDeclarations() {
+
+        List<Rule> rules = parse("a { color } b { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "b", "color", "blue");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.MISSING_COLON_IN_DECLARATION);
+    }
+
+    @Test
+    public void skipsBlockInDeclaration() {
+
+        List<Rule> rules = parse("a { color: { x: { y } } red; font-weight: bold }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "font-weight", "bold");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_BLOCK_IN_DECLARATION);
+    }
+
+    @Test
+    public void skipsAtRulesWithNestedBlocks() {
+
+        List<Rule> rules = parse("@media screen { a { color: red } p { color: green } } b { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "b", "color", "blue");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_AT_RULE);
+    }
+
+    @Test
+    public void skipsStatementAtRules() {
+
+        List<Rule> rules = parse("@import url(other.css); @charset \"utf-8\"; b { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "b", "color", "blue");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_AT_RULE,
+                IncorrectFormatException.ErrorCode.FOUND_AT_RULE);
+    }
+
+    @Test
+    public void dropsRuleWithEmptySelector() {
+
+        List<Rule> rules = parse("a, { color: red } , b { color: green } i { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "i", "color", "blue");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_COLON_WHEN_READING_SELECTOR_NAME,
+                IncorrectFormatException.ErrorCode.FOUND_COLON_WHEN_READING_SELECTOR_NAME);
+    }
+
+    @Test
+    public void closesRuleAtEndOfInput() {
+
+        String css = "a { color: red; font-size: 12px";
+        List<Rule> rules = parse(css);
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red", "font-size", "12px");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT);
+        assertEquals(css.length(), diagnostics.get(0).getOffset());
+    }
+
+    @Test
+    public void reportsSelectorWithoutDeclarations() {
+
+        List<Rule> rules = parse("a { color: red } b");
+
+        assertEquals(1, rules.size());
+        assertDiagnostics(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT);
+    }
+
+    @Test
+    public void reportsUnclosedComment() {
+
+        String css = "a { color: red } /* never closed";
+        List<Rule> rules = parse(css);
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT);
+        assertEquals(css.indexOf("/*"), diagnostics.get(0).getOffset());
+    }
+
+    @Test
+    public void reportsUnclosedAtRule() {
+
+        List<Rule> rules = parse("a { color: red } @media print { b { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_AT_RULE,
+                IncorrectFormatException.ErrorCode.UNEXPECTED_END_OF_INPUT);
+    }
+
+    @Test
+    public void recoversFromSeveralErrors() {
+
+        List<Rule> rules = parse("a { color: red: x; } @font-face { src: x } b { ; margin } i { color: blue }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "i", "color", "blue");
+        assertDiagnostics(IncorrectFormatException.ErrorCode.FOUND_COLON_WHILE_READING_VALUE,
+                IncorrectFormatException.ErrorCode.FOUND_AT_RULE,
+                IncorrectFormatException.ErrorCode.MISSING_COLON_IN_DECLARATION);
+    }
+
+    @Test
+    public void parsesWithoutDiagnosticsList() {
+
+        List<Rule> rules = CSSParser.parse("a { color: red: x; font-size: 2em }");
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "font-size", "2em");
+    }
+
+    @Test
+    public void acceptsAnyCharSequence() {
+
+        List<Rule> rules = CSSParser.parse(new StringBuilder("a { color: red }"));
+
+        assertEquals(1, rules.size());
+        assertRule(rules.get(0), "a", "color", "red");
+    }
+}
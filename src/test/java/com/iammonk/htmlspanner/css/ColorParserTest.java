@@ -0,0 +1,140 @@
+package com.iammonk.htmlspanner.css;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColorParserTest {
+
+    private static void assertColor(long expected, String value) {
+        assertEquals(value, expected, ColorParser.parse(value));
+    }
+
+    private static void assertInvalid(String value) {
+        assertEquals(value, ColorParser.INVALID, ColorParser.parse(value));
+    }
+
+    @Test
+    public void parsesShortHex() {
+        assertColor(0xFFAABBCCL, "#abc");
+        assertColor(0xFFAABBCCL, "#ABC");
+        assertColor(0xDDAABBCCL, "#abcd");
+    }
+
+    @Test
+    public void parsesLongHex() {
+        assertColor(0xFFA1B2C3L, "#a1b2c3");
+        assertColor(0xFF000000L, "#000000");
+        assertColor(0xD4A1B2C3L, "#A1B2C3D4");
+        assertColor(0x00FFFFFFL, "#ffffff00");
+    }
+
+    @Test
+    public void rejectsBadHex() {
+        assertInvalid("#");
+        assertInvalid("#ab");
+        assertInvalid("#abcde");
+        assertInvalid("#abcdefa");
+        assertInvalid("#ggg");
+        assertInvalid("#12345z");
+    }
+
+    @Test
+    public void parsesRgb() {
+        assertColor(0xFFFF0000L, "rgb(255, 0, 0)");
+        assertColor(0xFF0A141EL, "rgb(10,20,30)");
+        assertColor(0xFF008000L, "rgb(0 128 0)");
+        assertColor(0xFFFF0080L, "rgb(100%, 0%, 50%)");
+        assertColor(0xFF808080L, "RGB( 127.5 , 128 , 128 )");
+    }
+
+    @Test
+    public void clampsRgbComponents() {
+        assertColor(0xFFFF0000L, "rgb(300, -5, 0)");
+        assertColor(0xFFFF0000L, "rgb(150%, 0%, 0%)");
+    }
+
+    @Test
+    public void parsesRgbWithAlpha() {
+        assertColor(0x800000FFL, "rgba(0, 0, 255, 0.5)");
+        assertColor(0x800000FFL, "rgb(0, 0, 255, 0.5)");
+        assertColor(0x80008000L, "rgb(0 128 0 / 50%)");
+        assertColor(0x00000000L, "rgba(0, 0, 0, 0)");
+        assertColor(0xFF000000L, "rgba(0, 0, 0, 2)");
+    }
+
+    @Test
+    public void parsesHsl() {
+        assertColor(0xFFFF0000L, "hsl(0, 100%, 50%)");
+        assertColor(0xFF00FF00L, "hsl(120, 100%, 50%)");
+        assertColor(0xFF0000FFL, "hsl(240deg 100% 50%)");
+        assertColor(0xFFFF0000L, "hsl(360, 100%, 50%)");
+        assertColor(0xFFFF0000L, "hsl(-360, 100%, 50%)");
+        assertColor(0xFF808080L, "hsl(90, 0%, 50%)");
+        assertColor(0xFFFFFFFFL, "hsl(0, 0%, 100%)");
+    }
+
+    @Test
+    public void parsesHslWithAlpha() {
+        assertColor(0x80FFFFFFL, "hsla(0, 0%, 100%, 0.5)");
+        assertColor(0x4000FF00L, "hsl(120 100% 50% / 25%)");
+    }
+
+    @Test
+    public void rejectsBadFunctions() {
+        assertInvalid("rgb(1, 2)");
+        assertInvalid("rgb(1, 2, 3, 4, 5)");
+        assertInvalid("rgb(1, 2, 3");
+        assertInvalid("rgb(a, b, c)");
+        assertInvalid("rgb()");
+        assertInvalid("cmyk(1, 2, 3, 4)");
+        assertInvalid("hsl(120, 100%, 50%) x");
+    }
+
+    @Test
+    public void parsesNames() {
+        assertColor(0xFFF0F8FFL, "aliceblue");
+        assertColor(0xFF9ACD32L, "yellowgreen");
+        assertColor(0xFFFF0000L, "red");
+        assertColor(0xFF663399L, "rebeccapurple");
+        assertColor(0xFF808080L, "gray");
+        assertColor(0xFF808080L, "grey");
+        assertColor(0xFF2F4F4FL, "darkslategrey");
+        assertColor(0xFF00FFFFL, "cyan");
+        assertColor(0xFF00FFFFL, "aqua");
+    }
+
+    @Test
+    public void parsesNamesIgnoringCase() {
+        assertColor(0xFFFF0000L, "RED");
+        assertColor(0xFF6495EDL, "CornflowerBlue");
+    }
+
+    @Test
+    public void parsesTransparent() {
+        assertColor(0x00000000L, "transparent");
+    }
+
+    @Test
+    public void rejectsUnknownNames() {
+        assertInvalid("redd");
+        assertInvalid("re");
+        assertInvalid("a");
+        assertInvalid("zzz");
+        assertInvalid("light blue");
+    }
+
+    @Test
+    public void ignoresSurroundingWhitespace() {
+        assertColor(0xFFFF0000L, "  red\t");
+        assertColor(0xFFAABBCCL, "\n#abc ");
+        assertColor(0xFF0A141EL, " rgb(10, 20, 30) ");
+    }
+
+    @Test
+    public void rejectsEmptyValues() {
+        assertInvalid(null);
+        assertInvalid("");
+        assertInvalid("   ");
+    }
+}
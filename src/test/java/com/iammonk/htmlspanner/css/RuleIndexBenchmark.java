@@ -0,0 +1,162 @@
+package com.iammonk.htmlspanner.css;
+
+import org.htmlcleaner.TagNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares looking up the rules for each node of a document in a RuleIndex
+ * with testing every rule against every node.
+ * <p>
+ * Not a unit test; run it with
+ * <code>java com.iammonk.htmlspanner.css.RuleIndexBenchmark [rules] [nodes]</code>.
+ */
+public final class RuleIndexBenchmark {
+
+    private static final String[] TAG_NAMES = {"div", "p", "span", "a", "b", "i", "em", "h1", "h2", "li"};
+
+    private static final int ROUNDS = 10;
+
+    private RuleIndexBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int ruleCount = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int nodeCount = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        Random random = new Random(42);
+
+        List<CompiledRule> rules = new ArrayList<>();
+        RuleIndex index = new RuleIndex();
+
+        for (Rule rule : CSSParser.parse(createStylesheet(random, ruleCount))) {
+            CompiledRule compiledRule = CSSCompiler.compile(rule, null);
+
+            rules.add(compiledRule);
+            index.add(compiledRule);
+        }
+
+        List<TagNode> nodes = createDocument(random, nodeCount);
+
+        System.out.println(rules.size() + " rules, " + nodes.size() + " nodes");
+
+        long linear = Long.MAX_VALUE;
+        long indexed = Long.MAX_VALUE;
+        int linearMatches = 0;
+        int indexedMatches = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+
+            long start = System.nanoTime();
+            linearMatches = matchEveryRule(rules, nodes);
+            linear = Math.min(linear, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            indexedMatches = matchIndexedRules(index, nodes);
+            indexed = Math.min(indexed, System.nanoTime() - start);
+        }
+
+        if (linearMatches != indexedMatches) {
+            throw new IllegalStateException("Linear scan found " + linearMatches
+                    + " matches, the index found " + indexedMatches);
+        }
+
+        System.out.println(linearMatches + " matches");
+        System.out.println("Every rule: " + linear / 1000000.0 + " ms");
+        System.out.println("RuleIndex:  " + indexed / 1000000.0 + " ms");
+    }
+
+    private static int matchEveryRule(List<CompiledRule> rules, List<TagNode> nodes) {
+
+        int matches = 0;
+
+        for (TagNode node : nodes) {
+            for (CompiledRule rule : rules) {
+                if (rule.matches(node)) {
+                    matches++;
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    private static int matchIndexedRules(RuleIndex index, List<TagNode> nodes) {
+
+        int matches = 0;
+        List<CompiledRule> result = new ArrayList<>();
+
+        for (TagNode node : nodes) {
+            result.clear();
+            index.collectMatchingRules(node, result);
+
+            matches += result.size();
+        }
+
+        return matches;
+    }
+
+    /**
+     * Creates a stylesheet like the ones ebooks ship with: mostly class
+     * rules, some tag name and id rules, a few with a parent selector.
+     */
+    private static String createStylesheet(Random random, int ruleCount) {
+
+        StringBuilder css = new StringBuilder();
+
+        for (int i = 0; i < ruleCount; i++) {
+
+            switch (random.nextInt(6)) {
+                case 0:
+                    css.append(pick(random, TAG_NAMES));
+                    break;
+                case 1:
+                    css.append("#id").append(random.nextInt(ruleCount));
+                    break;
+                case 2:
+                    css.append(pick(random, TAG_NAMES)).append(" .c").append(random.nextInt(ruleCount));
+                    break;
+                default:
+                    css.append(".c").append(random.nextInt(ruleCount));
+                    break;
+            }
+
+            css.append(" { color: red; }\n");
+        }
+
+        return css.toString();
+    }
+
+    private static List<TagNode> createDocument(Random random, int nodeCount) {
+
+        List<TagNode> nodes = new ArrayList<>();
+        TagNode root = new TagNode("body");
+
+        nodes.add(root);
+
+        while (nodes.size() < nodeCount) {
+
+            TagNode node = new TagNode(pick(random, TAG_NAMES));
+
+            if (random.nextInt(2) == 0) {
+                node.addAttribute("class", "c" + random.nextInt(nodeCount));
+            }
+
+            if (random.nextInt(10) == 0) {
+                node.addAttribute("id", "id" + random.nextInt(nodeCount));
+            }
+
+            nodes.get(random.nextInt(nodes.size())).addChild(node);
+            nodes.add(node);
+        }
+
+        return nodes;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,274 @@
+package com.iammonk.htmlspanner.css;
+
+import org.htmlcleaner.TagNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RuleIndexTest {
+
+    private static final String[] TAG_NAMES = {"div", "p", "span", "a", "b"};
+    private static final String[] IDS = {"main", "nav", "x"};
+    private static final String[] CLASSES = {"red", "blue", "big"};
+
+    private static CompiledRule compile(String css) throws Exception {
+        List<Rule> rules = CSSParser.parse(css);
+        assertEquals(1, rules.size());
+
+        return CSSCompiler.compile(rules.get(0), null);
+    }
+
+    private static TagNode node(String name, String id, String className) {
+        TagNode node = new TagNode(name);
+
+        if (id != null) {
+            node.addAttribute("id", id);
+        }
+
+        if (className != null) {
+            node.addAttribute("class", className);
+        }
+
+        return node;
+    }
+
+    private static List<CompiledRule> collect(RuleIndex index, TagNode node) {
+        List<CompiledRule> result = new ArrayList<>();
+        index.collectMatchingRules(node, result);
+        return result;
+    }
+
+    @Test
+    public void findsRulesByTagNameIdAndClass() throws Exception {
+
+        CompiledRule byTagName = compile("p { color: red; }");
+        CompiledRule byId = compile("#main { color: red; }");
+        CompiledRule byClass = compile(".red { color: red; }");
+        CompiledRule byTagAndClass = compile("span.red { color: red; }");
+
+        RuleIndex index = new RuleIndex();
+        index.add(byTagName);
+        index.add(byId);
+        index.add(byClass);
+        index.add(byTagAndClass);
+
+        assertEquals(4, index.size());
+
+        List<CompiledRule> result = collect(index, node("p", "main", "red"));
+
+        assertEquals(3, result.size());
+        assertSame(byTagName, result.get(0));
+        assertSame(byId, result.get(1));
+        assertSame(byClass, result.get(2));
+
+        result = collect(index, node("span", null, "red"));
+
+        assertEquals(2, result.size());
+        assertSame(byClass, result.get(0));
+        assertSame(byTagAndClass, result.get(1));
+
+        assertTrue(collect(index, node("div", "nav", "blue")).isEmpty());
+    }
+
+    @Test
+    public void matchesTagNamesIgnoringCase() throws Exception {
+
+        CompiledRule rule = compile("P { color: red; }");
+
+        RuleIndex index = new RuleIndex();
+        index.add(rule);
+
+        assertEquals(1, collect(index, node("p", null, null)).size());
+    }
+
+    @Test
+    public void returnsRuleWithSeveralSelectorsOnce() throws Exception {
+
+        CompiledRule rule = compile("p, .red, #main, p.red { color: red; }");
+
+        RuleIndex index = new RuleIndex();
+        index.add(rule);
+
+        List<CompiledRule> result = collect(index, node("p", "main", "red"));
+
+        assertEquals(1, result.size());
+        assertSame(rule, result.get(0));
+    }
+
+    @Test
+    public void checksParents() throws Exception {
+
+        CompiledRule rule = compile("div p { color: red; }");
+
+        RuleIndex index = new RuleIndex();
+        index.add(rule);
+
+        TagNode div = node("div", null, null);
+        TagNode p = node("p", null, null);
+        div.addChild(p);
+
+        TagNode orphan = node("p", null, null);
+
+        assertEquals(1, collect(index, p).size());
+        assertTrue(collect(index, orphan).isEmpty());
+
+        AncestorFilter ancestors = new AncestorFilter();
+        ancestors.push(div);
+
+        assertTrue(ancestors.isValidFor(p));
+        assertFalse(ancestors.isValidFor(orphan));
+
+        List<CompiledRule> result = new ArrayList<>();
+        index.collectMatchingRules(p, ancestors, result);
+
+        assertEquals(1, result.size());
+
+        ancestors.pop();
+
+        //Without the div in the filter, the rule is rejected right away
+        result.clear();
+        index.collectMatchingRules(p, ancestors, result);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void agreesWithCheckingEveryRule() throws Exception {
+
+        Random random = new Random(42);
+        int matches = 0;
+
+        for (int round = 0; round < 20; round++) {
+
+            List<CompiledRule> rules = new ArrayList<>();
+            RuleIndex index = new RuleIndex();
+
+            for (int i = 0; i < 40; i++) {
+                CompiledRule rule = compile(randomSelectors(random) + " { color: red; }");
+
+                rules.add(rule);
+                index.add(rule);
+            }
+
+            TagNode root = randomTree(random, 0);
+
+            matches += checkTree(root, rules, index, new AncestorFilter());
+        }
+
+        //Make sure the trees and rules aren't too random to ever match
+        assertTrue(matches > 100);
+    }
+
+    /**
+     * Returns how many rules matched the nodes of the tree in total.
+     */
+    private static int checkTree(TagNode node, List<CompiledRule> rules, RuleIndex index,
+                                  AncestorFilter ancestors) {
+
+        List<CompiledRule> expected = new ArrayList<>();
+
+        for (CompiledRule rule : rules) {
+            if (rule.matches(node)) {
+                expected.add(rule);
+            }
+        }
+
+        String message = "Rules for " + describe(node);
+
+        assertEquals(message, expected, collect(index, node));
+
+        List<CompiledRule> filtered = new ArrayList<>();
+        index.collectMatchingRules(node, ancestors, filtered);
+
+        assertEquals(message, expected, filtered);
+
+        int matches = expected.size();
+
+        ancestors.push(node);
+
+        for (TagNode child : node.getChildTags()) {
+            matches += checkTree(child, rules, index, ancestors);
+        }
+
+        ancestors.pop();
+
+        return matches;
+    }
+
+    private static String describe(TagNode node) {
+
+        StringBuilder result = new StringBuilder();
+
+        for (TagNode current = node; current != null; current = current.getParent()) {
+            result.insert(0, " > " + current.getName() + current.getAttributes());
+        }
+
+        return result.toString();
+    }
+
+    private static TagNode randomTree(Random random, int depth) {
+
+        TagNode node = node(pick(random, TAG_NAMES),
+                random.nextInt(4) == 0 ? pick(random, IDS) : null,
+                random.nextInt(2) == 0 ? pick(random, CLASSES) : null);
+
+        if (depth < 5) {
+            int children = random.nextInt(4);
+
+            for (int i = 0; i < children; i++) {
+                node.addChild(randomTree(random, depth + 1));
+            }
+        }
+
+        return node;
+    }
+
+    private static String randomSelectors(Random random) {
+
+        StringBuilder result = new StringBuilder(randomSelector(random));
+
+        while (random.nextInt(4) == 0) {
+            result.append(", ").append(randomSelector(random));
+        }
+
+        return result.toString();
+    }
+
+    private static String randomSelector(Random random) {
+
+        StringBuilder result = new StringBuilder(randomSimpleSelector(random));
+
+        while (random.nextInt(3) == 0) {
+            result.insert(0, randomSimpleSelector(random) + " ");
+        }
+
+        return result.toString();
+    }
+
+    private static String randomSimpleSelector(Random random) {
+
+        switch (random.nextInt(5)) {
+            case 0:
+                return "#" + pick(random, IDS);
+            case 1:
+                return "." + pick(random, CLASSES);
+            case 2:
+                return pick(random, TAG_NAMES) + "." + pick(random, CLASSES);
+            case 3:
+                return pick(random, TAG_NAMES).toUpperCase();
+            default:
+                return pick(random, TAG_NAMES);
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
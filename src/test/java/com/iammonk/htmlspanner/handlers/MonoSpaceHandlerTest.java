@@ -0,0 +1,30 @@
+package com.iammonk.htmlspanner.handlers;
+
+import com.iammonk.htmlspanner.HtmlSpanner;
+import com.iammonk.htmlspanner.SpanStack;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+
+public class MonoSpaceHandlerTest {
+
+    @Test
+    public void worksWithoutSpanner() {
+
+        //Like the shared built-in handler, this one was never registered
+        MonoSpaceHandler handler = new MonoSpaceHandler();
+
+        assertNotNull(handler.getStyle());
+        assertNotNull(handler.getStyle(new SpanStack()));
+    }
+
+    @Test
+    public void builtInHandlerWorksWithoutRender() {
+
+        StyledTextHandler handler = (StyledTextHandler) new HtmlSpanner().getHandlerFor("code");
+
+        assertNotNull(handler.getStyle());
+        assertNotNull(handler.getStyle(new SpanStack()));
+    }
+}
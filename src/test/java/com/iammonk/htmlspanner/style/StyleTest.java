@@ -0,0 +1,80 @@
+package com.iammonk.htmlspanner.style;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StyleTest {
+
+    @Test
+    public void settersReturnSameInstanceForEqualStyles() {
+
+        Style bold = new Style().setFontWeight(Style.FontWeight.BOLD);
+
+        assertSame(bold, new Style().setFontWeight(Style.FontWeight.BOLD));
+
+        Style first = new Style().setColor(0xFF0000).setFontSize(StyleValue.ONE_EM);
+        Style second = new Style().setFontSize(StyleValue.ONE_EM).setColor(0xFF0000);
+
+        assertSame(first, second);
+        assertSame(bold, first.setColor(null).setFontSize(null).setFontWeight(Style.FontWeight.BOLD));
+    }
+
+    @Test
+    public void mergeReturnsInternedStyles() {
+
+        Style base = new Style().setDisplayStyle(Style.DisplayStyle.BLOCK);
+        Style delta = new Style().setFontStyle(Style.FontStyle.ITALIC);
+
+        Style merged = base.merge(delta);
+
+        assertSame(merged, new Style().setFontStyle(Style.FontStyle.ITALIC)
+                .setDisplayStyle(Style.DisplayStyle.BLOCK));
+        assertSame(base, base.merge(new Style()));
+        assertSame(delta, new Style().merge(delta));
+    }
+
+    @Test
+    public void constructorsCreateNewInstances() {
+
+        Style constructed = new Style(null, null, null, Style.FontWeight.BOLD, null, null,
+                null, null, null, null, null, null, null, null, null, null);
+        Style interned = new Style().setFontWeight(Style.FontWeight.BOLD);
+
+        assertNotSame(interned, constructed);
+        assertEquals(interned, constructed);
+        assertEquals(interned.hashCode(), constructed.hashCode());
+
+        //Merging with nothing still gives back the interned instance
+        assertSame(interned, constructed.merge(null));
+    }
+
+    @Test
+    public void keepsStylesInUseWhileTableGrows() {
+
+        List<Style> styles = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            styles.add(new Style().setColor(i).setMarginLeft(new StyleValue(i % 40)));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertSame(styles.get(i), new Style().setMarginLeft(new StyleValue(i % 40)).setColor(i));
+        }
+    }
+
+    @Test
+    public void unsetPropertiesAreNull() {
+
+        Style style = new Style().setColor(1).setColor(null);
+
+        assertNull(style.getColor());
+        assertSame(new Style().setColor(2).setColor(null), style);
+    }
+}
@@ -0,0 +1,41 @@
+package com.iammonk.htmlspanner.style;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StyleValueTest {
+
+    @Test
+    public void parsesLengths() {
+        assertEquals(new StyleValue(12), StyleValue.parse("12px"));
+        assertEquals(new StyleValue(1.5f, StyleValue.Unit.EM), StyleValue.parse("1.5em"));
+        assertEquals(new StyleValue(0.5f, StyleValue.Unit.PERCENTAGE), StyleValue.parse("50%"));
+    }
+
+    @Test
+    public void rejectsOtherValues() {
+        assertNull(StyleValue.parse("solid"));
+        assertNull(StyleValue.parse("1.5px"));
+        assertNull(StyleValue.parse("xem"));
+        assertNull(StyleValue.parse("%"));
+    }
+
+    @Test
+    public void sharesCommonValues() {
+        assertSame(StyleValue.ZERO, StyleValue.parse("0"));
+        assertSame(StyleValue.ONE_EM, StyleValue.parse("1em"));
+        assertSame(StyleValue.ONE_EM, StyleValue.parse("1.0em"));
+        assertSame(StyleValue.parse("16px"), StyleValue.parse("016px"));
+        assertSame(StyleValue.parse("0px"), StyleValue.parse("00px"));
+        assertEquals(StyleValue.Unit.PX, StyleValue.parse("0px").getUnit());
+    }
+
+    @Test
+    public void returnsSameInstanceForSameText() {
+        assertSame(StyleValue.parse("100px"), StyleValue.parse("100px"));
+        assertSame(StyleValue.parse("2.5em"), StyleValue.parse("2.5em"));
+    }
+}